@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semux.config.Constants;
+import org.semux.config.UnitTestnetConfig;
+import org.semux.core.Amount;
+import org.semux.core.Blockchain;
+import org.semux.core.BlockchainImpl;
+import org.semux.core.state.AccountState;
+import org.semux.db.LeveldbDatabase.LeveldbFactory;
+import org.semux.util.Bytes;
+import org.semux.util.FileUtil;
+
+/**
+ * Account updates through nested tracks, as done for each transaction of a
+ * block, and the root commit of a block.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountStateBenchmark {
+
+    @Param({ "100", "1000" })
+    public int accounts;
+
+    private File dataDir;
+    private LeveldbFactory dbFactory;
+    private Blockchain chain;
+    private byte[][] addresses;
+
+    @Setup
+    public void setup() throws IOException {
+        dataDir = Files.createTempDirectory("semux-bench").toFile();
+        dbFactory = new LeveldbFactory(dataDir);
+        chain = new BlockchainImpl(new UnitTestnetConfig(Constants.DEFAULT_DATA_DIR), dbFactory);
+
+        addresses = new byte[accounts][];
+        for (int i = 0; i < accounts; i++) {
+            addresses[i] = Bytes.random(20);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        dbFactory.close();
+        FileUtil.recursiveDelete(dataDir);
+    }
+
+    /**
+     * One track per update, committed into a block-level track.
+     */
+    @Benchmark
+    public AccountState trackAndCommit() {
+        AccountState block = chain.getAccountState().track();
+        for (byte[] address : addresses) {
+            AccountState tx = block.track();
+            tx.adjustAvailable(address, Amount.of(1));
+            tx.increaseNonce(address);
+            tx.commit();
+        }
+        block.rollback();
+        return block;
+    }
+
+    /**
+     * A block-level track committed to the database.
+     */
+    @Benchmark
+    public AccountState commitToRoot() {
+        AccountState root = chain.getAccountState();
+        AccountState block = root.track();
+        for (byte[] address : addresses) {
+            block.adjustAvailable(address, Amount.of(1));
+        }
+        block.commit();
+        root.commit();
+        return root;
+    }
+}
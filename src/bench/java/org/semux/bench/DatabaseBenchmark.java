@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semux.db.LeveldbDatabase;
+import org.semux.util.Bytes;
+import org.semux.util.FileUtil;
+
+/**
+ * LevelDB reads and writes, with state-sized keys and values.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DatabaseBenchmark {
+
+    private static final int KEYS = 100_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    private File dataDir;
+    private LeveldbDatabase db;
+    private byte[][] keys;
+
+    @Setup
+    public void setup() throws IOException {
+        dataDir = Files.createTempDirectory("semux-bench").toFile();
+        db = new LeveldbDatabase(dataDir);
+
+        keys = new byte[KEYS][];
+        List<Pair<byte[], byte[]>> pairs = new ArrayList<>(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = Bytes.random(32);
+            pairs.add(Pair.of(keys[i], Bytes.random(64)));
+        }
+        db.updateBatch(pairs);
+    }
+
+    @TearDown
+    public void tearDown() {
+        db.close();
+        FileUtil.recursiveDelete(dataDir);
+    }
+
+    @Benchmark
+    public byte[] getExisting() {
+        return db.get(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    public byte[] getMissing() {
+        return db.get(Bytes.random(32));
+    }
+
+    @Benchmark
+    public void put() {
+        db.put(Bytes.random(32), Bytes.random(64));
+    }
+
+    @Benchmark
+    public void updateBatch() {
+        List<Pair<byte[], byte[]>> pairs = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            pairs.add(Pair.of(keys[ThreadLocalRandom.current().nextInt(KEYS)], Bytes.random(64)));
+        }
+        db.updateBatch(pairs);
+    }
+}
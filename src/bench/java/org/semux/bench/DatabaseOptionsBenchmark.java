@@ -0,0 +1,270 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map.Entry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.semux.Network;
+import org.semux.core.Amount;
+import org.semux.core.Block;
+import org.semux.core.BlockHeader;
+import org.semux.core.Transaction;
+import org.semux.core.TransactionResult;
+import org.semux.core.TransactionType;
+import org.semux.core.state.Account;
+import org.semux.crypto.Key;
+import org.semux.db.DatabaseName;
+import org.semux.db.DatabaseOptions;
+import org.semux.db.LeveldbDatabase;
+import org.semux.util.Bytes;
+import org.semux.util.ClosableIterator;
+import org.semux.util.FileUtil;
+import org.semux.util.TimeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Syncing with the single LevelDB profile used before, against the per-store
+ * profiles.
+ * <p>
+ * The stores hold encoded blocks and accounts, in the layout of
+ * {@code BlockchainImpl} and {@code AccountStateImpl}, and are compacted before
+ * each iteration so that reads hit the table files rather than the write
+ * buffer. Writes are measured with and without syncing each batch, as the
+ * final index batch of a block is synced. The disk footprint of both stores is
+ * logged when an iteration ends.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DatabaseOptionsBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseOptionsBenchmark.class);
+
+    private static final int BLOCKS = 500;
+    private static final int TRANSACTIONS_PER_BLOCK = 100;
+    private static final int ACCOUNTS = 100_000;
+    private static final int LOOKUPS = 10_000;
+
+    private static final byte TYPE_BLOCK_HEADER = 0x00;
+    private static final byte TYPE_BLOCK_VOTES = 0x03;
+    private static final byte TYPE_BLOCK_TRANSACTION = 0x04;
+    private static final byte TYPE_BLOCK_RESULT = 0x05;
+    private static final byte TYPE_ACCOUNT = 0x00;
+
+    @Param({ "legacy", "tuned" })
+    private String profile;
+
+    /**
+     * Whether each write batch is synced; only affects the write benchmarks.
+     */
+    @Param({ "false", "true" })
+    private boolean sync;
+
+    // the entries of each block, the first half stored before measuring
+    private List<List<Pair<byte[], byte[]>>> blocks;
+    private byte[][] addresses;
+
+    private File dataDir;
+    private LeveldbDatabase blockDB;
+    private LeveldbDatabase accountDB;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        Key key = new Key();
+        blocks = new ArrayList<>(2 * BLOCKS);
+        for (int n = 0; n < 2 * BLOCKS; n++) {
+            blocks.add(encodeBlock(createBlock(key, n)));
+        }
+
+        addresses = new byte[ACCOUNTS][];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            addresses[i] = Bytes.random(20);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        dataDir = Files.createTempDirectory("semux-bench").toFile();
+        blockDB = open(DatabaseName.BLOCK);
+        accountDB = open(DatabaseName.ACCOUNT);
+
+        List<Pair<byte[], byte[]>> pairs = new ArrayList<>(ACCOUNTS);
+        for (byte[] address : addresses) {
+            Account account = new Account(address, Amount.of(ThreadLocalRandom.current().nextLong(1_000_000_000L)),
+                    Amount.ZERO, 0);
+            pairs.add(Pair.of(Bytes.merge(TYPE_ACCOUNT, address), account.toBytes()));
+        }
+        accountDB.updateBatch(pairs);
+        for (int n = 0; n < BLOCKS; n++) {
+            blockDB.updateBatch(blocks.get(n));
+        }
+
+        blockDB.compact();
+        accountDB.compact();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        blockDB.close();
+        accountDB.close();
+
+        logger.info("{}: block store = {} KB, account store = {} KB", profile,
+                sizeOf(new File(dataDir, "block").toPath()) / 1024,
+                sizeOf(new File(dataDir, "account").toPath()) / 1024);
+        FileUtil.recursiveDelete(dataDir);
+    }
+
+    /**
+     * Appends blocks after the stored ones, one batch per block.
+     */
+    @Benchmark
+    public void importBlocks() {
+        for (int n = BLOCKS; n < 2 * BLOCKS; n++) {
+            write(blockDB, blocks.get(n));
+        }
+    }
+
+    /**
+     * Reads random stored blocks: the header, the votes, and the transactions and
+     * results by prefix.
+     */
+    @Benchmark
+    public void readBlocks(Blackhole bh) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            long n = ThreadLocalRandom.current().nextInt(BLOCKS);
+            bh.consume(blockDB.get(Bytes.merge(TYPE_BLOCK_HEADER, Bytes.of(n))));
+            bh.consume(blockDB.get(Bytes.merge(TYPE_BLOCK_VOTES, Bytes.of(n))));
+            readEntries(bh, Bytes.merge(TYPE_BLOCK_TRANSACTION, Bytes.of(n)));
+            readEntries(bh, Bytes.merge(TYPE_BLOCK_RESULT, Bytes.of(n)));
+        }
+    }
+
+    /**
+     * Reads and updates random accounts, one batch per block.
+     */
+    @Benchmark
+    public void updateAccounts() {
+        for (int n = 0; n < BLOCKS; n++) {
+            List<Pair<byte[], byte[]>> pairs = new ArrayList<>(TRANSACTIONS_PER_BLOCK * 2);
+            for (int i = 0; i < TRANSACTIONS_PER_BLOCK * 2; i++) {
+                byte[] address = addresses[ThreadLocalRandom.current().nextInt(ACCOUNTS)];
+                byte[] k = Bytes.merge(TYPE_ACCOUNT, address);
+                Account account = Account.fromBytes(address, accountDB.get(k));
+                account.setNonce(account.getNonce() + 1);
+                pairs.add(Pair.of(k, account.toBytes()));
+            }
+            write(accountDB, pairs);
+        }
+    }
+
+    /**
+     * Reads random accounts, including missing ones.
+     */
+    @Benchmark
+    public void readAccounts(Blackhole bh) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            byte[] address = (i % 4 == 0) ? Bytes.random(20)
+                    : addresses[ThreadLocalRandom.current().nextInt(ACCOUNTS)];
+            bh.consume(accountDB.get(Bytes.merge(TYPE_ACCOUNT, address)));
+        }
+    }
+
+    private void write(LeveldbDatabase db, List<Pair<byte[], byte[]>> pairs) {
+        if (sync) {
+            db.updateBatchSync(pairs);
+        } else {
+            db.updateBatch(pairs);
+        }
+    }
+
+    private void readEntries(Blackhole bh, byte[] prefix) {
+        ClosableIterator<Entry<byte[], byte[]>> itr = blockDB.iterator(prefix);
+        try {
+            while (itr.hasNext()) {
+                Entry<byte[], byte[]> e = itr.next();
+                if (!Arrays.equals(prefix, Arrays.copyOf(e.getKey(), prefix.length))) {
+                    break;
+                }
+                bh.consume(e.getValue());
+            }
+        } finally {
+            itr.close();
+        }
+    }
+
+    private LeveldbDatabase open(DatabaseName name) {
+        DatabaseOptions options = "legacy".equals(profile) ? new DatabaseOptions() : DatabaseOptions.of(name);
+        return new LeveldbDatabase(new File(dataDir, name.name().toLowerCase(Locale.ROOT)), options);
+    }
+
+    private static Block createBlock(Key key, long number) {
+        List<Transaction> transactions = new ArrayList<>(TRANSACTIONS_PER_BLOCK);
+        List<TransactionResult> results = new ArrayList<>(TRANSACTIONS_PER_BLOCK);
+        for (int i = 0; i < TRANSACTIONS_PER_BLOCK; i++) {
+            transactions.add(new Transaction(Network.DEVNET, TransactionType.TRANSFER, Bytes.random(20),
+                    Amount.of(ThreadLocalRandom.current().nextInt(1_000_000)), Amount.of(5_000_000),
+                    number * TRANSACTIONS_PER_BLOCK + i, TimeUtil.currentTimeMillis(), Bytes.EMPTY_BYTES)
+                            .sign(key));
+            results.add(new TransactionResult());
+        }
+
+        BlockHeader header = new BlockHeader(number, key.toAddress(), Bytes.random(32),
+                TimeUtil.currentTimeMillis(), Bytes.random(32), Bytes.random(32), Bytes.random(32),
+                Bytes.EMPTY_BYTES);
+        return new Block(header, transactions, results);
+    }
+
+    private static List<Pair<byte[], byte[]>> encodeBlock(Block block) {
+        long number = block.getNumber();
+        List<Pair<byte[], byte[]>> pairs = new ArrayList<>();
+        pairs.add(Pair.of(Bytes.merge(TYPE_BLOCK_HEADER, Bytes.of(number)), block.getEncodedHeader()));
+        pairs.add(Pair.of(Bytes.merge(TYPE_BLOCK_VOTES, Bytes.of(number)), block.getEncodedVotes()));
+        for (int i = 0; i < block.getTransactions().size(); i++) {
+            pairs.add(Pair.of(Bytes.merge(Bytes.of(TYPE_BLOCK_TRANSACTION), Bytes.of(number), Bytes.of(i)),
+                    block.getTransactions().get(i).toBytes()));
+            pairs.add(Pair.of(Bytes.merge(Bytes.of(TYPE_BLOCK_RESULT), Bytes.of(number), Bytes.of(i)),
+                    block.getResults().get(i).toBytes()));
+        }
+        return pairs;
+    }
+
+    private static long sizeOf(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(f -> f.toFile().length()).sum();
+        }
+    }
+}
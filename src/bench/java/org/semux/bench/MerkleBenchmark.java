@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semux.Network;
+import org.semux.core.Amount;
+import org.semux.core.Transaction;
+import org.semux.core.TransactionResult;
+import org.semux.core.TransactionType;
+import org.semux.crypto.Key;
+import org.semux.util.Bytes;
+import org.semux.util.MerkleUtil;
+import org.semux.util.TimeUtil;
+
+/**
+ * Transactions and results roots of a block.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MerkleBenchmark {
+
+    @Param({ "100", "1000", "5000" })
+    public int size;
+
+    private List<Transaction> transactions;
+    private List<TransactionResult> results;
+
+    @Setup
+    public void setup() {
+        Key key = new Key();
+        transactions = new ArrayList<>(size);
+        results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transactions.add(new Transaction(Network.DEVNET, TransactionType.TRANSFER, Bytes.random(20),
+                    Amount.of(1), Amount.of(5_000_000), i, TimeUtil.currentTimeMillis(), Bytes.EMPTY_BYTES)
+                            .sign(key));
+            results.add(new TransactionResult());
+        }
+    }
+
+    @Benchmark
+    public byte[] transactionsRoot() {
+        return MerkleUtil.computeTransactionsRoot(transactions);
+    }
+
+    @Benchmark
+    public byte[] resultsRoot() {
+        return MerkleUtil.computeResultsRoot(results);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semux.Network;
+import org.semux.core.Amount;
+import org.semux.core.Transaction;
+import org.semux.core.TransactionType;
+import org.semux.crypto.Hash;
+import org.semux.crypto.Key;
+import org.semux.crypto.cache.SignatureCache;
+import org.semux.util.Bytes;
+import org.semux.util.TimeUtil;
+
+/**
+ * Transaction encoding, hashing and signing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionBenchmark {
+
+    private Key key;
+    private Transaction tx;
+    private byte[] bytes;
+    private byte[] sig;
+    private Key.Signature signature;
+
+    @Setup
+    public void setup() {
+        key = new Key();
+        tx = new Transaction(Network.DEVNET, TransactionType.TRANSFER, Bytes.random(20), Amount.of(1),
+                Amount.of(5_000_000), 1, TimeUtil.currentTimeMillis(), Bytes.random(128)).sign(key);
+        bytes = tx.toBytes();
+        sig = tx.getSignature().toBytes();
+        signature = Key.Signature.fromBytes(sig);
+        signature.getAddress();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return tx.toBytes();
+    }
+
+    @Benchmark
+    public Transaction decode() {
+        return Transaction.fromBytes(bytes);
+    }
+
+    @Benchmark
+    public byte[] hash() {
+        return Hash.h256(tx.getEncoded());
+    }
+
+    @Benchmark
+    public Key.Signature sign() {
+        return key.sign(tx.getHash());
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return Key.verify(tx.getHash(), sig);
+    }
+
+    /**
+     * The signer address derived from a freshly decoded signature.
+     */
+    @Benchmark
+    public byte[] signerAddress() {
+        return Key.Signature.fromBytes(sig).getAddress();
+    }
+
+    /**
+     * The signer address memoized on the signature instance.
+     */
+    @Benchmark
+    public byte[] signerAddressCached() {
+        return signature.getAddress();
+    }
+
+    /**
+     * Full validation, including the signature verification; the signature is
+     * dropped from the cache first, so every invocation verifies it.
+     */
+    @Benchmark
+    public boolean validate() {
+        Transaction t = Transaction.fromBytes(bytes);
+        SignatureCache.invalidate(t.getHash(), t.getSignature());
+        return t.validate(Network.DEVNET);
+    }
+
+    /**
+     * Full validation of a transaction whose signature is known to be valid, as
+     * when a pending transaction is seen again in a block.
+     */
+    @Benchmark
+    public boolean validateCached() {
+        return Transaction.fromBytes(bytes).validate(Network.DEVNET);
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semux.config.Config;
+import org.semux.config.Constants;
+import org.semux.config.UnitTestnetConfig;
+import org.semux.core.Amount;
+import org.semux.core.Block;
+import org.semux.core.BlockHeader;
+import org.semux.core.Blockchain;
+import org.semux.core.BlockchainImpl;
+import org.semux.core.Transaction;
+import org.semux.core.TransactionExecutor;
+import org.semux.core.TransactionResult;
+import org.semux.core.TransactionType;
+import org.semux.core.Unit;
+import org.semux.core.state.AccountState;
+import org.semux.core.state.DelegateState;
+import org.semux.crypto.Key;
+import org.semux.db.LeveldbDatabase.LeveldbFactory;
+import org.semux.util.Bytes;
+import org.semux.util.FileUtil;
+import org.semux.util.TimeUtil;
+import org.semux.vm.client.SemuxBlock;
+import org.semux.vm.client.SemuxBlockStore;
+
+/**
+ * Execution of a full block of transfers, from several senders, against a
+ * tracked state which is discarded afterwards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionExecutorBenchmark {
+
+    private static final int SENDERS = 16;
+
+    private File dataDir;
+    private LeveldbFactory dbFactory;
+    private Blockchain chain;
+    private TransactionExecutor exec;
+    private SemuxBlock block;
+    private List<Transaction> transactions;
+
+    @Setup
+    public void setup() throws IOException {
+        Config config = new UnitTestnetConfig(Constants.DEFAULT_DATA_DIR);
+        dataDir = Files.createTempDirectory("semux-bench").toFile();
+        dbFactory = new LeveldbFactory(dataDir);
+        chain = new BlockchainImpl(config, dbFactory);
+        exec = new TransactionExecutor(config, new SemuxBlockStore(chain), chain.isVMEnabled(),
+                chain.isVotingPrecompiledUpgraded());
+
+        Block latest = chain.getLatestBlock();
+        BlockHeader header = new BlockHeader(latest.getNumber() + 1, new Key().toAddress(), latest.getHash(),
+                TimeUtil.currentTimeMillis(), Bytes.EMPTY_HASH, Bytes.EMPTY_HASH, Bytes.EMPTY_HASH,
+                Bytes.EMPTY_BYTES);
+        block = new SemuxBlock(header, config.spec().maxBlockGasLimit());
+
+        // fund the senders
+        Key[] senders = new Key[SENDERS];
+        AccountState as = chain.getAccountState();
+        for (int i = 0; i < SENDERS; i++) {
+            senders[i] = new Key();
+            as.adjustAvailable(senders[i].toAddress(), Amount.of(1_000_000, Unit.SEM));
+        }
+        as.commit();
+
+        // fill a block with transfers, interleaving the senders
+        transactions = new ArrayList<>();
+        long remainingBlockGas = config.spec().maxBlockGasLimit();
+        for (int i = 0; remainingBlockGas >= config.spec().nonVMTransactionGasCost(); i++) {
+            transactions.add(new Transaction(config.network(), TransactionType.TRANSFER, Bytes.random(20),
+                    Amount.of(1), config.spec().minTransactionFee(), i / SENDERS, TimeUtil.currentTimeMillis(),
+                    Bytes.EMPTY_BYTES).sign(senders[i % SENDERS]));
+            remainingBlockGas -= config.spec().nonVMTransactionGasCost();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        dbFactory.close();
+        FileUtil.recursiveDelete(dataDir);
+    }
+
+    @Benchmark
+    public List<TransactionResult> executeBlock() {
+        AccountState as = chain.getAccountState().track();
+        DelegateState ds = chain.getDelegateState().track();
+
+        List<TransactionResult> results = exec.execute(transactions, as, ds, block, 0);
+
+        as.rollback();
+        ds.rollback();
+        return results;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.net;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semux.config.Config;
+import org.semux.config.Constants;
+import org.semux.config.UnitTestnetConfig;
+import org.semux.core.Amount;
+import org.semux.core.Block;
+import org.semux.core.BlockHeader;
+import org.semux.core.Transaction;
+import org.semux.core.TransactionResult;
+import org.semux.core.TransactionType;
+import org.semux.crypto.Key;
+import org.semux.net.msg.Message;
+import org.semux.net.msg.consensus.BlockMessage;
+import org.semux.util.Bytes;
+import org.semux.util.MerkleUtil;
+import org.semux.util.TimeUtil;
+
+/**
+ * Message encoding into Snappy-compressed frames, and decoding back, for a block
+ * with the given number of transactions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SemuxMessageHandlerBenchmark {
+
+    @Param({ "0", "100", "1000" })
+    public int transactions;
+
+    private SemuxMessageHandler handler;
+    private Message msg;
+    private List<Frame> frames;
+
+    @Setup
+    public void setup() throws Exception {
+        Config config = new UnitTestnetConfig(Constants.DEFAULT_DATA_DIR);
+        handler = new SemuxMessageHandler(config);
+
+        Key key = new Key();
+        List<Transaction> txs = new ArrayList<>();
+        List<TransactionResult> results = new ArrayList<>();
+        for (int i = 0; i < transactions; i++) {
+            txs.add(new Transaction(config.network(), TransactionType.TRANSFER, Bytes.random(20), Amount.of(1),
+                    config.spec().minTransactionFee(), i, TimeUtil.currentTimeMillis(), Bytes.EMPTY_BYTES)
+                            .sign(key));
+            results.add(new TransactionResult());
+        }
+        BlockHeader header = new BlockHeader(1, key.toAddress(), Bytes.EMPTY_HASH, TimeUtil.currentTimeMillis(),
+                MerkleUtil.computeTransactionsRoot(txs), MerkleUtil.computeResultsRoot(results), Bytes.EMPTY_HASH,
+                Bytes.EMPTY_BYTES);
+        msg = new BlockMessage(new Block(header, txs, results));
+
+        frames = new ArrayList<>();
+        for (Object o : encode()) {
+            frames.add((Frame) o);
+        }
+    }
+
+    @Benchmark
+    public List<Object> encode() throws Exception {
+        List<Object> out = new ArrayList<>();
+        handler.encode(null, msg, out);
+        return out;
+    }
+
+    @Benchmark
+    public Message decode() throws Exception {
+        return handler.decodeMessage(frames);
+    }
+}
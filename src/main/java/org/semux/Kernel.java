@@ -145,7 +145,7 @@ public class Kernel {
         // initialize blockchain database
         // ====================================
         relocateDatabaseIfNeeded();
-        dbFactory = new LeveldbFactory(config.databaseDir());
+        dbFactory = new LeveldbFactory(config.databaseDir(), config::dbOptions);
         chain = new BlockchainImpl(config, genesis, dbFactory);
         long number = chain.getLatestBlockNumber();
         logger.info("Latest block number = {}", number);
@@ -223,7 +223,7 @@ public class Kernel {
         File blocksDir = new File(databaseDir, "block");
 
         if (blocksDir.exists()) {
-            LeveldbDatabase db = new LeveldbDatabase(blocksDir);
+            LeveldbDatabase db = new LeveldbDatabase(blocksDir, config.dbOptions(DatabaseName.BLOCK));
             byte[] header = db.get(Bytes.merge((byte) 0x00, Bytes.of(0L)));
             db.close();
 
@@ -12,6 +12,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.semux.Kernel;
 import org.semux.api.http.HttpChannelInitializer;
 import org.semux.api.http.HttpHandler;
+import org.semux.net.NettyTransport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,8 +21,6 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.FixedRecvByteBufAllocator;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 
@@ -86,11 +85,12 @@ public class SemuxApiService {
         try {
             this.ip = ip;
             this.port = port;
-            bossGroup = new NioEventLoopGroup(1, factory);
-            workerGroup = new NioEventLoopGroup(0, factory);
+            NettyTransport transport = NettyTransport.of(kernel.getConfig().netEpollEnabled());
+            bossGroup = transport.newEventLoopGroup(1, factory);
+            workerGroup = transport.newEventLoopGroup(kernel.getConfig().apiEventLoopThreads(), factory);
 
             ServerBootstrap b = new ServerBootstrap();
-            b.group(bossGroup, workerGroup).channel(NioServerSocketChannel.class)
+            b.group(bossGroup, workerGroup).channel(transport.serverChannelClass())
                     .handler(new LoggingHandler(LogLevel.INFO)).childHandler(new HttpChannelInitializer() {
                         public HttpHandler initHandler() {
                             return new HttpHandler(kernel, apiHandler);
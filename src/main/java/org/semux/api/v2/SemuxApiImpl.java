@@ -13,8 +13,10 @@ import java.io.File;
 import java.net.UnknownHostException;
 import java.nio.charset.Charset;
 import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -49,6 +51,7 @@ import org.semux.api.v2.model.GetDelegatesResponse;
 import org.semux.api.v2.model.GetInfoResponse;
 import org.semux.api.v2.model.GetLatestBlockNumberResponse;
 import org.semux.api.v2.model.GetLatestBlockResponse;
+import org.semux.api.v2.model.GetLogsResponse;
 import org.semux.api.v2.model.GetPeersResponse;
 import org.semux.api.v2.model.GetPendingTransactionsResponse;
 import org.semux.api.v2.model.GetSyncingStatusResponse;
@@ -70,6 +73,7 @@ import org.semux.core.Amount;
 import org.semux.core.Block;
 import org.semux.core.Blockchain;
 import org.semux.core.BlockchainImpl;
+import org.semux.core.ContractLog;
 import org.semux.core.PendingManager;
 import org.semux.core.SyncManager;
 import org.semux.core.Transaction;
@@ -101,6 +105,17 @@ public final class SemuxApiImpl implements SemuxApi {
 
     private static final Charset CHARSET = UTF_8;
 
+    /**
+     * The max number of blocks a log query may cover.
+     */
+    private static final long MAX_LOG_BLOCK_RANGE = 10_000;
+
+    /**
+     * The number of logs after which a log query returns at the end of the
+     * current block, with the block to resume from.
+     */
+    private static final int MAX_LOGS = 1_000;
+
     private final Kernel kernel;
 
     public SemuxApiImpl(Kernel kernel) {
@@ -542,6 +557,55 @@ public final class SemuxApiImpl implements SemuxApi {
         }
     }
 
+    @Override
+    public Response getLogs(String from, String to, String address, List<String> topics) {
+        try {
+            long fromLong = parseInt(from, true, "from");
+            long toLong = parseInt(to, true, "to");
+            byte[] addressBytes = parseAddress(address, false);
+
+            if (toLong < fromLong) {
+                return badRequest("Parameter `to` must not be less than `from`");
+            }
+            if (toLong - fromLong >= MAX_LOG_BLOCK_RANGE) {
+                return badRequest("Parameters `from` and `to` must not span more than " + MAX_LOG_BLOCK_RANGE
+                        + " blocks");
+            }
+
+            List<byte[]> topicsBytes = new ArrayList<>();
+            if (topics != null) {
+                for (String topic : topics) {
+                    if (topic.isEmpty()) {
+                        topicsBytes.add(null);
+                    } else {
+                        byte[] bytes = parseHex(topic, true, "topics");
+                        if (bytes.length != 32) {
+                            return badRequest("Parameter `topics` must be 32-byte hexadecimal strings");
+                        }
+                        topicsBytes.add(bytes);
+                    }
+                }
+            }
+
+            List<ContractLog> logs = kernel.getBlockchain().getLogs(fromLong, toLong, addressBytes, topicsBytes,
+                    MAX_LOGS);
+
+            GetLogsResponse resp = new GetLogsResponse();
+            resp.setResult(logs.stream()
+                    .map(TypeFactory::logType)
+                    .collect(Collectors.toList()));
+            if (logs.size() >= MAX_LOGS) {
+                long next = logs.get(logs.size() - 1).getBlockNumber() + 1;
+                if (next <= toLong) {
+                    resp.setNext(Long.toString(next));
+                }
+            }
+            return success(resp);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
     @Override
     public Response getValidators() {
         GetValidatorsResponse resp = new GetValidatorsResponse();
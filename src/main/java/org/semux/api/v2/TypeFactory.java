@@ -11,8 +11,10 @@ import static org.semux.core.TransactionType.CREATE;
 import static org.semux.core.TransactionType.DELEGATE;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -25,6 +27,7 @@ import org.semux.api.v2.model.DelegateType;
 import org.semux.api.v2.model.InfoType;
 import org.semux.api.v2.model.InternalTransactionType;
 import org.semux.api.v2.model.LogInfoType;
+import org.semux.api.v2.model.LogType;
 import org.semux.api.v2.model.PeerType;
 import org.semux.api.v2.model.TransactionLimitsType;
 import org.semux.api.v2.model.TransactionResultType;
@@ -33,12 +36,15 @@ import org.semux.core.Amount;
 import org.semux.core.Block;
 import org.semux.core.Blockchain;
 import org.semux.core.BlockchainImpl;
+import org.semux.core.ContractLog;
 import org.semux.core.Transaction;
 import org.semux.core.TransactionResult;
 import org.semux.core.state.Account;
 import org.semux.core.state.Delegate;
+import org.semux.core.state.DelegateState;
 import org.semux.crypto.Hex;
 import org.semux.net.Peer;
+import org.semux.util.ByteArray;
 import org.semux.vm.client.SemuxInternalTransaction;
 
 public class TypeFactory {
@@ -89,12 +95,15 @@ public class TypeFactory {
 
     public static List<AccountVoteType> accountVotes(Blockchain blockchain, byte[] address) {
         Set<String> validators = new HashSet<>(blockchain.getValidators());
-        return blockchain.getDelegateState()
-                .getDelegates()
-                .parallelStream()
-                .map(delegate -> accountVoteType(blockchain, address, delegate,
-                        validators.contains(delegate.getAddressString())))
-                .filter(accountVote -> !accountVote.getVotes().equals("0"))
+        DelegateState delegateState = blockchain.getDelegateState();
+        Map<ByteArray, Amount> votes = delegateState.getVotesByVoter(address);
+        return votes.keySet().stream()
+                .map(delegate -> delegateState.getDelegateByAddress(delegate.getData()))
+                .sorted(Comparator.comparing(Delegate::getVotes).reversed().thenComparing(Delegate::getNameString))
+                .map(delegate -> new AccountVoteType()
+                        .delegate(TypeFactory.delegateType(blockchain.getValidatorStats(delegate.getAddress()),
+                                delegate, validators.contains(delegate.getAddressString())))
+                        .votes(votes.get(ByteArray.of(delegate.getAddress())).toString()))
                 .collect(Collectors.toList());
     }
 
@@ -178,6 +187,15 @@ public class TypeFactory {
                 .contractAddress(contractAddress == null ? null : Hex.encode0x(contractAddress));
     }
 
+    public static LogType logType(ContractLog log) {
+        return new LogType()
+                .blockNumber(String.valueOf(log.getBlockNumber()))
+                .transactionHash(Hex.encode0x(log.getTransactionHash()))
+                .transactionIndex(log.getTransactionIndex())
+                .logIndex(log.getLogIndex())
+                .log(logInfoType(log.getLog()));
+    }
+
     private static LogInfoType logInfoType(LogInfo log) {
         return new LogInfoType()
                 .address(Hex.encode0x(log.getAddress()))
@@ -172,8 +172,14 @@ public class SemuxCli extends Launcher {
 
     protected void reindex(String to) {
         Config config = getConfig();
-        DatabaseFactory dbFactory = new LeveldbDatabase.LeveldbFactory(config.databaseDir());
-        BlockchainImpl.upgrade(config, dbFactory, to == null ? Long.MAX_VALUE : Long.parseLong(to));
+        DatabaseFactory dbFactory = new LeveldbDatabase.LeveldbFactory(config.databaseDir(), config::dbOptions);
+        if (to == null) {
+            BlockchainImpl.reindex(config, dbFactory);
+        } else {
+            // import the blocks again up to the given one, dropping the later ones
+            BlockchainImpl.upgrade(config, dbFactory, Long.parseLong(to));
+        }
+        dbFactory.close();
     }
 
     protected void start() throws IOException {
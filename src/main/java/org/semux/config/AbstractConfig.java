@@ -21,9 +21,11 @@ import java.io.FileInputStream;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
@@ -31,12 +33,15 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import org.ethereum.vm.chainspec.Spec;
+import org.iq80.leveldb.CompressionType;
 import org.semux.Network;
 import org.semux.config.exception.ConfigException;
 import org.semux.core.Amount;
 import org.semux.core.Fork;
 import org.semux.core.TransactionType;
 import org.semux.crypto.Hash;
+import org.semux.db.DatabaseName;
+import org.semux.db.DatabaseOptions;
 import org.semux.net.Capability;
 import org.semux.net.CapabilityTreeSet;
 import org.semux.net.NodeManager.Node;
@@ -86,6 +91,9 @@ public abstract class AbstractConfig implements Config, ChainSpec {
     protected int netMaxInboundConnections = 512;
     protected int netMaxInboundConnectionsPerIp = 5;
     protected int netMaxMessageQueueSize = 4096;
+    protected int netMaxOutboundRate = 16 * 1024 * 1024;
+    protected boolean netEpollEnabled = false;
+    protected int netEventLoopThreads = 0;
     protected int netMaxFrameBodySize = 128 * 1024;
     protected int netMaxPacketSize = 16 * 1024 * 1024;
     protected int netRelayRedundancy = 8;
@@ -100,6 +108,15 @@ public abstract class AbstractConfig implements Config, ChainSpec {
             .unmodifiableList(Arrays.asList("mainnet.semux.org", "mainnet.semux.net"));
     protected List<String> netDnsSeedsTestNet = Collections.singletonList("testnet.semux.org");
 
+    // =========================
+    // Database
+    // =========================
+    protected long dbStateCacheSize = 64L * 1024L * 1024L;
+    protected long dbTransactionFilterSize = 8L * 1024L * 1024L;
+    protected long dbBlockCacheSize = 32L * 1024L * 1024L;
+    protected long dbHeaderCacheSize = 16384;
+    protected Map<DatabaseName, DatabaseOptions> dbOptions = new EnumMap<>(DatabaseName.class);
+
     // =========================
     // Sync
     // =========================
@@ -116,6 +133,7 @@ public abstract class AbstractConfig implements Config, ChainSpec {
     protected boolean apiEnabled = false;
     protected String apiListenIp = "127.0.0.1";
     protected int apiListenPort = Constants.DEFAULT_API_PORT;
+    protected int apiEventLoopThreads = 0;
     protected String apiUsername = "YOUR_API_USERNAME";
     protected String apiPassword = "YOUR_API_PASSWORD";
     protected String[] apiPublicServices = {
@@ -142,6 +160,7 @@ public abstract class AbstractConfig implements Config, ChainSpec {
     protected int poolBlockGasLimit = 10_000_000;
     protected Amount poolMinGasPrice = Amount.of(10); // 10 NanoSEM = 10 Gwei
     protected long poolMaxTransactionTimeDrift = TimeUnit.HOURS.toMillis(2);
+    protected int poolIngestBatchSize = 512;
 
     // =========================
     // UI
@@ -401,6 +420,21 @@ public abstract class AbstractConfig implements Config, ChainSpec {
         return netMaxMessageQueueSize;
     }
 
+    @Override
+    public int netMaxOutboundRate() {
+        return netMaxOutboundRate;
+    }
+
+    @Override
+    public boolean netEpollEnabled() {
+        return netEpollEnabled;
+    }
+
+    @Override
+    public int netEventLoopThreads() {
+        return netEventLoopThreads;
+    }
+
     @Override
     public int netMaxFrameBodySize() {
         return netMaxFrameBodySize;
@@ -441,6 +475,31 @@ public abstract class AbstractConfig implements Config, ChainSpec {
         return netDnsSeedsTestNet;
     }
 
+    @Override
+    public long dbStateCacheSize() {
+        return dbStateCacheSize;
+    }
+
+    @Override
+    public long dbTransactionFilterSize() {
+        return dbTransactionFilterSize;
+    }
+
+    @Override
+    public long dbBlockCacheSize() {
+        return dbBlockCacheSize;
+    }
+
+    @Override
+    public long dbHeaderCacheSize() {
+        return dbHeaderCacheSize;
+    }
+
+    @Override
+    public DatabaseOptions dbOptions(DatabaseName name) {
+        return dbOptions.computeIfAbsent(name, DatabaseOptions::of);
+    }
+
     @Override
     public long syncDownloadTimeout() {
         return syncDownloadTimeout;
@@ -486,6 +545,11 @@ public abstract class AbstractConfig implements Config, ChainSpec {
         return apiListenPort;
     }
 
+    @Override
+    public int apiEventLoopThreads() {
+        return apiEventLoopThreads;
+    }
+
     @Override
     public String apiUsername() {
         return apiUsername;
@@ -560,6 +624,11 @@ public abstract class AbstractConfig implements Config, ChainSpec {
         return poolMaxTransactionTimeDrift;
     }
 
+    @Override
+    public int poolIngestBatchSize() {
+        return poolIngestBatchSize;
+    }
+
     @Override
     public Locale uiLocale() {
         return uiLocale;
@@ -641,6 +710,15 @@ public abstract class AbstractConfig implements Config, ChainSpec {
                 case "net.maxMessageQueueSize":
                     netMaxMessageQueueSize = Integer.parseInt(props.getProperty(name).trim());
                     break;
+                case "net.maxOutboundRate":
+                    netMaxOutboundRate = Integer.parseInt(props.getProperty(name).trim()) * 1024;
+                    break;
+                case "net.epoll":
+                    netEpollEnabled = Boolean.parseBoolean(props.getProperty(name).trim());
+                    break;
+                case "net.eventLoopThreads":
+                    netEventLoopThreads = Integer.parseInt(props.getProperty(name).trim());
+                    break;
                 case "net.relayRedundancy":
                     netRelayRedundancy = Integer.parseInt(props.getProperty(name).trim());
                     break;
@@ -654,6 +732,19 @@ public abstract class AbstractConfig implements Config, ChainSpec {
                     netDnsSeedsTestNet = Arrays.asList(props.getProperty(name).trim().split(","));
                     break;
 
+                case "db.stateCacheSize":
+                    dbStateCacheSize = Long.parseLong(props.getProperty(name).trim()) * 1024L * 1024L;
+                    break;
+                case "db.transactionFilterSize":
+                    dbTransactionFilterSize = Long.parseLong(props.getProperty(name).trim());
+                    break;
+                case "db.blockCacheSize":
+                    dbBlockCacheSize = Long.parseLong(props.getProperty(name).trim()) * 1024L * 1024L;
+                    break;
+                case "db.headerCacheSize":
+                    dbHeaderCacheSize = Long.parseLong(props.getProperty(name).trim());
+                    break;
+
                 case "sync.downloadTimeout":
                     syncDownloadTimeout = Long.parseLong(props.getProperty(name).trim());
                     break;
@@ -682,6 +773,9 @@ public abstract class AbstractConfig implements Config, ChainSpec {
                 case "api.listenPort":
                     apiListenPort = Integer.parseInt(props.getProperty(name).trim());
                     break;
+                case "api.eventLoopThreads":
+                    apiEventLoopThreads = Integer.parseInt(props.getProperty(name).trim());
+                    break;
                 case "api.username":
                     apiUsername = props.getProperty(name).trim();
                     break;
@@ -726,8 +820,14 @@ public abstract class AbstractConfig implements Config, ChainSpec {
                     poolMaxTransactionTimeDrift = Integer.parseInt(props.getProperty(name).trim());
                     break;
                 }
+                case "txpool.ingestBatchSize": {
+                    poolIngestBatchSize = Integer.parseInt(props.getProperty(name).trim());
+                    break;
+                }
                 default:
-                    logger.error("Unsupported option: {} = {}", name, props.getProperty(name));
+                    if (!parseDatabaseOption(name, props.getProperty(name).trim())) {
+                        logger.error("Unsupported option: {} = {}", name, props.getProperty(name));
+                    }
                     break;
                 }
             }
@@ -736,6 +836,49 @@ public abstract class AbstractConfig implements Config, ChainSpec {
         }
     }
 
+    /**
+     * Parses an option of a store, in the form of
+     * <code>db.&lt;name&gt;.&lt;option&gt;</code>.
+     *
+     * @param name
+     * @param value
+     * @return true if the option is supported, otherwise false
+     */
+    protected boolean parseDatabaseOption(String name, String value) {
+        String[] parts = name.split("\\.");
+        if (parts.length != 3 || !parts[0].equals("db")) {
+            return false;
+        }
+
+        DatabaseName db;
+        try {
+            db = DatabaseName.valueOf(parts[1].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        DatabaseOptions options = dbOptions(db);
+        switch (parts[2]) {
+        case "cacheSize":
+            options.cacheSize(Long.parseLong(value) * 1024L * 1024L);
+            return true;
+        case "blockSize":
+            options.blockSize(Integer.parseInt(value) * 1024);
+            return true;
+        case "writeBufferSize":
+            options.writeBufferSize(Integer.parseInt(value) * 1024 * 1024);
+            return true;
+        case "compression":
+            options.compression(CompressionType.valueOf(value.toUpperCase(Locale.ROOT)));
+            return true;
+        case "verifyChecksums":
+            options.verifyChecksums(Boolean.parseBoolean(value));
+            return true;
+        default:
+            return false;
+        }
+    }
+
     private void validate() {
         if (apiEnabled) {
             if ("YOUR_API_USERNAME".equals(apiUsername) || "YOUR_API_PASSWORD".equals(apiPassword)) {
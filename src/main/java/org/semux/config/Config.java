@@ -16,6 +16,8 @@ import java.util.Set;
 import org.semux.Network;
 import org.semux.core.Amount;
 import org.semux.core.Fork;
+import org.semux.db.DatabaseName;
+import org.semux.db.DatabaseOptions;
 import org.semux.net.CapabilityTreeSet;
 import org.semux.net.NodeManager.Node;
 import org.semux.net.msg.MessageCode;
@@ -158,6 +160,30 @@ public interface Config {
      */
     int netMaxMessageQueueSize();
 
+    /**
+     * Returns the max rate of outgoing messages to one peer, in bytes per second,
+     * or 0 if unlimited.
+     *
+     * @return
+     */
+    int netMaxOutboundRate();
+
+    /**
+     * Returns whether to use the native epoll transport when available, instead
+     * of NIO.
+     *
+     * @return
+     */
+    boolean netEpollEnabled();
+
+    /**
+     * Returns the number of P2P event loop threads, or 0 for two per core. Before
+     * this was configurable, a fixed 4 threads were used.
+     *
+     * @return
+     */
+    int netEventLoopThreads();
+
     /**
      * Returns the max size of frame body, in bytes.
      *
@@ -214,6 +240,50 @@ public interface Config {
      */
     List<String> netDnsSeedsTestNet();
 
+    // =========================
+    // Database
+    // =========================
+
+    /**
+     * Returns the max size of the in-memory account and delegate state cache, in
+     * bytes.
+     *
+     * @return
+     */
+    long dbStateCacheSize();
+
+    /**
+     * Returns the expected number of transactions for the in-memory filter of
+     * committed transaction hashes, or 0 if disabled.
+     *
+     * @return
+     */
+    long dbTransactionFilterSize();
+
+    /**
+     * Returns the max encoded size of the decoded blocks cached in memory,
+     * besides the most recent ones, in bytes.
+     *
+     * @return
+     */
+    long dbBlockCacheSize();
+
+    /**
+     * Returns the max number of decoded block headers cached in memory, besides
+     * those of the cached blocks.
+     *
+     * @return
+     */
+    long dbHeaderCacheSize();
+
+    /**
+     * Returns the LevelDB options of a store.
+     *
+     * @param name
+     * @return
+     */
+    DatabaseOptions dbOptions(DatabaseName name);
+
     // =========================
     // Sync
     // =========================
@@ -286,6 +356,13 @@ public interface Config {
      */
     int apiListenPort();
 
+    /**
+     * Returns the number of API event loop threads, or 0 for two per core.
+     *
+     * @return
+     */
+    int apiEventLoopThreads();
+
     /**
      * Returns the user name for API basic authentication.
      *
@@ -394,6 +471,14 @@ public interface Config {
      */
     long poolMaxTransactionTimeDrift();
 
+    /**
+     * Returns the max number of queued transactions to validate and execute in one
+     * batch.
+     *
+     * @return
+     */
+    int poolIngestBatchSize();
+
     // =========================
     // UI
     // =========================
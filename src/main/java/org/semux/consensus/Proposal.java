@@ -15,6 +15,7 @@ import org.semux.core.BlockHeader;
 import org.semux.core.Transaction;
 import org.semux.crypto.Key;
 import org.semux.crypto.Key.Signature;
+import org.semux.crypto.cache.SignatureCache;
 import org.semux.util.SimpleDecoder;
 import org.semux.util.SimpleEncoder;
 
@@ -90,7 +91,7 @@ public class Proposal {
                 && transactions != null
                 && proof.getHeight() == blockHeader.getNumber()
                 && encoded != null
-                && signature != null && Key.verify(encoded, signature);
+                && signature != null && SignatureCache.verify(encoded, signature);
     }
 
     public Proof getProof() {
@@ -13,10 +13,18 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.ethereum.vm.client.BlockStore;
 import org.semux.Kernel;
 import org.semux.Network;
@@ -38,8 +46,10 @@ import org.semux.crypto.Hash;
 import org.semux.crypto.Hex;
 import org.semux.crypto.Key;
 import org.semux.crypto.Key.Signature;
+import org.semux.crypto.cache.SignatureCache;
 import org.semux.net.Channel;
 import org.semux.net.ChannelManager;
+import org.semux.net.EncodedMessage;
 import org.semux.net.msg.Message;
 import org.semux.net.msg.MessageCode;
 import org.semux.net.msg.ReasonCode;
@@ -66,10 +76,12 @@ import com.github.benmanes.caffeine.cache.Caffeine;
  * maintained in the engine and are updated only by the event loop.
  * <p>
  * Asides the main event hub, there are complementary threads:
- * <code>timer</code> and <code>broadcaster</code>. The <code>timer</code>
- * thread emits a TIMEOUT event when the internal timer times out. The
- * <code>broadcaster</code> thread is responsible for relaying BFT messages to
- * peers.
+ * <code>timer</code>, <code>broadcaster</code> and <code>verifier</code>. The
+ * <code>timer</code> thread emits a TIMEOUT event when the internal timer times
+ * out. The <code>broadcaster</code> thread is responsible for relaying BFT
+ * messages to peers. The <code>verifier</code> threads check the signatures of
+ * incoming proposals and votes, off the network I/O threads, before they are
+ * turned into events.
  * <p>
  * The BFT engine may be one of the following status:
  * <ul>
@@ -105,6 +117,7 @@ public class SemuxBft implements BftManager {
 
     protected Timer timer;
     protected Broadcaster broadcaster;
+    protected Verifier verifier;
     protected BlockingQueue<Event> events = new LinkedBlockingQueue<>();
 
     protected Status status;
@@ -116,6 +129,9 @@ public class SemuxBft implements BftManager {
     protected Proposal proposal;
 
     protected Cache<ByteArray, Block> validBlocks = Caffeine.newBuilder().maximumSize(8).build();
+    // the state tracks on which the valid blocks have been executed
+    protected Cache<ByteArray, Pair<AccountState, DelegateState>> validStates = Caffeine.newBuilder()
+            .maximumSize(8).build();
 
     protected List<String> validators;
     protected List<Channel> activeValidators;
@@ -138,6 +154,7 @@ public class SemuxBft implements BftManager {
 
         this.timer = new Timer();
         this.broadcaster = new Broadcaster();
+        this.verifier = new Verifier();
 
         this.status = Status.STOPPED;
         this.state = State.NEW_HEIGHT;
@@ -221,6 +238,7 @@ public class SemuxBft implements BftManager {
             status = Status.RUNNING;
             timer.start();
             broadcaster.start();
+            verifier.start();
             logger.info("Semux BFT manager started");
 
             enterNewHeight();
@@ -240,6 +258,7 @@ public class SemuxBft implements BftManager {
 
             timer.stop();
             broadcaster.stop();
+            verifier.stop();
 
             status = Status.STOPPED;
             Event ev = new Event(Type.STOP);
@@ -286,10 +305,7 @@ public class SemuxBft implements BftManager {
         }
 
         // Broadcast NEW_HEIGHT messages to ALL peers.
-        NewHeightMessage msg = new NewHeightMessage(height);
-        for (Channel c : channelMgr.getActiveChannels()) {
-            c.getMessageQueue().sendMessage(msg);
-        }
+        broadcast(new NewHeightMessage(height), channelMgr.getActiveChannels());
     }
 
     /**
@@ -324,10 +340,7 @@ public class SemuxBft implements BftManager {
         }
 
         // broadcast NEW_VIEW messages.
-        NewViewMessage msg = new NewViewMessage(proof);
-        for (Channel c : activeValidators) {
-            c.getMessageQueue().sendMessage(msg);
-        }
+        broadcast(new NewViewMessage(proof), activeValidators);
     }
 
     /**
@@ -421,9 +434,15 @@ public class SemuxBft implements BftManager {
             block.setView(view);
             block.setVotes(votes);
 
-            // [2] add the block to chain
+            // [2] add the block to chain, reusing the state from proposal validation
             logger.info(block.toString());
-            chain.importBlock(block, false);
+            Pair<AccountState, DelegateState> states = validStates.getIfPresent(ByteArray.of(blockHash.get()));
+            validStates.invalidateAll();
+            if (states != null) {
+                chain.importBlock(block, states.getLeft(), states.getRight());
+            } else {
+                chain.importBlock(block, false);
+            }
         } else {
             sync(height + 1);
         }
@@ -630,12 +649,7 @@ public class SemuxBft implements BftManager {
             Proposal p = m.getProposal();
 
             if (p.getHeight() == height) {
-                if (p.validate()) {
-                    events.add(new Event(Type.PROPOSAL, m.getProposal()));
-                } else {
-                    logger.debug("Invalid proposal from {}", channel.getRemotePeer().getPeerId());
-                    channel.getMessageQueue().disconnect(ReasonCode.BAD_PEER);
-                }
+                verifier.verify(channel, p);
             }
             break;
         }
@@ -644,12 +658,7 @@ public class SemuxBft implements BftManager {
             Vote vote = m.getVote();
 
             if (vote.getHeight() == height) {
-                if (vote.revalidate()) {
-                    events.add(new Event(Type.VOTE, vote));
-                } else {
-                    logger.debug("Invalid vote from {}", channel.getRemotePeer().getPeerId());
-                    channel.getMessageQueue().disconnect(ReasonCode.BAD_PEER);
-                }
+                verifier.verify(channel, vote);
             }
             break;
         }
@@ -738,6 +747,27 @@ public class SemuxBft implements BftManager {
         events.clear();
     }
 
+    /**
+     * Sends a message to the given channels, compressing and framing it only once.
+     *
+     * @param msg
+     * @param channels
+     */
+    protected void broadcast(Message msg, List<Channel> channels) {
+        EncodedMessage encoded = EncodedMessage.of(config, msg);
+        if (encoded == null) {
+            return;
+        }
+
+        try {
+            for (Channel c : channels) {
+                c.getMessageQueue().sendMessage(encoded);
+            }
+        } finally {
+            encoded.release();
+        }
+    }
+
     /**
      * Create a block for BFT proposal.
      *
@@ -865,6 +895,7 @@ public class SemuxBft implements BftManager {
             logger.debug("Block validation: # txs = {}, time = {} ms", transactions.size(), t2 - t1);
 
             validBlocks.put(ByteArray.of(block.getHash()), block);
+            validStates.put(ByteArray.of(block.getHash()), Pair.of(asTrack, dsTrack));
             return true;
         } catch (Exception e) {
             logger.error("Unexpected exception during block proposal validation", e);
@@ -974,13 +1005,15 @@ public class SemuxBft implements BftManager {
                     // thread-safety via volatile
                     List<Channel> channels = activeValidators;
                     if (channels != null) {
+                        List<Channel> selected = new ArrayList<>();
                         int[] indices = ArrayUtil.permutation(channels.size());
                         for (int i = 0; i < indices.length && i < config.netRelayRedundancy(); i++) {
                             Channel c = channels.get(indices[i]);
                             if (c.isActive()) {
-                                c.getMessageQueue().sendMessage(msg);
+                                selected.add(c);
                             }
                         }
+                        SemuxBft.this.broadcast(msg, selected);
                     }
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
@@ -1016,6 +1049,136 @@ public class SemuxBft implements BftManager {
         }
     }
 
+    /**
+     * Verifies the signatures of incoming proposals and votes off the network
+     * threads, and adds the valid ones to the event queue. Queued votes are
+     * drained by a single task, in batches which are verified at once if
+     * supported, and a vote relayed by several peers is verified only once, see
+     * {@link SignatureCache}. Proposals have their own thread and are never
+     * dropped.
+     */
+    public class Verifier {
+        private static final int MAX_QUEUED_VOTES = 16 * 1024;
+        private static final int MAX_QUEUED_PROPOSALS = 64;
+        private static final int BATCH_SIZE = 64;
+
+        private final BlockingQueue<Pair<Channel, Vote>> votes = new LinkedBlockingQueue<>(MAX_QUEUED_VOTES);
+
+        // whether a task is draining the vote queue
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+
+        private volatile ExecutorService voteExec;
+        private volatile ExecutorService proposalExec;
+
+        public synchronized void start() {
+            if (voteExec == null) {
+                voteExec = Executors.newSingleThreadExecutor(r -> new Thread(r, "bft-verifier-votes"));
+
+                // a proposal is verified by the caller if its thread is behind
+                proposalExec = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(MAX_QUEUED_PROPOSALS),
+                        r -> new Thread(r, "bft-verifier-proposals"),
+                        new ThreadPoolExecutor.CallerRunsPolicy());
+            }
+        }
+
+        public synchronized void stop() {
+            if (voteExec != null) {
+                voteExec.shutdownNow();
+                proposalExec.shutdownNow();
+                voteExec = null;
+                proposalExec = null;
+            }
+            votes.clear();
+            draining.set(false);
+        }
+
+        public void verify(Channel channel, Proposal proposal) {
+            boolean submitted = execute(proposalExec, () -> {
+                if (proposal.validate()) {
+                    events.add(new Event(Type.PROPOSAL, proposal));
+                } else {
+                    onInvalid(channel, "proposal");
+                }
+            });
+            if (!submitted) {
+                logger.debug("Verifier is stopped, dropping proposal from {}", channel.getRemotePeer().getPeerId());
+            }
+        }
+
+        public void verify(Channel channel, Vote vote) {
+            if (!votes.offer(Pair.of(channel, vote))) {
+                logger.warn("Vote verification queue is full, dropping vote from {}",
+                        channel.getRemotePeer().getPeerId());
+                return;
+            }
+
+            if (draining.compareAndSet(false, true) && !execute(voteExec, this::drainVotes)) {
+                draining.set(false);
+                logger.debug("Verifier is stopped, dropping vote from {}", channel.getRemotePeer().getPeerId());
+            }
+        }
+
+        private boolean execute(ExecutorService exec, Runnable task) {
+            if (exec == null) {
+                return false;
+            }
+
+            try {
+                exec.execute(task);
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Verifies the queued votes until the queue is empty, including those
+         * queued while it runs.
+         */
+        private void drainVotes() {
+            do {
+                while (!votes.isEmpty() && !Thread.currentThread().isInterrupted()) {
+                    verifyVotes();
+                }
+                draining.set(false);
+            } while (!votes.isEmpty() && !Thread.currentThread().isInterrupted()
+                    && draining.compareAndSet(false, true));
+        }
+
+        private void verifyVotes() {
+            List<Pair<Channel, Vote>> batch = new ArrayList<>();
+            votes.drainTo(batch, BATCH_SIZE);
+
+            // verify the signatures in one batch; votes of a failed batch are checked
+            // one by one below, and the valid ones are found in the cache
+            List<byte[]> messages = new ArrayList<>();
+            List<Signature> signatures = new ArrayList<>();
+            for (Pair<Channel, Vote> p : batch) {
+                Vote vote = p.getRight();
+                if (vote.getEncoded() != null && vote.getSignature() != null) {
+                    messages.add(vote.getEncoded());
+                    signatures.add(vote.getSignature());
+                }
+            }
+            SignatureCache.verifyAll(messages, signatures);
+
+            for (Pair<Channel, Vote> p : batch) {
+                Vote vote = p.getRight();
+                if (vote.revalidate()) {
+                    events.add(new Event(Type.VOTE, vote));
+                } else {
+                    onInvalid(p.getLeft(), "vote");
+                }
+            }
+        }
+
+        private void onInvalid(Channel channel, String what) {
+            logger.debug("Invalid {} from {}", what, channel.getRemotePeer().getPeerId());
+            channel.getMessageQueue().disconnect(ReasonCode.BAD_PEER);
+        }
+    }
+
     public static class Event {
         public enum Type {
             /**
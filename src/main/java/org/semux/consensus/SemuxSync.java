@@ -24,7 +24,12 @@ import java.util.Random;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
@@ -64,6 +69,11 @@ import org.slf4j.LoggerFactory;
  * synchronized and need to be executed by one single thread at anytime.
  * <p>
  * The download/unfinished/pending queues are protected by lock.
+ * <p>
+ * Block import is pipelined: the stateless part of block validation
+ * (transaction signatures and the transactions root) runs on a worker pool for
+ * the next {@link #PRE_VALIDATION_LOOKAHEAD} received blocks, ahead of the
+ * single-threaded execution and commit in {@link #process()}.
  */
 public class SemuxSync implements SyncManager {
 
@@ -81,6 +91,8 @@ public class SemuxSync implements SyncManager {
     private static final ScheduledExecutorService timer1 = Executors.newSingleThreadScheduledExecutor(factory);
     private static final ScheduledExecutorService timer2 = Executors.newSingleThreadScheduledExecutor(factory);
 
+    private static final int PRE_VALIDATION_LOOKAHEAD = 4 * Runtime.getRuntime().availableProcessors();
+
     private final long DOWNLOAD_TIMEOUT;
 
     private final int MAX_QUEUED_JOBS;
@@ -110,6 +122,12 @@ public class SemuxSync implements SyncManager {
     // Blocks which were validated but haven't been imported
     private TreeMap<Long, Pair<Block, Channel>> toImport = new TreeMap<>();
 
+    // Blocks whose stateless validation has been submitted to the worker pool
+    private Map<Block, Future<?>> preValidating = new HashMap<>();
+
+    // The worker pool of the stateless validation, while syncing
+    private volatile ExecutorService validators;
+
     private final Object lock = new Object();
 
     // current and target heights
@@ -141,6 +159,7 @@ public class SemuxSync implements SyncManager {
             beginningInstant = Instant.now();
 
             badPeers.clear();
+            validators = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), factory);
 
             logger.info("Syncing started, best known block = {}", targetHeight - 1);
 
@@ -150,6 +169,7 @@ public class SemuxSync implements SyncManager {
                 toReceive.clear();
                 toValidate.clear();
                 toImport.clear();
+                preValidating.clear();
 
                 begin.set(chain.getLatestBlockNumber() + 1);
                 current.set(chain.getLatestBlockNumber() + 1);
@@ -179,6 +199,7 @@ public class SemuxSync implements SyncManager {
             // [4] cancel tasks
             download.cancel(true);
             process.cancel(false);
+            validators.shutdown();
 
             Instant end = Instant.now();
             logger.info("Syncing finished, took {}", TimeUtil.formatDuration(Duration.between(beginningInstant, end)));
@@ -188,6 +209,9 @@ public class SemuxSync implements SyncManager {
     @Override
     public void stop() {
         if (isRunning.compareAndSet(true, false)) {
+            // pending validations still complete, so that no import waits forever
+            validators.shutdown();
+
             synchronized (isRunning) {
                 isRunning.notifyAll();
             }
@@ -411,6 +435,9 @@ public class SemuxSync implements SyncManager {
         }
 
         synchronized (lock) {
+            // Start the stateless validation of upcoming blocks
+            preValidate(latest);
+
             // Move blocks from validate queue to import queue if within range
             Iterator<Pair<Block, Channel>> iterator = toValidate.iterator();
             while (iterator.hasNext()) {
@@ -434,12 +461,16 @@ public class SemuxSync implements SyncManager {
                 if (valid) {
                     for (long n = latest + 1; n <= checkpoint; n++) {
                         Pair<Block, Channel> p = toImport.remove(n);
+                        awaitPreValidation(p.getKey());
                         boolean imported = chain.importBlock(p.getKey(), false);
                         if (!imported) {
                             handleInvalidBlock(p.getKey(), p.getValue());
                             break;
                         }
 
+                        // keep the lookahead full while the span is imported
+                        preValidate(n);
+
                         if (n == checkpoint) {
                             logger.info("{}", p.getLeft());
                         }
@@ -450,6 +481,70 @@ public class SemuxSync implements SyncManager {
         }
     }
 
+    /**
+     * Submits the stateless validation of the next received blocks to the worker
+     * pool, up to {@link #PRE_VALIDATION_LOOKAHEAD} blocks ahead of the latest
+     * block, whether they are queued for import or still to be validated. The
+     * outcome is remembered by each block and picked up on import.
+     *
+     * @param latest
+     *            the latest block number
+     */
+    protected void preValidate(long latest) {
+        synchronized (lock) {
+            preValidating.keySet().removeIf(b -> b.getNumber() <= latest);
+
+            long last = latest + PRE_VALIDATION_LOOKAHEAD;
+            for (Pair<Block, Channel> p : toImport.subMap(latest, false, last, true).values()) {
+                submitPreValidation(p.getKey());
+            }
+            for (Pair<Block, Channel> p : toValidate) {
+                Block block = p.getKey();
+                if (block.getNumber() > last) {
+                    break;
+                }
+                if (block.getNumber() > latest) {
+                    submitPreValidation(block);
+                }
+            }
+        }
+    }
+
+    private void submitPreValidation(Block block) {
+        ExecutorService pool = validators;
+        if (pool == null || preValidating.containsKey(block)) {
+            return;
+        }
+
+        try {
+            preValidating.put(block, pool.submit(
+                    () -> block.validateTransactions(block.getHeader(), block.getTransactions(), config.network())));
+        } catch (RejectedExecutionException e) {
+            // stopping; the block will be validated on import
+        }
+    }
+
+    /**
+     * Waits for the stateless validation of a block, if it has been submitted.
+     *
+     * @param block
+     */
+    protected void awaitPreValidation(Block block) {
+        Future<?> f = preValidating.remove(block);
+        if (f == null) {
+            return;
+        }
+
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (CancellationException | ExecutionException e) {
+            // the block will be validated again on import
+            logger.debug("Failed to pre-validate block #{}", block.getNumber(), e);
+        }
+    }
+
     /**
      * Validate block hashes in the toImport set.
      *
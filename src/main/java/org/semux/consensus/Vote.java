@@ -8,6 +8,7 @@ package org.semux.consensus;
 
 import org.semux.crypto.Key;
 import org.semux.crypto.Key.Signature;
+import org.semux.crypto.cache.SignatureCache;
 import org.semux.util.Bytes;
 import org.semux.util.SimpleDecoder;
 import org.semux.util.SimpleEncoder;
@@ -91,7 +92,7 @@ public class Vote {
                 && view >= 0
                 && blockHash != null && blockHash.length == 32
                 && encoded != null
-                && signature != null && Key.verify(encoded, signature)));
+                && signature != null && SignatureCache.verify(encoded, signature)));
     }
 
     /**
@@ -19,8 +19,8 @@ import org.semux.Network;
 import org.semux.config.Config;
 import org.semux.config.Constants;
 import org.semux.crypto.Hex;
-import org.semux.crypto.Key;
 import org.semux.crypto.Key.Signature;
+import org.semux.crypto.cache.SignatureCache;
 import org.semux.util.MerkleUtil;
 import org.semux.util.SimpleDecoder;
 import org.semux.util.SimpleEncoder;
@@ -59,6 +59,12 @@ public class Block {
     // Auxiliary data
     // =========================
 
+    /**
+     * The network for which the transactions of this block have been
+     * successfully validated, or null if not validated yet.
+     */
+    private volatile Network transactionsValidatedFor;
+
     /**
      * Create a new block.
      *
@@ -154,7 +160,18 @@ public class Block {
      * @return
      */
     public boolean validateTransactions(BlockHeader header, List<Transaction> transactions, Network network) {
-        return validateTransactions(header, transactions, transactions, network);
+        // a successful validation of this block's own transactions is remembered, so
+        // that it can be done ahead of import, e.g. by the sync pipeline
+        boolean own = header == this.header && transactions == this.transactions;
+        if (own && network == transactionsValidatedFor) {
+            return true;
+        }
+
+        boolean valid = validateTransactions(header, transactions, transactions, network);
+        if (own && valid) {
+            transactionsValidatedFor = network;
+        }
+        return valid;
     }
 
     /**
@@ -174,21 +191,15 @@ public class Block {
     public boolean validateTransactions(BlockHeader header, Collection<Transaction> unvalidatedTransactions,
             List<Transaction> allTransactions, Network network) {
 
-        // validate transactions
-        if (!Key.isVerifyBatchSupported() || unvalidatedTransactions.size() < 3) {
-            if (!unvalidatedTransactions.parallelStream().allMatch(tx -> tx.validate(network))) {
-                return false;
-            }
-        } else {
-            if (!unvalidatedTransactions.parallelStream().allMatch(tx -> tx.validate(network, false))) {
-                return false;
-            }
+        // validate transactions, skipping the signatures verified before
+        if (!unvalidatedTransactions.parallelStream().allMatch(tx -> tx.validate(network, false))) {
+            return false;
+        }
 
-            if (!Key.verifyBatch(
-                    unvalidatedTransactions.stream().map(Transaction::getHash).collect(Collectors.toList()),
-                    unvalidatedTransactions.stream().map(Transaction::getSignature).collect(Collectors.toList()))) {
-                return false;
-            }
+        if (!SignatureCache.verifyAll(
+                unvalidatedTransactions.stream().map(Transaction::getHash).collect(Collectors.toList()),
+                unvalidatedTransactions.stream().map(Transaction::getSignature).collect(Collectors.toList()))) {
+            return false;
         }
 
         // validate transactions root
@@ -503,11 +514,29 @@ public class Block {
     }
 
     public byte[] toBytes() {
+        return encode(getEncodedHeader(), getEncodedTransactions(), getEncodedResults(), getEncodedVotes());
+    }
+
+    /**
+     * Encodes a block from its encoded components, the inverse of
+     * {@link #fromBytes(byte[])}.
+     *
+     * @param h
+     *            encoded header
+     * @param t
+     *            encoded transactions
+     * @param r
+     *            encoded results
+     * @param v
+     *            encoded votes
+     * @return
+     */
+    public static byte[] encode(byte[] h, byte[] t, byte[] r, byte[] v) {
         SimpleEncoder enc = new SimpleEncoder();
-        enc.writeBytes(getEncodedHeader());
-        enc.writeBytes(getEncodedTransactions());
-        enc.writeBytes(getEncodedResults());
-        enc.writeBytes(getEncodedVotes());
+        enc.writeBytes(h);
+        enc.writeBytes(t);
+        enc.writeBytes(r);
+        enc.writeBytes(v);
 
         return enc.toBytes();
     }
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core;
+
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * A cache of decoded blocks and block headers, by block number.
+ * <p>
+ * The most recent blocks, which consensus, sync and the API keep asking for,
+ * are pinned until they fall out of a window behind the latest block. Older
+ * blocks are kept in a cache bounded by their encoded size, and older headers
+ * in a cache bounded by their number; both evict by recency and frequency of
+ * use.
+ * <p>
+ * Cached blocks are shared, and must not be modified once added.
+ */
+class BlockCache {
+
+    /**
+     * The number of most recent blocks that are never evicted.
+     */
+    static final int PINNED_BLOCKS = 32;
+
+    /**
+     * Estimated per-entry overhead of the block cache, in bytes.
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final NavigableMap<Long, Block> recent = new ConcurrentSkipListMap<>();
+    private final Cache<Long, Block> blocks;
+    private final Cache<Long, BlockHeader> headers;
+
+    // hits on the pinned blocks, and on the cached blocks for a header
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Creates a block cache.
+     *
+     * @param maxBlockBytes
+     *            the max encoded size of the older blocks, in bytes
+     * @param maxHeaders
+     *            the max number of older block headers
+     */
+    BlockCache(long maxBlockBytes, long maxHeaders) {
+        this.blocks = Caffeine.newBuilder()
+                .maximumWeight(maxBlockBytes)
+                .weigher((Long k, Block v) -> ENTRY_OVERHEAD + v.size())
+                .recordStats()
+                .build();
+        this.headers = Caffeine.newBuilder().maximumSize(maxHeaders).recordStats().build();
+    }
+
+    /**
+     * Returns a block, loading it on a miss.
+     *
+     * @param number
+     * @param loader
+     *            reads the block from the database, or returns null if it
+     *            doesn't exist
+     * @return
+     */
+    Block getBlock(long number, LongFunction<Block> loader) {
+        Block block = recent.get(number);
+        if (block != null) {
+            hits.incrementAndGet();
+            return block;
+        }
+
+        return blocks.get(number, loader::apply);
+    }
+
+    /**
+     * Returns a block header, loading it on a miss.
+     *
+     * @param number
+     * @param loader
+     *            reads the header from the database, or returns null if it
+     *            doesn't exist
+     * @return
+     */
+    BlockHeader getHeader(long number, LongFunction<BlockHeader> loader) {
+        Block block = recent.get(number);
+        if (block == null) {
+            block = blocks.asMap().get(number);
+        }
+        if (block != null) {
+            hits.incrementAndGet();
+            return block.getHeader();
+        }
+
+        return headers.get(number, loader::apply);
+    }
+
+    /**
+     * Adds a new block, pinning it and unpinning the blocks which fall out of the
+     * window.
+     *
+     * @param block
+     */
+    void add(Block block) {
+        blocks.invalidate(block.getNumber());
+        headers.invalidate(block.getNumber());
+        recent.put(block.getNumber(), block);
+
+        NavigableMap<Long, Block> unpinned = recent.headMap(block.getNumber() - PINNED_BLOCKS, true);
+        for (Block b : unpinned.values()) {
+            blocks.put(b.getNumber(), b);
+        }
+        unpinned.clear();
+    }
+
+    /**
+     * Drops all cached blocks and headers.
+     */
+    void invalidateAll() {
+        recent.clear();
+        blocks.invalidateAll();
+        headers.invalidateAll();
+    }
+
+    /**
+     * Returns the hit/miss statistics of the block and header lookups.
+     *
+     * @return
+     */
+    CacheStats stats() {
+        return blocks.stats().plus(headers.stats())
+                .plus(new CacheStats(hits.get(), 0, 0, 0, 0, 0, 0));
+    }
+}
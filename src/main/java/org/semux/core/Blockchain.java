@@ -12,6 +12,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.semux.core.BlockchainImpl.ValidatorStats;
 import org.semux.core.state.AccountState;
 import org.semux.core.state.DelegateState;
+import org.semux.util.ClosableIterator;
 import org.semux.vm.client.SemuxInternalTransaction;
 
 public interface Blockchain {
@@ -84,6 +85,19 @@ public interface Blockchain {
      */
     BlockHeader getBlockHeader(byte[] hash);
 
+    /**
+     * Returns the encoded parts of a block, exactly as stored, without decoding
+     * them.
+     *
+     * @param number
+     *            block number
+     * @param parts
+     *            the requested parts, see {@link BlockPart#encode(BlockPart...)}
+     * @return the encoded parts, in the order of {@link BlockPart#decode(int)},
+     *         or null if the block does not exist
+     */
+    List<byte[]> getBlockParts(long number, int parts);
+
     /**
      * Returns whether the block is existing.
      *
@@ -156,6 +170,42 @@ public interface Blockchain {
      */
     List<Transaction> getTransactions(byte[] address, int from, int to);
 
+    /**
+     * Iterates over the transactions from/to an address, in index order. The
+     * account index is scanned sequentially, and the transactions of one block
+     * are read together, which makes it suitable for paging through long
+     * histories.
+     *
+     * @param address
+     *            account address
+     * @param from
+     *            the index of the first transaction
+     * @return an iterator, which must be closed after use
+     */
+    ClosableIterator<Transaction> getTransactionIterator(byte[] address, int from);
+
+    /**
+     * Returns the logs emitted by contracts in a block range, which match an
+     * address and topics. Blocks without matching logs are skipped by the log
+     * index, without decoding their results.
+     * <p>
+     * The scan stops at the end of the block in which the limit is reached, so
+     * that the query can be resumed from the next block.
+     *
+     * @param fromBlock
+     *            the first block, inclusive
+     * @param toBlock
+     *            the last block, inclusive
+     * @param address
+     *            the contract address, or null for any
+     * @param topics
+     *            the topics by position, where null matches any
+     * @param limit
+     *            the number of logs after which the scan stops
+     * @return
+     */
+    List<ContractLog> getLogs(long fromBlock, long toBlock, byte[] address, List<byte[]> topics, int limit);
+
     /**
      * Returns the total number of internal transactions from/to the given address.
      *
@@ -260,6 +310,23 @@ public interface Blockchain {
      */
     boolean importBlock(Block block, boolean validateVotes);
 
+    /**
+     * Imports a new block which has been validated, and whose transactions have
+     * been executed on the given tracks of the current state, e.g. during BFT
+     * proposal validation. The tracks are committed without re-executing the
+     * transactions, if the block is still on top of the latest block; otherwise
+     * the block is fully validated.
+     *
+     * @param block
+     *            the block to import
+     * @param asTrack
+     *            the account state track the block was executed on
+     * @param dsTrack
+     *            the delegate state track the block was executed on
+     * @return true if the block is successfully imported; otherwise, false
+     */
+    boolean importBlock(Block block, AccountState asTrack, DelegateState dsTrack);
+
     /**
      * Validate the block votes only.
      *
@@ -18,15 +18,19 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
@@ -44,24 +48,33 @@ import org.semux.core.state.AccountStateImpl;
 import org.semux.core.state.Delegate;
 import org.semux.core.state.DelegateState;
 import org.semux.core.state.DelegateStateImpl;
+import org.semux.crypto.Hash;
 import org.semux.crypto.Hex;
-import org.semux.crypto.Key;
+import org.semux.crypto.cache.SignatureCache;
+import org.semux.db.CachedDatabase;
 import org.semux.db.Database;
 import org.semux.db.DatabaseFactory;
 import org.semux.db.DatabaseName;
 import org.semux.db.LeveldbDatabase;
+import org.semux.db.StagingDatabase;
+import org.semux.db.WriteBuffer;
 import org.semux.event.PubSubFactory;
+import org.semux.util.BloomFilter;
 import org.semux.util.ByteArray;
 import org.semux.util.Bytes;
+import org.semux.util.ClosableIterator;
 import org.semux.util.SimpleDecoder;
 import org.semux.util.SimpleEncoder;
 import org.semux.util.TimeUtil;
+import org.semux.util.exception.UnreachableException;
 import org.semux.vm.client.SemuxBlock;
 import org.semux.vm.client.SemuxBlockStore;
 import org.semux.vm.client.SemuxInternalTransaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
 /**
  * Blockchain implementation.
  *
@@ -77,6 +90,13 @@ import org.slf4j.LoggerFactory;
  * [5, address, n] => [transaction_hash]
  * [7] => [activated forks]
  *
+ * [9, block_number] => [log_bloom, transaction_indices] // see LogIndex
+ * [10, range_number] => [log_bloom]
+ * [11, address, block_number] => [transaction_indices]
+ * [12, topic, block_number] => [transaction_indices]
+ *
+ * [13] => [next_block_number] // while the indices are being rebuilt
+ * [14] => [block_number, previous_state] // while a block is being committed
  * [0xff] => [database version]
  * </pre>
  *
@@ -84,16 +104,32 @@ import org.slf4j.LoggerFactory;
  * block DB structure:
  *
  * [0, block_number] => [block_header]
- * [1, block_number] => [block_transactions]
- * [2, block_number] => [block_results]
+ * [1, block_number] => [block_transactions] // before version 4
+ * [2, block_number] => [block_results] // before version 4
  * [3, block_number] => [block_votes]
+ * [4, block_number, i] => [transaction]
+ * [5, block_number, i] => [transaction_result]
  * </pre>
  */
 public class BlockchainImpl implements Blockchain {
 
     private static final Logger logger = LoggerFactory.getLogger(BlockchainImpl.class);
 
-    protected static final int DATABASE_VERSION = 3;
+    protected static final int DATABASE_VERSION = 4;
+
+    /**
+     * The first version that stores blocks in the current layout. Databases of
+     * this version or later are upgraded by rebuilding the indices only, see
+     * {@link IndexUpgrade}.
+     */
+    protected static final int BLOCK_LAYOUT_VERSION = 4;
+
+    private static final double TRANSACTION_FILTER_FPP = 0.01;
+
+    /**
+     * The number of blocks between two reports of the block cache statistics.
+     */
+    private static final int BLOCK_CACHE_STATS_INTERVAL = 100;
 
     protected static final byte TYPE_LATEST_BLOCK_NUMBER = 0x00;
     protected static final byte TYPE_VALIDATORS = 0x01;
@@ -106,12 +142,20 @@ public class BlockchainImpl implements Blockchain {
     protected static final byte TYPE_ACTIVATED_FORKS = 0x06;
     protected static final byte TYPE_INTERNAL_TRANSACTION_COUNT_BY_ADDRESS = 0x07;
     protected static final byte TYPE_INTERNAL_TRANSACTION_BY_ADDRESS_AND_INDEX = 0x08;
+    protected static final byte TYPE_LOG_BLOOM_BY_NUMBER = 0x09;
+    protected static final byte TYPE_LOG_BLOOM_BY_RANGE = 0x0a;
+    protected static final byte TYPE_LOG_BLOCKS_BY_ADDRESS = 0x0b;
+    protected static final byte TYPE_LOG_BLOCKS_BY_TOPIC = 0x0c;
+    protected static final byte TYPE_INDEX_UPGRADE_CHECKPOINT = 0x0d;
+    protected static final byte TYPE_COMMITTING_BLOCK = 0x0e;
     protected static final byte TYPE_DATABASE_VERSION = (byte) 0xff;
 
     protected static final byte TYPE_BLOCK_HEADER_BY_NUMBER = 0x00;
     protected static final byte TYPE_BLOCK_TRANSACTIONS_BY_NUMBER = 0x01;
     protected static final byte TYPE_BLOCK_RESULTS_BY_NUMBER = 0x02;
     protected static final byte TYPE_BLOCK_VOTES_BY_NUMBER = 0x03;
+    protected static final byte TYPE_BLOCK_TRANSACTION_BY_NUMBER_AND_INDEX = 0x04;
+    protected static final byte TYPE_BLOCK_RESULT_BY_NUMBER_AND_INDEX = 0x05;
 
     private final BlockStore blockStore = new SemuxBlockStore(this);
     private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
@@ -127,6 +171,19 @@ public class BlockchainImpl implements Blockchain {
     private Database indexDB;
     private Database blockDB;
 
+    // the state databases, whose writes are staged while a block is committed
+    private StagingDatabase accountDB;
+    private StagingDatabase delegateDB;
+    private StagingDatabase voteDB;
+
+    // committed transaction hashes, for fast negative lookups; null if disabled
+    private BloomFilter transactionFilter;
+
+    private LogIndex logIndex;
+
+    // decoded blocks and headers
+    private BlockCache blockCache;
+
     private AccountState accountState;
     private DelegateState delegateState;
 
@@ -150,10 +207,33 @@ public class BlockchainImpl implements Blockchain {
 
         this.indexDB = dbFactory.getDB(DatabaseName.INDEX);
         this.blockDB = dbFactory.getDB(DatabaseName.BLOCK);
+        this.blockCache = new BlockCache(config.dbBlockCacheSize(), config.dbHeaderCacheSize());
+
+        // revert the state of a block whose commit was interrupted
+        revertInterruptedCommit(dbFactory);
+
+        // the state databases are fronted by a cache, which survives across blocks
+        long cacheSize = config.dbStateCacheSize();
+        this.accountDB = new StagingDatabase(cached(dbFactory.getDB(DatabaseName.ACCOUNT), cacheSize / 2));
+        this.delegateDB = new StagingDatabase(cached(dbFactory.getDB(DatabaseName.DELEGATE), cacheSize / 4));
+        this.voteDB = new StagingDatabase(cached(dbFactory.getDB(DatabaseName.VOTE), cacheSize / 4));
+        this.accountState = new AccountStateImpl(accountDB);
+        this.delegateState = new DelegateStateImpl(this, delegateDB, voteDB);
+
+        // rebuild the indices of an older version, or resume an interrupted rebuild
+        this.logIndex = new LogIndex(indexDB, blockDB);
+        if (IndexUpgrade.isNeeded(indexDB)) {
+            new IndexUpgrade(this, indexDB, Runtime.getRuntime().availableProcessors()).run();
+            blockCache.invalidateAll();
+        }
+
+        // index the logs of the stored blocks, if not yet
+        if (!logIndex.isBuilt()) {
+            logIndex.build();
+        }
 
-        this.accountState = new AccountStateImpl(dbFactory.getDB(DatabaseName.ACCOUNT));
-        this.delegateState = new DelegateStateImpl(this, dbFactory.getDB(DatabaseName.DELEGATE),
-                dbFactory.getDB(DatabaseName.VOTE));
+        // load the transaction filter before any block is added
+        this.transactionFilter = loadTransactionFilter(config.dbTransactionFilterSize());
 
         // checks if the database needs to be initialized
         byte[] number = indexDB.get(Bytes.of(TYPE_LATEST_BLOCK_NUMBER));
@@ -167,7 +247,141 @@ public class BlockchainImpl implements Blockchain {
         } else {
             // load the latest block
             latestBlock = getBlock(Bytes.toLong(number));
+            blockCache.add(latestBlock);
+        }
+    }
+
+    /**
+     * Wraps a database with a cache of the given size, if enabled.
+     *
+     * @param db
+     * @param cacheSize
+     *            the max size of the cache, in bytes
+     * @return
+     */
+    private static Database cached(Database db, long cacheSize) {
+        return cacheSize > 0 ? new CachedDatabase(db, cacheSize) : db;
+    }
+
+    /**
+     * Writes a synced marker of the block being committed, with the previous
+     * values of all the staged state updates, so that the state can be reverted
+     * if the block fails to be indexed.
+     *
+     * @param number
+     */
+    private void writeCommitMarker(long number) {
+        SimpleEncoder enc = new SimpleEncoder();
+        enc.writeLong(number);
+        for (StagingDatabase db : new StagingDatabase[] { accountDB, delegateDB, voteDB }) {
+            Map<ByteArray, byte[]> staged = db.getStaged();
+            enc.writeInt(staged.size());
+            for (ByteArray key : staged.keySet()) {
+                byte[] previous = db.getCommitted(key.getData());
+                enc.writeBytes(key.getData());
+                enc.writeBoolean(previous != null);
+                if (previous != null) {
+                    enc.writeBytes(previous);
+                }
+            }
         }
+
+        indexDB.updateBatchSync(Collections.singletonList(Pair.of(Bytes.of(TYPE_COMMITTING_BLOCK), enc.toBytes())));
+    }
+
+    /**
+     * Reverts the state updates and the block entries of a block whose commit
+     * was interrupted, as recorded by {@link #writeCommitMarker(long)}. The
+     * latest block number is written along with the removal of the marker, so a
+     * marker left behind means the block was never added.
+     *
+     * @param dbFactory
+     */
+    private void revertInterruptedCommit(DatabaseFactory dbFactory) {
+        byte[] marker = indexDB.get(Bytes.of(TYPE_COMMITTING_BLOCK));
+        if (marker == null) {
+            return;
+        }
+
+        SimpleDecoder dec = new SimpleDecoder(marker);
+        long number = dec.readLong();
+        logger.warn("The commit of block #{} was interrupted, reverting its state updates", number);
+
+        for (DatabaseName name : new DatabaseName[] { DatabaseName.ACCOUNT, DatabaseName.DELEGATE,
+                DatabaseName.VOTE }) {
+            int size = dec.readInt();
+            List<Pair<byte[], byte[]>> pairs = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                byte[] key = dec.readBytes();
+                pairs.add(Pair.of(key, dec.readBoolean() ? dec.readBytes() : null));
+            }
+            dbFactory.getDB(name).updateBatchSync(pairs);
+        }
+
+        // drop the entries of the block, which a later block of the same number
+        // may not overwrite
+        List<Pair<byte[], byte[]>> pairs = new ArrayList<>();
+        pairs.add(Pair.of(Bytes.merge(TYPE_BLOCK_HEADER_BY_NUMBER, Bytes.of(number)), null));
+        pairs.add(Pair.of(Bytes.merge(TYPE_BLOCK_VOTES_BY_NUMBER, Bytes.of(number)), null));
+        for (byte type : new byte[] { TYPE_BLOCK_TRANSACTION_BY_NUMBER_AND_INDEX,
+                TYPE_BLOCK_RESULT_BY_NUMBER_AND_INDEX }) {
+            byte[] prefix = Bytes.merge(type, Bytes.of(number));
+            ClosableIterator<Entry<byte[], byte[]>> itr = blockDB.iterator(prefix);
+            try {
+                while (itr.hasNext()) {
+                    byte[] key = itr.next().getKey();
+                    if (!Arrays.equals(prefix, Arrays.copyOf(key, Math.min(key.length, prefix.length)))) {
+                        break;
+                    }
+                    pairs.add(Pair.of(key, null));
+                }
+            } finally {
+                itr.close();
+            }
+        }
+        blockDB.updateBatchSync(pairs);
+
+        indexDB.updateBatchSync(Collections.singletonList(Pair.of(Bytes.of(TYPE_COMMITTING_BLOCK), null)));
+    }
+
+    /**
+     * Builds the filter of committed transaction hashes from the transaction
+     * index.
+     *
+     * @param expectedInsertions
+     * @return the filter, or null if disabled
+     */
+    private BloomFilter loadTransactionFilter(long expectedInsertions) {
+        if (expectedInsertions <= 0) {
+            return null;
+        }
+
+        long t1 = TimeUtil.currentTimeMillis();
+        BloomFilter filter = new BloomFilter(expectedInsertions, TRANSACTION_FILTER_FPP);
+        long count = 0;
+        ClosableIterator<Entry<byte[], byte[]>> itr = indexDB.iterator(Bytes.of(TYPE_TRANSACTION_INDEX_BY_HASH));
+        try {
+            while (itr.hasNext()) {
+                byte[] key = itr.next().getKey();
+                if (key[0] != TYPE_TRANSACTION_INDEX_BY_HASH) {
+                    break;
+                }
+                if (key.length == 1 + Hash.HASH_LEN) {
+                    filter.put(Arrays.copyOfRange(key, 1, key.length));
+                    count++;
+                }
+            }
+        } finally {
+            itr.close();
+        }
+        long t2 = TimeUtil.currentTimeMillis();
+        logger.info("Loaded transaction filter: # txs = {}, size = {} KB, time = {} ms", count,
+                filter.bitSize() / 8 / 1024, t2 - t1);
+        if (count > expectedInsertions) {
+            logger.warn("The transaction filter is over capacity, consider increasing db.transactionFilterSize");
+        }
+
+        return filter;
     }
 
     private void initializeDb() {
@@ -223,7 +437,37 @@ public class BlockchainImpl implements Blockchain {
 
     @Override
     public Block getBlock(long number) {
-        return getBlock(blockDB, number, false);
+        return blockCache.getBlock(number, this::loadBlock);
+    }
+
+    /**
+     * Reads a block from the database, bypassing the block cache.
+     *
+     * @param number
+     * @return the block, or null if it doesn't exist
+     */
+    protected Block loadBlock(long number) {
+        return getStoredBlock(blockDB, number);
+    }
+
+    /**
+     * Reads a block from a database of {@link #BLOCK_LAYOUT_VERSION} or later.
+     *
+     * @param blockDB
+     * @param number
+     * @return the block, or null if it doesn't exist
+     */
+    private static Block getStoredBlock(Database blockDB, long number) {
+        byte[] header = blockDB.get(Bytes.merge(TYPE_BLOCK_HEADER_BY_NUMBER, Bytes.of(number)));
+        if (header == null) {
+            return null;
+        }
+
+        byte[] transactions = getEncodedBlockEntries(blockDB, TYPE_BLOCK_TRANSACTION_BY_NUMBER_AND_INDEX, number);
+        byte[] results = getEncodedBlockEntries(blockDB, TYPE_BLOCK_RESULT_BY_NUMBER_AND_INDEX, number);
+        byte[] votes = blockDB.get(Bytes.merge(TYPE_BLOCK_VOTES_BY_NUMBER, Bytes.of(number)));
+
+        return Block.fromComponents(header, transactions, results, votes);
     }
 
     @Override
@@ -234,8 +478,19 @@ public class BlockchainImpl implements Blockchain {
 
     @Override
     public BlockHeader getBlockHeader(long number) {
-        byte[] header = blockDB.get(Bytes.merge(TYPE_BLOCK_HEADER_BY_NUMBER, Bytes.of(number)));
-        return (header == null) ? null : BlockHeader.fromBytes(header);
+        return blockCache.getHeader(number, n -> {
+            byte[] header = blockDB.get(Bytes.merge(TYPE_BLOCK_HEADER_BY_NUMBER, Bytes.of(n)));
+            return (header == null) ? null : BlockHeader.fromBytes(header);
+        });
+    }
+
+    /**
+     * Returns the hit/miss statistics of the decoded block and header cache.
+     *
+     * @return
+     */
+    public CacheStats getBlockCacheStats() {
+        return blockCache.stats();
     }
 
     @Override
@@ -244,36 +499,110 @@ public class BlockchainImpl implements Blockchain {
         return (number == -1) ? null : getBlockHeader(number);
     }
 
+    @Override
+    public List<byte[]> getBlockParts(long number, int parts) {
+        if (!hasBlock(number)) {
+            return null;
+        }
+
+        List<byte[]> list = new ArrayList<>();
+        for (BlockPart part : BlockPart.decode(parts)) {
+            switch (part) {
+            case HEADER:
+                list.add(blockDB.get(Bytes.merge(TYPE_BLOCK_HEADER_BY_NUMBER, Bytes.of(number))));
+                break;
+            case TRANSACTIONS:
+                list.add(getEncodedBlockEntries(blockDB, TYPE_BLOCK_TRANSACTION_BY_NUMBER_AND_INDEX, number));
+                break;
+            case RESULTS:
+                list.add(getEncodedBlockEntries(blockDB, TYPE_BLOCK_RESULT_BY_NUMBER_AND_INDEX, number));
+                break;
+            case VOTES:
+                list.add(blockDB.get(Bytes.merge(TYPE_BLOCK_VOTES_BY_NUMBER, Bytes.of(number))));
+                break;
+            default:
+                throw new UnreachableException();
+            }
+        }
+
+        return list;
+    }
+
     @Override
     public boolean hasBlock(long number) {
         return blockDB.get(Bytes.merge(TYPE_BLOCK_HEADER_BY_NUMBER, Bytes.of(number))) != null;
     }
 
+    /**
+     * Returns the key of the i-th transaction or result of a block.
+     *
+     * @param type
+     * @param number
+     * @param i
+     * @return
+     */
+    protected static byte[] getBlockEntryKey(byte type, long number, int i) {
+        return Bytes.merge(Bytes.of(type), Bytes.of(number), Bytes.of(i));
+    }
+
+    /**
+     * Assembles the transactions or results of a block from their individual
+     * records, in the format of {@link Block#getEncodedTransactions()}. The
+     * records are copied as they are, without decoding.
+     *
+     * @param blockDB
+     * @param type
+     * @param number
+     * @return
+     */
+    protected static byte[] getEncodedBlockEntries(Database blockDB, byte type, long number) {
+        byte[] prefix = Bytes.merge(type, Bytes.of(number));
+
+        List<byte[]> entries = new ArrayList<>();
+        ClosableIterator<Entry<byte[], byte[]>> itr = blockDB.iterator(prefix);
+        while (itr.hasNext()) {
+            Entry<byte[], byte[]> e = itr.next();
+            if (e.getKey().length != prefix.length + 4
+                    || !Arrays.equals(prefix, Arrays.copyOf(e.getKey(), prefix.length))) {
+                break;
+            }
+            entries.add(e.getValue());
+        }
+        itr.close();
+
+        SimpleEncoder enc = new SimpleEncoder();
+        enc.writeInt(entries.size());
+        for (byte[] entry : entries) {
+            enc.writeBytes(entry);
+        }
+        return enc.toBytes();
+    }
+
     private static class TransactionIndex {
         long blockNumber;
-        int transactionOffset;
-        int resultOffset;
+        int transactionPosition;
+        int resultPosition;
 
-        public TransactionIndex(long blockNumber, int transactionOffset, int resultOffset) {
+        public TransactionIndex(long blockNumber, int transactionPosition, int resultPosition) {
             this.blockNumber = blockNumber;
-            this.transactionOffset = transactionOffset;
-            this.resultOffset = resultOffset;
+            this.transactionPosition = transactionPosition;
+            this.resultPosition = resultPosition;
         }
 
         public byte[] toBytes() {
             SimpleEncoder enc = new SimpleEncoder();
             enc.writeLong(blockNumber);
-            enc.writeInt(transactionOffset);
-            enc.writeInt(resultOffset);
+            enc.writeInt(transactionPosition);
+            enc.writeInt(resultPosition);
             return enc.toBytes();
         }
 
         public static TransactionIndex fromBytes(byte[] bytes) {
             SimpleDecoder dec = new SimpleDecoder(bytes);
             long number = dec.readLong();
-            int transactionOffset = dec.readInt();
-            int resultOffset = dec.readInt();
-            return new TransactionIndex(number, transactionOffset, resultOffset);
+            int transactionPosition = dec.readInt();
+            int resultPosition = dec.readInt();
+            return new TransactionIndex(number, transactionPosition, resultPosition);
         }
     }
 
@@ -287,10 +616,9 @@ public class BlockchainImpl implements Blockchain {
             }
 
             TransactionIndex index = TransactionIndex.fromBytes(bytes);
-            byte[] transactions = blockDB
-                    .get(Bytes.merge(TYPE_BLOCK_TRANSACTIONS_BY_NUMBER, Bytes.of(index.blockNumber)));
-            SimpleDecoder dec = new SimpleDecoder(transactions, index.transactionOffset);
-            return Transaction.fromBytes(dec.readBytes());
+            byte[] transaction = blockDB.get(getBlockEntryKey(TYPE_BLOCK_TRANSACTION_BY_NUMBER_AND_INDEX,
+                    index.blockNumber, index.transactionPosition));
+            return Transaction.fromBytes(transaction);
         }
 
         return null;
@@ -305,6 +633,9 @@ public class BlockchainImpl implements Blockchain {
 
     @Override
     public boolean hasTransaction(final byte[] hash) {
+        if (transactionFilter != null && hash.length == Hash.HASH_LEN && !transactionFilter.mightContain(hash)) {
+            return false;
+        }
         return indexDB.get(Bytes.merge(TYPE_TRANSACTION_INDEX_BY_HASH, hash)) != null;
     }
 
@@ -318,9 +649,9 @@ public class BlockchainImpl implements Blockchain {
             }
 
             TransactionIndex index = TransactionIndex.fromBytes(bytes);
-            byte[] results = blockDB.get(Bytes.merge(TYPE_BLOCK_RESULTS_BY_NUMBER, Bytes.of(index.blockNumber)));
-            SimpleDecoder dec = new SimpleDecoder(results, index.resultOffset);
-            return TransactionResult.fromBytes(dec.readBytes());
+            byte[] result = blockDB.get(getBlockEntryKey(TYPE_BLOCK_RESULT_BY_NUMBER_AND_INDEX,
+                    index.blockNumber, index.resultPosition));
+            return TransactionResult.fromBytes(result);
         }
 
         return null;
@@ -345,91 +676,157 @@ public class BlockchainImpl implements Blockchain {
     @Override
     public synchronized void addBlock(Block block) {
         long number = block.getNumber();
-        byte[] hash = block.getHash();
 
         if (number != genesis.getNumber() && number != latestBlock.getNumber() + 1) {
             logger.error("Adding wrong block: number = {}, expected = {}", number, latestBlock.getNumber() + 1);
             throw new BlockchainException("Blocks can only be added sequentially");
         }
 
+        // all writes of this block are staged and flushed in batches; the index
+        // batch, which carries the latest block number, is always written last.
+        WriteBuffer blockBatch = new WriteBuffer(blockDB);
+        WriteBuffer indexBatch = new WriteBuffer(indexDB);
+
         // [1] update block
-        blockDB.put(Bytes.merge(TYPE_BLOCK_HEADER_BY_NUMBER, Bytes.of(number)), block.getEncodedHeader());
-        blockDB.put(Bytes.merge(TYPE_BLOCK_TRANSACTIONS_BY_NUMBER, Bytes.of(number)), block.getEncodedTransactions());
-        blockDB.put(Bytes.merge(TYPE_BLOCK_RESULTS_BY_NUMBER, Bytes.of(number)), block.getEncodedResults());
-        blockDB.put(Bytes.merge(TYPE_BLOCK_VOTES_BY_NUMBER, Bytes.of(number)), block.getEncodedVotes());
+        blockBatch.put(Bytes.merge(TYPE_BLOCK_HEADER_BY_NUMBER, Bytes.of(number)), block.getEncodedHeader());
+        blockBatch.put(Bytes.merge(TYPE_BLOCK_VOTES_BY_NUMBER, Bytes.of(number)), block.getEncodedVotes());
 
-        indexDB.put(Bytes.merge(TYPE_BLOCK_NUMBER_BY_HASH, hash), Bytes.of(number));
+        // each transaction and result is stored individually, for random access
+        List<Transaction> txs = block.getTransactions();
+        for (int i = 0; i < txs.size(); i++) {
+            blockBatch.put(getBlockEntryKey(TYPE_BLOCK_TRANSACTION_BY_NUMBER_AND_INDEX, number, i),
+                    txs.get(i).toBytes());
+            blockBatch.put(getBlockEntryKey(TYPE_BLOCK_RESULT_BY_NUMBER_AND_INDEX, number, i),
+                    block.getResults().get(i).toBytes());
+        }
 
         // [2] update transaction indices
-        List<Transaction> txs = block.getTransactions();
-        Pair<byte[], List<Integer>> transactionIndices = block.getEncodedTransactionsAndIndices();
-        Pair<byte[], List<Integer>> resultIndices = block.getEncodedResultsAndIndices();
-        Amount reward = Block.getBlockReward(block, config);
+        indexBlock(indexBatch, block, getCoinbaseTransaction(block));
+
+        if (number != genesis.getNumber()) {
+            // [3] update validator statistics
+            List<String> validators = getValidators();
+            String primary = config.spec().getPrimaryValidator(validators, number, 0,
+                    this.isForkActivated(UNIFORM_DISTRIBUTION));
+            adjustValidatorStats(indexBatch, block.getCoinbase(), StatsType.FORGED, 1);
+            if (primary.equals(Hex.encode(block.getCoinbase()))) {
+                adjustValidatorStats(indexBatch, Hex.decode0x(primary), StatsType.HIT, 1);
+            } else {
+                adjustValidatorStats(indexBatch, Hex.decode0x(primary), StatsType.MISSED, 1);
+            }
+        }
+
+        // [4] update validator set
+        if (number % config.spec().getValidatorUpdateInterval() == 0) {
+            updateValidators(indexBatch, block.getNumber());
+        }
 
+        // [5] update latest_block, and clear the marker of the commit
+        indexBatch.put(Bytes.of(TYPE_LATEST_BLOCK_NUMBER), Bytes.of(number));
+        indexBatch.delete(Bytes.of(TYPE_COMMITTING_BLOCK));
+
+        // [6] flush the block data, then the indices, both synced: the databases
+        // have separate logs, so the marker must not be cleared before the block
+        // data and the state are on disk
+        blockBatch.flushSync();
+        indexBatch.flushSync();
+        blockCache.add(block);
+        latestBlock = block;
+
+        if (number % BLOCK_CACHE_STATS_INTERVAL == 0 && logger.isDebugEnabled()) {
+            CacheStats stats = getBlockCacheStats();
+            logger.debug("Block cache: hit rate = {}, hits = {}, misses = {}, evictions = {}",
+                    String.format("%.3f", stats.hitRate()), stats.hitCount(), stats.missCount(),
+                    stats.evictionCount());
+        }
+
+        for (BlockchainListener listener : listeners) {
+            listener.onBlockAdded(block);
+        }
+
+        activateForks();
+    }
+
+    /**
+     * Stages the index entries that are derived from a block alone: the block
+     * hash, the transactions and their accounts, the internal transactions, the
+     * contract logs and the coinbase transaction.
+     *
+     * @param indexBatch
+     * @param block
+     * @param coinbase
+     *            the coinbase transaction of the block, or null for the genesis
+     */
+    protected void indexBlock(WriteBuffer indexBatch, Block block, Transaction coinbase) {
+        long number = block.getNumber();
+        indexBatch.put(Bytes.merge(TYPE_BLOCK_NUMBER_BY_HASH, block.getHash()), Bytes.of(number));
+
+        List<Transaction> txs = block.getTransactions();
         for (int i = 0; i < txs.size(); i++) {
             Transaction tx = txs.get(i);
             TransactionResult result = block.getResults().get(i);
 
-            TransactionIndex index = new TransactionIndex(number, transactionIndices.getRight().get(i),
-                    resultIndices.getRight().get(i));
-            indexDB.put(Bytes.merge(TYPE_TRANSACTION_INDEX_BY_HASH, tx.getHash()), index.toBytes());
+            TransactionIndex index = new TransactionIndex(number, i, i);
+            indexBatch.put(Bytes.merge(TYPE_TRANSACTION_INDEX_BY_HASH, tx.getHash()), index.toBytes());
+            addToTransactionFilter(tx.getHash());
 
-            // [3] update transaction_by_account index
-            addTransactionToAccount(tx, tx.getFrom());
+            // update transaction_by_account index
+            addTransactionToAccount(indexBatch, tx, tx.getFrom());
             if (!Arrays.equals(tx.getFrom(), tx.getTo())) {
-                addTransactionToAccount(tx, tx.getTo());
+                addTransactionToAccount(indexBatch, tx, tx.getTo());
             }
 
             // index internal transactions
             for (SemuxInternalTransaction internalTx : result.getInternalTransactions()) {
-                addInternalTransactionToAccount(tx, internalTx, internalTx.getFrom());
+                addInternalTransactionToAccount(indexBatch, tx, internalTx, internalTx.getFrom());
                 if (!Arrays.equals(internalTx.getFrom(), internalTx.getTo())) {
-                    addInternalTransactionToAccount(tx, internalTx, internalTx.getTo());
+                    addInternalTransactionToAccount(indexBatch, tx, internalTx, internalTx.getTo());
                 }
             }
         }
 
-        if (number != genesis.getNumber()) {
-            // [4] coinbase transaction
-            Transaction tx = new Transaction(config.network(),
-                    TransactionType.COINBASE,
-                    block.getCoinbase(),
-                    reward,
-                    Amount.ZERO,
-                    block.getNumber(),
-                    block.getTimestamp(),
-                    Bytes.EMPTY_BYTES);
-            tx.sign(Constants.COINBASE_KEY);
-            indexDB.put(Bytes.merge(TYPE_TRANSACTION_INDEX_BY_HASH, tx.getHash()), tx.toBytes());
-            indexDB.put(Bytes.merge(TYPE_BLOCK_COINBASE_BY_NUMBER, Bytes.of(block.getNumber())), tx.getHash());
-            addTransactionToAccount(tx, block.getCoinbase());
-
-            // [5] update validator statistics
-            List<String> validators = getValidators();
-            String primary = config.spec().getPrimaryValidator(validators, number, 0,
-                    this.isForkActivated(UNIFORM_DISTRIBUTION));
-            adjustValidatorStats(block.getCoinbase(), StatsType.FORGED, 1);
-            if (primary.equals(Hex.encode(block.getCoinbase()))) {
-                adjustValidatorStats(Hex.decode0x(primary), StatsType.HIT, 1);
-            } else {
-                adjustValidatorStats(Hex.decode0x(primary), StatsType.MISSED, 1);
-            }
+        // index contract logs
+        logIndex.index(indexBatch, number, block.getResults());
+
+        if (coinbase != null) {
+            indexBatch.put(Bytes.merge(TYPE_TRANSACTION_INDEX_BY_HASH, coinbase.getHash()), coinbase.toBytes());
+            addToTransactionFilter(coinbase.getHash());
+            indexBatch.put(Bytes.merge(TYPE_BLOCK_COINBASE_BY_NUMBER, Bytes.of(number)), coinbase.getHash());
+            addTransactionToAccount(indexBatch, coinbase, block.getCoinbase());
         }
+    }
 
-        // [6] update validator set
-        if (number % config.spec().getValidatorUpdateInterval() == 0) {
-            updateValidators(block.getNumber());
+    /**
+     * Creates the coinbase transaction of a block, which pays the block reward.
+     *
+     * @param block
+     * @return the coinbase transaction, or null for the genesis
+     */
+    protected Transaction getCoinbaseTransaction(Block block) {
+        if (block.getNumber() == genesis.getNumber()) {
+            return null;
         }
 
-        // [7] update latest_block
-        latestBlock = block;
-        indexDB.put(Bytes.of(TYPE_LATEST_BLOCK_NUMBER), Bytes.of(number));
+        Transaction tx = new Transaction(config.network(),
+                TransactionType.COINBASE,
+                block.getCoinbase(),
+                Block.getBlockReward(block, config),
+                Amount.ZERO,
+                block.getNumber(),
+                block.getTimestamp(),
+                Bytes.EMPTY_BYTES);
+        return tx.sign(Constants.COINBASE_KEY);
+    }
 
-        for (BlockchainListener listener : listeners) {
-            listener.onBlockAdded(block);
+    /**
+     * Adds a transaction hash to the filter, before it's written to the index.
+     *
+     * @param hash
+     */
+    private void addToTransactionFilter(byte[] hash) {
+        if (transactionFilter != null) {
+            transactionFilter.put(hash);
         }
-
-        activateForks();
     }
 
     @Override
@@ -448,20 +845,177 @@ public class BlockchainImpl implements Blockchain {
         return (cnt == null) ? 0 : Bytes.toInt(cnt);
     }
 
+    @Override
+    public List<ContractLog> getLogs(long fromBlock, long toBlock, byte[] address, List<byte[]> topics,
+            int limit) {
+        return logIndex.getLogs(fromBlock, toBlock, address, topics, limit);
+    }
+
     @Override
     public List<Transaction> getTransactions(byte[] address, int from, int to) {
         List<Transaction> list = new ArrayList<>();
+        if (from >= to) {
+            return list;
+        }
 
-        int total = getTransactionCount(address);
-        for (int i = from; i < total && i < to; i++) {
-            byte[] key = getNthTransactionIndexKey(address, i);
-            byte[] value = indexDB.get(key);
-            list.add(getTransaction(value));
+        ClosableIterator<Transaction> itr = getTransactionIterator(address, from);
+        try {
+            while (list.size() < to - from && itr.hasNext()) {
+                list.add(itr.next());
+            }
+        } finally {
+            itr.close();
         }
 
         return list;
     }
 
+    @Override
+    public ClosableIterator<Transaction> getTransactionIterator(byte[] address, int from) {
+        return new AccountTransactionIterator(address, Math.max(0, from));
+    }
+
+    /**
+     * Returns the transactions of the given hashes, in the same order. The
+     * transactions of one block are read with a single scan of the block
+     * database.
+     *
+     * @param hashes
+     * @return
+     */
+    protected List<Transaction> getTransactionsByHashes(List<byte[]> hashes) {
+        Transaction[] txs = new Transaction[hashes.size()];
+
+        // block number => (position => slot)
+        Map<Long, TreeMap<Integer, Integer>> blocks = new TreeMap<>();
+        for (int i = 0; i < hashes.size(); i++) {
+            byte[] bytes = indexDB.get(Bytes.merge(TYPE_TRANSACTION_INDEX_BY_HASH, hashes.get(i)));
+            if (bytes == null) {
+                continue;
+            }
+
+            // coinbase transaction
+            if (bytes.length > 64) {
+                txs[i] = Transaction.fromBytes(bytes);
+            } else {
+                TransactionIndex index = TransactionIndex.fromBytes(bytes);
+                blocks.computeIfAbsent(index.blockNumber, k -> new TreeMap<>()).put(index.transactionPosition, i);
+            }
+        }
+
+        for (Entry<Long, TreeMap<Integer, Integer>> block : blocks.entrySet()) {
+            long number = block.getKey();
+            TreeMap<Integer, Integer> positions = block.getValue();
+
+            if (positions.size() == 1) {
+                Entry<Integer, Integer> e = positions.firstEntry();
+                byte[] transaction = blockDB.get(getBlockEntryKey(TYPE_BLOCK_TRANSACTION_BY_NUMBER_AND_INDEX,
+                        number, e.getKey()));
+                txs[e.getValue()] = Transaction.fromBytes(transaction);
+                continue;
+            }
+
+            // scan from the first to the last position
+            byte[] prefix = Bytes.merge(TYPE_BLOCK_TRANSACTION_BY_NUMBER_AND_INDEX, Bytes.of(number));
+            int last = positions.lastKey();
+            ClosableIterator<Entry<byte[], byte[]>> itr = blockDB.iterator(getBlockEntryKey(
+                    TYPE_BLOCK_TRANSACTION_BY_NUMBER_AND_INDEX, number, positions.firstKey()));
+            try {
+                while (itr.hasNext()) {
+                    Entry<byte[], byte[]> e = itr.next();
+                    byte[] key = e.getKey();
+                    if (key.length != prefix.length + 4
+                            || !Arrays.equals(prefix, Arrays.copyOf(key, prefix.length))) {
+                        break;
+                    }
+
+                    int position = Bytes.toInt(Arrays.copyOfRange(key, prefix.length, key.length));
+                    Integer slot = positions.get(position);
+                    if (slot != null) {
+                        txs[slot] = Transaction.fromBytes(e.getValue());
+                    }
+                    if (position >= last) {
+                        break;
+                    }
+                }
+            } finally {
+                itr.close();
+            }
+        }
+
+        List<Transaction> list = new ArrayList<>(txs.length);
+        for (Transaction tx : txs) {
+            if (tx != null) {
+                list.add(tx);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Iterates over the transactions of an account by scanning the account
+     * index, and resolves them in chunks of growing size.
+     */
+    private class AccountTransactionIterator implements ClosableIterator<Transaction> {
+
+        private static final int MIN_CHUNK_SIZE = 16;
+        private static final int MAX_CHUNK_SIZE = 1024;
+
+        private final byte[] prefix;
+        private final ClosableIterator<Entry<byte[], byte[]>> index;
+        private final Deque<Transaction> buffer = new ArrayDeque<>();
+
+        private int chunkSize = MIN_CHUNK_SIZE;
+        private boolean isIndexExhausted = false;
+
+        AccountTransactionIterator(byte[] address, int from) {
+            this.prefix = Bytes.merge(TYPE_TRANSACTION_HASH_BY_ADDRESS_AND_INDEX, address);
+            this.index = indexDB.iterator(getNthTransactionIndexKey(address, from));
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (buffer.isEmpty() && !isIndexExhausted) {
+                fill();
+            }
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return buffer.poll();
+        }
+
+        @Override
+        public void close() {
+            index.close();
+        }
+
+        private void fill() {
+            List<byte[]> hashes = new ArrayList<>(chunkSize);
+            while (hashes.size() < chunkSize) {
+                if (!index.hasNext()) {
+                    isIndexExhausted = true;
+                    break;
+                }
+
+                Entry<byte[], byte[]> e = index.next();
+                byte[] key = e.getKey();
+                if (key.length != prefix.length + 4 || !Arrays.equals(prefix, Arrays.copyOf(key, prefix.length))) {
+                    isIndexExhausted = true;
+                    break;
+                }
+                hashes.add(e.getValue());
+            }
+
+            chunkSize = Math.min(chunkSize * 2, MAX_CHUNK_SIZE);
+            buffer.addAll(getTransactionsByHashes(hashes));
+        }
+    }
+
     @Override
     public List<String> getValidators() {
         List<String> validators = new ArrayList<>();
@@ -492,12 +1046,22 @@ public class BlockchainImpl implements Blockchain {
      * @param number
      */
     public void updateValidators(long number) {
+        WriteBuffer batch = new WriteBuffer(indexDB);
+        updateValidators(batch, number);
+        batch.flush();
+    }
+
+    /**
+     * Stages an update of the validator set.
+     *
+     * @param batch
+     * @param number
+     */
+    protected void updateValidators(WriteBuffer batch, long number) {
         List<String> validators = new ArrayList<>();
 
-        List<Delegate> delegates = delegateState.getDelegates();
-        int max = Math.min(delegates.size(), config.spec().getNumberOfValidators(number));
-        for (int i = 0; i < max; i++) {
-            Delegate d = delegates.get(i);
+        List<Delegate> delegates = delegateState.getDelegates(config.spec().getNumberOfValidators(number));
+        for (Delegate d : delegates) {
             validators.add(Hex.encode(d.getAddress()));
         }
 
@@ -506,7 +1070,7 @@ public class BlockchainImpl implements Blockchain {
         for (String v : validators) {
             enc.writeString(v);
         }
-        indexDB.put(Bytes.of(TYPE_VALIDATORS), enc.toBytes());
+        batch.put(Bytes.of(TYPE_VALIDATORS), enc.toBytes());
     }
 
     /**
@@ -520,8 +1084,26 @@ public class BlockchainImpl implements Blockchain {
      *            difference
      */
     protected void adjustValidatorStats(byte[] address, StatsType type, long delta) {
+        WriteBuffer batch = new WriteBuffer(indexDB);
+        adjustValidatorStats(batch, address, type, delta);
+        batch.flush();
+    }
+
+    /**
+     * Stages an adjustment of validator statistics.
+     *
+     * @param batch
+     *            the index write buffer
+     * @param address
+     *            validator address
+     * @param type
+     *            stats type
+     * @param delta
+     *            difference
+     */
+    protected void adjustValidatorStats(WriteBuffer batch, byte[] address, StatsType type, long delta) {
         byte[] key = Bytes.merge(TYPE_VALIDATOR_STATS_BY_ADDRESS, address);
-        byte[] value = indexDB.get(key);
+        byte[] value = batch.get(key);
 
         ValidatorStats stats = (value == null) ? new ValidatorStats(0, 0, 0) : ValidatorStats.fromBytes(value);
 
@@ -539,29 +1121,23 @@ public class BlockchainImpl implements Blockchain {
             break;
         }
 
-        indexDB.put(key, stats.toBytes());
-    }
-
-    /**
-     * Sets the total number of transaction of an account.
-     *
-     * @param address
-     * @param total
-     */
-    protected void setTransactionCount(byte[] address, int total) {
-        indexDB.put(Bytes.merge(TYPE_TRANSACTION_COUNT_BY_ADDRESS, address), Bytes.of(total));
+        batch.put(key, stats.toBytes());
     }
 
     /**
      * Adds a transaction to an account.
      *
+     * @param batch
      * @param tx
      * @param address
      */
-    protected void addTransactionToAccount(Transaction tx, byte[] address) {
-        int total = getTransactionCount(address);
-        indexDB.put(getNthTransactionIndexKey(address, total), tx.getHash());
-        setTransactionCount(address, total + 1);
+    protected void addTransactionToAccount(WriteBuffer batch, Transaction tx, byte[] address) {
+        byte[] countKey = Bytes.merge(TYPE_TRANSACTION_COUNT_BY_ADDRESS, address);
+        byte[] cnt = batch.get(countKey);
+        int total = (cnt == null) ? 0 : Bytes.toInt(cnt);
+
+        batch.put(getNthTransactionIndexKey(address, total), tx.getHash());
+        batch.put(countKey, Bytes.of(total + 1));
     }
 
     /**
@@ -595,26 +1171,22 @@ public class BlockchainImpl implements Blockchain {
         return list;
     }
 
-    /**
-     * Sets the total number of internal transaction of an account.
-     *
-     * @param address
-     * @param total
-     */
-    protected void setInternalTransactionCount(byte[] address, int total) {
-        indexDB.put(Bytes.merge(TYPE_INTERNAL_TRANSACTION_COUNT_BY_ADDRESS, address), Bytes.of(total));
-    }
-
     /**
      * Adds an internal transaction to an account.
      *
+     * @param batch
+     * @param root
      * @param tx
      * @param address
      */
-    protected void addInternalTransactionToAccount(Transaction root, SemuxInternalTransaction tx, byte[] address) {
-        int total = getInternalTransactionCount(address);
-        indexDB.put(getNthInternalTransactionIndexKey(address, total), tx.toBytes());
-        setInternalTransactionCount(address, total + 1);
+    protected void addInternalTransactionToAccount(WriteBuffer batch, Transaction root, SemuxInternalTransaction tx,
+            byte[] address) {
+        byte[] countKey = Bytes.merge(TYPE_INTERNAL_TRANSACTION_COUNT_BY_ADDRESS, address);
+        byte[] cnt = batch.get(countKey);
+        int total = (cnt == null) ? 0 : Bytes.toInt(cnt);
+
+        batch.put(getNthInternalTransactionIndexKey(address, total), tx.toBytes());
+        batch.put(countKey, Bytes.of(total + 1));
     }
 
     /**
@@ -754,6 +1326,16 @@ public class BlockchainImpl implements Blockchain {
         return validateBlock(block, asTrack, dsTrack, validateVotes) && applyBlock(block, asTrack, dsTrack);
     }
 
+    @Override
+    public boolean importBlock(Block block, AccountState asTrack, DelegateState dsTrack) {
+        // the tracks are stale once another block has been added
+        if (!Arrays.equals(block.getParentHash(), this.getLatestBlock().getHash())) {
+            logger.debug("Executed state is stale, re-executing block #{}", block.getNumber());
+            return importBlock(block, false);
+        }
+        return applyBlock(block, asTrack, dsTrack);
+    }
+
     /**
      * Validate the block. Votes are validated only if validateVotes is true.
      *
@@ -842,17 +1424,9 @@ public class BlockchainImpl implements Blockchain {
             return false;
         }
 
-        if (!Key.isVerifyBatchSupported()) {
-            if (!block.getVotes().stream()
-                    .allMatch(sig -> Key.verify(encoded, sig))) {
-                logger.warn("Block votes are invalid");
-                return false;
-            }
-        } else {
-            if (!Key.verifyBatch(Collections.nCopies(block.getVotes().size(), encoded), block.getVotes())) {
-                logger.warn("Block votes are invalid");
-                return false;
-            }
+        if (!SignatureCache.verifyAll(Collections.nCopies(block.getVotes().size(), encoded), block.getVotes())) {
+            logger.warn("Block votes are invalid");
+            return false;
         }
 
         // at least two thirds voters
@@ -881,11 +1455,23 @@ public class BlockchainImpl implements Blockchain {
         ReentrantReadWriteLock.WriteLock writeLock = this.stateLock.writeLock();
         writeLock.lock();
         try {
-            // [7] flush state to disk
+            // [7] stage the state updates, and record their previous values in a
+            // synced marker before any of them reaches the disk
+            accountDB.stage();
+            delegateDB.stage();
+            voteDB.stage();
             this.getAccountState().commit();
             this.getDelegateState().commit();
+            writeCommitMarker(block.getNumber());
+
+            // [8] flush state to disk, one synced batch per database
+            accountDB.apply();
+            delegateDB.apply();
+            voteDB.apply();
 
-            // [8] add block to chain
+            // [9] add block to chain; the state is ahead of the latest block number
+            // until the final index batch, which clears the marker, so a crash in
+            // between is reverted on the next start
             this.addBlock(block);
         } finally {
             writeLock.unlock();
@@ -945,37 +1531,90 @@ public class BlockchainImpl implements Blockchain {
         indexDB.put(Bytes.of(TYPE_ACTIVATED_FORKS), simpleEncoder.toBytes());
     }
 
+    /**
+     * Upgrades a database whose blocks are stored in an older layout, by
+     * importing them again. Newer databases are upgraded when the chain is
+     * opened, by {@link IndexUpgrade}.
+     *
+     * @param config
+     * @param dbFactory
+     */
     private static void upgradeDatabase(Config config, DatabaseFactory dbFactory) {
-        if (getLatestBlockNumber(dbFactory.getDB(DatabaseName.INDEX)) != null
-                && getDatabaseVersion(dbFactory.getDB(DatabaseName.INDEX)) < BlockchainImpl.DATABASE_VERSION) {
+        if (getLatestBlockNumber(dbFactory.getDB(DatabaseName.INDEX)) != null && isLegacyLayout(dbFactory)) {
             upgrade(config, dbFactory, Long.MAX_VALUE);
         }
     }
 
+    /**
+     * Returns whether the blocks of a database are stored in a layout older than
+     * {@link #BLOCK_LAYOUT_VERSION}, which can only be upgraded by importing them
+     * again.
+     *
+     * @param dbFactory
+     * @return
+     */
+    private static boolean isLegacyLayout(DatabaseFactory dbFactory) {
+        return getDatabaseVersion(dbFactory.getDB(DatabaseName.INDEX)) < BLOCK_LAYOUT_VERSION;
+    }
+
+    /**
+     * Rebuilds the indices of a database from its stored blocks, without
+     * importing them again. The database must be of {@link #BLOCK_LAYOUT_VERSION}
+     * or later.
+     *
+     * @param config
+     * @param dbFactory
+     */
+    public static void reindex(Config config, DatabaseFactory dbFactory) {
+        Database indexDB = dbFactory.getDB(DatabaseName.INDEX);
+        if (getLatestBlockNumber(indexDB) == null) {
+            return;
+        }
+
+        if (getDatabaseVersion(indexDB) < BLOCK_LAYOUT_VERSION) {
+            upgrade(config, dbFactory, Long.MAX_VALUE);
+        } else {
+            IndexUpgrade.request(indexDB);
+            new BlockchainImpl(config, dbFactory);
+        }
+    }
+
+    /**
+     * Imports the stored blocks into a new database, validating and executing
+     * them again. This upgrades a database in a legacy layout, see
+     * {@link #isLegacyLayout(DatabaseFactory)}, and rolls back a database of any
+     * version to the given block.
+     *
+     * @param config
+     * @param dbFactory
+     * @param to
+     *            the last block to import
+     */
     public static void upgrade(Config config, DatabaseFactory dbFactory, long to) {
+        Path dataDir = dbFactory.getDataDir();
+        String dataDirName = dataDir.getFileName().toString();
+        Path tempPath = dataDir.resolveSibling(dataDirName + "-temp");
+        LeveldbDatabase.LeveldbFactory tempDbFactory = null;
         try {
             logger.info("Upgrading the database... DO NOT CLOSE THE WALLET!");
             Instant begin = Instant.now();
 
-            Path dataDir = dbFactory.getDataDir();
-            String dataDirName = dataDir.getFileName().toString();
-
             // setup temp chain
-            Path tempPath = dataDir.resolveSibling(dataDirName + "-temp");
             delete(tempPath);
-            LeveldbDatabase.LeveldbFactory tempDbFactory = new LeveldbDatabase.LeveldbFactory(tempPath.toFile());
+            tempDbFactory = new LeveldbDatabase.LeveldbFactory(tempPath.toFile(), config::dbOptions);
             BlockchainImpl tempChain = new BlockchainImpl(config, tempDbFactory);
 
-            // import all blocks
+            // import all blocks, in the layout of the database version
             long imported = 0;
             Database indexDB = dbFactory.getDB(DatabaseName.INDEX);
             Database blockDB = dbFactory.getDB(DatabaseName.BLOCK);
+            boolean legacy = getDatabaseVersion(indexDB) < BLOCK_LAYOUT_VERSION;
             byte[] bytes = getLatestBlockNumber(indexDB);
             long latestBlockNumber = (bytes == null) ? 0 : Bytes.toLong(bytes);
             long target = Math.min(latestBlockNumber, to);
             for (long i = 1; i <= target; i++) {
-                boolean result = tempChain.importBlock(getBlock(blockDB, i, true), false);
-                if (!result) {
+                Block block = legacy ? getLegacyBlock(blockDB, i, true) : getStoredBlock(blockDB, i);
+                if (block == null || !tempChain.importBlock(block, false)) {
                     break;
                 }
 
@@ -989,6 +1628,7 @@ public class BlockchainImpl implements Blockchain {
             // close both database factory
             dbFactory.close();
             tempDbFactory.close();
+            tempDbFactory = null;
 
             // swap the database folders
             Path backupPath = dataDir.resolveSibling(dataDirName + "-backup");
@@ -999,14 +1639,29 @@ public class BlockchainImpl implements Blockchain {
             Instant end = Instant.now();
             logger.info("Database upgraded: found blocks = {}, imported = {}, took = {}", latestBlockNumber, imported,
                     TimeUtil.formatDuration(Duration.between(begin, end)));
-        } catch (IOException e) {
+        } catch (IOException | RuntimeException e) {
             logger.error("Failed to upgrade database", e);
+
+            // leave the database as it was, without the partial copy
+            if (tempDbFactory != null) {
+                tempDbFactory.close();
+                try {
+                    delete(tempPath);
+                } catch (IOException ex) {
+                    logger.error("Failed to delete the temporary database", ex);
+                }
+            }
         }
     }
 
     // THE FOLLOWING TYPE ID SHOULD NEVER CHANGE
 
-    private static Block getBlock(Database blockDB, long number, boolean skipResults) {
+    /**
+     * Reads a block from a database of version 3 or earlier, where the
+     * transactions and results of a block are stored as one value each. Newer
+     * databases are read with {@link #getStoredBlock(Database, long)}.
+     */
+    private static Block getLegacyBlock(Database blockDB, long number, boolean skipResults) {
         byte[] header = blockDB.get(Bytes.merge(TYPE_BLOCK_HEADER_BY_NUMBER, Bytes.of(number)));
         byte[] transactions = blockDB.get(Bytes.merge(TYPE_BLOCK_TRANSACTIONS_BY_NUMBER, Bytes.of(number)));
         byte[] results = skipResults ? null : blockDB.get(Bytes.merge(TYPE_BLOCK_RESULTS_BY_NUMBER, Bytes.of(number)));
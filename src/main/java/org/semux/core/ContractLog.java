@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core;
+
+import org.ethereum.vm.LogInfo;
+
+/**
+ * A log emitted by a contract, with its position in the chain.
+ */
+public class ContractLog {
+
+    private final long blockNumber;
+    private final int transactionIndex;
+    private final byte[] transactionHash;
+    private final int logIndex;
+    private final LogInfo log;
+
+    public ContractLog(long blockNumber, int transactionIndex, byte[] transactionHash, int logIndex, LogInfo log) {
+        this.blockNumber = blockNumber;
+        this.transactionIndex = transactionIndex;
+        this.transactionHash = transactionHash;
+        this.logIndex = logIndex;
+        this.log = log;
+    }
+
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    /**
+     * Returns the index of the transaction in its block.
+     *
+     * @return
+     */
+    public int getTransactionIndex() {
+        return transactionIndex;
+    }
+
+    public byte[] getTransactionHash() {
+        return transactionHash;
+    }
+
+    /**
+     * Returns the index of the log in its transaction result.
+     *
+     * @return
+     */
+    public int getLogIndex() {
+        return logIndex;
+    }
+
+    public LogInfo getLog() {
+        return log;
+    }
+}
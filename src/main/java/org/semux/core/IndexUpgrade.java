@@ -0,0 +1,268 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core;
+
+import static org.semux.core.BlockchainImpl.DATABASE_VERSION;
+import static org.semux.core.BlockchainImpl.TYPE_BLOCK_COINBASE_BY_NUMBER;
+import static org.semux.core.BlockchainImpl.TYPE_BLOCK_NUMBER_BY_HASH;
+import static org.semux.core.BlockchainImpl.TYPE_DATABASE_VERSION;
+import static org.semux.core.BlockchainImpl.TYPE_INDEX_UPGRADE_CHECKPOINT;
+import static org.semux.core.BlockchainImpl.TYPE_INTERNAL_TRANSACTION_BY_ADDRESS_AND_INDEX;
+import static org.semux.core.BlockchainImpl.TYPE_LATEST_BLOCK_NUMBER;
+import static org.semux.core.BlockchainImpl.TYPE_LOG_BLOCKS_BY_ADDRESS;
+import static org.semux.core.BlockchainImpl.TYPE_LOG_BLOCKS_BY_TOPIC;
+import static org.semux.core.BlockchainImpl.TYPE_LOG_BLOOM_BY_NUMBER;
+import static org.semux.core.BlockchainImpl.TYPE_LOG_BLOOM_BY_RANGE;
+import static org.semux.core.BlockchainImpl.TYPE_TRANSACTION_HASH_BY_ADDRESS_AND_INDEX;
+import static org.semux.core.BlockchainImpl.TYPE_TRANSACTION_INDEX_BY_HASH;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.semux.core.event.BlockchainDatabaseUpgradingEvent;
+import org.semux.core.exception.BlockchainException;
+import org.semux.db.Database;
+import org.semux.db.WriteBuffer;
+import org.semux.event.PubSubFactory;
+import org.semux.util.Bytes;
+import org.semux.util.ClosableIterator;
+import org.semux.util.TimeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rebuilds the indices that are derived from the stored blocks, for a database
+ * whose blocks are already stored in the current layout.
+ * <p>
+ * Unlike a full upgrade, no block is validated or executed again: ranges of
+ * blocks are read and decoded by a pool of workers, and their index entries are
+ * written in block order, from the stored transactions and results. The next
+ * block to index is checkpointed along with each range, so that an interrupted
+ * upgrade resumes where it stopped.
+ * <p>
+ * The entries not derived from the blocks alone, such as the validators and
+ * their statistics, are kept as they are.
+ */
+class IndexUpgrade {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexUpgrade.class);
+
+    /**
+     * The number of blocks read and written at a time.
+     */
+    static final int RANGE_SIZE = 100;
+
+    /**
+     * The max number of ranges decoded ahead of the writer, whatever the number
+     * of workers, which bounds the decoded blocks held in memory.
+     */
+    static final int MAX_PENDING_RANGES = 8;
+
+    /**
+     * The checkpoint of an upgrade that is yet to clear the old indices.
+     */
+    private static final long NOT_STARTED = -1;
+
+    /**
+     * The types of the derived index entries.
+     */
+    private static final byte[] DERIVED_TYPES = {
+            TYPE_BLOCK_NUMBER_BY_HASH,
+            TYPE_TRANSACTION_INDEX_BY_HASH,
+            TYPE_TRANSACTION_HASH_BY_ADDRESS_AND_INDEX,
+            TYPE_BLOCK_COINBASE_BY_NUMBER,
+            TYPE_INTERNAL_TRANSACTION_BY_ADDRESS_AND_INDEX,
+            TYPE_LOG_BLOOM_BY_NUMBER,
+            TYPE_LOG_BLOOM_BY_RANGE,
+            TYPE_LOG_BLOCKS_BY_ADDRESS,
+            TYPE_LOG_BLOCKS_BY_TOPIC
+    };
+
+    private final BlockchainImpl chain;
+    private final Database indexDB;
+    private final int threads;
+
+    IndexUpgrade(BlockchainImpl chain, Database indexDB, int threads) {
+        this.chain = chain;
+        this.indexDB = indexDB;
+        this.threads = threads;
+    }
+
+    /**
+     * Returns whether the indices of a database need to be rebuilt, either
+     * because they are of an older version or because a rebuild was
+     * interrupted or requested.
+     *
+     * @param indexDB
+     * @return
+     */
+    static boolean isNeeded(Database indexDB) {
+        if (indexDB.get(Bytes.of(TYPE_INDEX_UPGRADE_CHECKPOINT)) != null) {
+            return true;
+        }
+
+        byte[] version = indexDB.get(Bytes.of(TYPE_DATABASE_VERSION));
+        return indexDB.get(Bytes.of(TYPE_LATEST_BLOCK_NUMBER)) != null
+                && (version == null ? 0 : Bytes.toInt(version)) < DATABASE_VERSION;
+    }
+
+    /**
+     * Requests the indices of a database to be rebuilt, when the blockchain is
+     * next opened.
+     *
+     * @param indexDB
+     */
+    static void request(Database indexDB) {
+        indexDB.put(Bytes.of(TYPE_INDEX_UPGRADE_CHECKPOINT), Bytes.of(NOT_STARTED));
+    }
+
+    /**
+     * Rebuilds the indices of all stored blocks, resuming from the checkpoint if
+     * any.
+     */
+    void run() {
+        long latest = Bytes.toLong(indexDB.get(Bytes.of(TYPE_LATEST_BLOCK_NUMBER)));
+        byte[] checkpoint = indexDB.get(Bytes.of(TYPE_INDEX_UPGRADE_CHECKPOINT));
+        long from = checkpoint == null ? NOT_STARTED : Bytes.toLong(checkpoint);
+
+        if (from == NOT_STARTED) {
+            logger.info("Rebuilding the database indices... DO NOT CLOSE THE WALLET!");
+            clear();
+            from = 0;
+        } else {
+            logger.info("Resuming the rebuild of the database indices from block #{}", from);
+        }
+
+        long t1 = TimeUtil.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "index-upgrade");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            // decode ahead by a bounded number of ranges, and write them in order
+            int lookahead = Math.min(2 * threads, MAX_PENDING_RANGES);
+            Deque<Future<List<Pair<Block, Transaction>>>> pending = new ArrayDeque<>();
+            long next = from;
+            while (next <= latest || !pending.isEmpty()) {
+                while (next <= latest && pending.size() < lookahead) {
+                    long start = next;
+                    long end = Math.min(latest, start + RANGE_SIZE - 1);
+                    pending.add(executor.submit(() -> decode(start, end)));
+                    next = end + 1;
+                }
+
+                List<Pair<Block, Transaction>> blocks = pending.poll().get();
+                long done = write(blocks);
+                publishProgress(from, done, latest, TimeUtil.currentTimeMillis() - t1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BlockchainException("Interrupted while rebuilding the database indices", e);
+        } catch (ExecutionException e) {
+            throw new BlockchainException("Failed to rebuild the database indices", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        WriteBuffer batch = new WriteBuffer(indexDB);
+        batch.put(Bytes.of(TYPE_LOG_BLOOM_BY_NUMBER), Bytes.EMPTY_BYTES);
+        batch.put(Bytes.of(TYPE_DATABASE_VERSION), Bytes.of(DATABASE_VERSION));
+        batch.delete(Bytes.of(TYPE_INDEX_UPGRADE_CHECKPOINT));
+        batch.flush();
+
+        long t2 = TimeUtil.currentTimeMillis();
+        logger.info("Database indices rebuilt: blocks = {}, took = {}", latest + 1 - from,
+                TimeUtil.formatDuration(Duration.ofMillis(t2 - t1)));
+    }
+
+    /**
+     * Deletes the derived index entries, so that the lists by account are
+     * rebuilt from the first block.
+     */
+    private void clear() {
+        WriteBuffer batch = new WriteBuffer(indexDB);
+        for (byte type : DERIVED_TYPES) {
+            ClosableIterator<Entry<byte[], byte[]>> itr = indexDB.iterator(Bytes.of(type));
+            try {
+                while (itr.hasNext()) {
+                    byte[] key = itr.next().getKey();
+                    if (key[0] != type) {
+                        break;
+                    }
+                    batch.delete(key);
+                    if (batch.size() >= 10_000) {
+                        batch.flush();
+                    }
+                }
+            } finally {
+                itr.close();
+            }
+        }
+        batch.put(Bytes.of(TYPE_INDEX_UPGRADE_CHECKPOINT), Bytes.of(0L));
+        batch.flush();
+    }
+
+    /**
+     * Reads the blocks of a range, along with their coinbase transactions.
+     *
+     * @param start
+     * @param end
+     *            inclusive
+     * @return
+     */
+    private List<Pair<Block, Transaction>> decode(long start, long end) {
+        List<Pair<Block, Transaction>> blocks = new ArrayList<>((int) (end - start + 1));
+        for (long number = start; number <= end; number++) {
+            Block block = chain.loadBlock(number);
+            if (block == null) {
+                throw new BlockchainException("Block #" + number + " is missing");
+            }
+            blocks.add(Pair.of(block, chain.getCoinbaseTransaction(block)));
+        }
+        return blocks;
+    }
+
+    /**
+     * Writes the index entries of a range of blocks, with the checkpoint of the
+     * next range.
+     *
+     * @param blocks
+     * @return the number of the last block written
+     */
+    private long write(List<Pair<Block, Transaction>> blocks) {
+        WriteBuffer batch = new WriteBuffer(indexDB);
+        for (Pair<Block, Transaction> pair : blocks) {
+            chain.indexBlock(batch, pair.getLeft(), pair.getRight());
+        }
+
+        long last = blocks.get(blocks.size() - 1).getLeft().getNumber();
+        batch.put(Bytes.of(TYPE_INDEX_UPGRADE_CHECKPOINT), Bytes.of(last + 1));
+        batch.flush();
+        return last;
+    }
+
+    private void publishProgress(long from, long done, long latest, long elapsed) {
+        long indexed = done + 1 - from;
+        long eta = elapsed * (latest - done) / indexed;
+
+        PubSubFactory.getDefault().publish(new BlockchainDatabaseUpgradingEvent(done, latest, eta));
+        if (indexed % (10 * RANGE_SIZE) == 0 || done == latest) {
+            logger.info("Indexed {} / {} blocks, ETA = {}", done, latest,
+                    TimeUtil.formatDuration(Duration.ofMillis(eta)));
+        }
+    }
+}
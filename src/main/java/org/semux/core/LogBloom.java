@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core;
+
+import org.semux.crypto.Hash;
+
+/**
+ * A fixed-size Bloom filter over the addresses and topics of contract logs.
+ * Each item sets three bits, taken from the hash of the item.
+ */
+class LogBloom {
+
+    private static final int NUM_HASHES = 3;
+
+    private final byte[] bits;
+
+    /**
+     * Creates an empty bloom filter.
+     *
+     * @param size
+     *            the size in bytes, a power of two
+     */
+    LogBloom(int size) {
+        this.bits = new byte[size];
+    }
+
+    private LogBloom(byte[] bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * Adds an item.
+     *
+     * @param item
+     */
+    void add(byte[] item) {
+        byte[] hash = Hash.h256(item);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            int bit = bitIndex(hash, i);
+            bits[bit >>> 3] |= (byte) (1 << (bit & 7));
+        }
+    }
+
+    /**
+     * Returns whether an item might have been added. False positives are
+     * possible but false negatives are not.
+     *
+     * @param item
+     * @return
+     */
+    boolean mightContain(byte[] item) {
+        byte[] hash = Hash.h256(item);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            int bit = bitIndex(hash, i);
+            if ((bits[bit >>> 3] & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    byte[] toBytes() {
+        return bits;
+    }
+
+    static LogBloom fromBytes(byte[] bytes) {
+        return new LogBloom(bytes);
+    }
+
+    private int bitIndex(byte[] hash, int i) {
+        int value = ((hash[4 * i] & 0xff) << 24) | ((hash[4 * i + 1] & 0xff) << 16)
+                | ((hash[4 * i + 2] & 0xff) << 8) | (hash[4 * i + 3] & 0xff);
+        return value & (bits.length * 8 - 1);
+    }
+}
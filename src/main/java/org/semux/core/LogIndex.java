@@ -0,0 +1,359 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core;
+
+import static org.semux.core.BlockchainImpl.TYPE_BLOCK_RESULT_BY_NUMBER_AND_INDEX;
+import static org.semux.core.BlockchainImpl.TYPE_BLOCK_TRANSACTION_BY_NUMBER_AND_INDEX;
+import static org.semux.core.BlockchainImpl.TYPE_LOG_BLOCKS_BY_ADDRESS;
+import static org.semux.core.BlockchainImpl.TYPE_LOG_BLOCKS_BY_TOPIC;
+import static org.semux.core.BlockchainImpl.TYPE_LOG_BLOOM_BY_NUMBER;
+import static org.semux.core.BlockchainImpl.TYPE_LOG_BLOOM_BY_RANGE;
+import static org.semux.core.BlockchainImpl.getBlockEntryKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
+import org.semux.db.Database;
+import org.semux.db.WriteBuffer;
+import org.semux.util.ByteArray;
+import org.semux.util.Bytes;
+import org.semux.util.ClosableIterator;
+import org.semux.util.SimpleDecoder;
+import org.semux.util.SimpleEncoder;
+import org.semux.util.TimeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the logs emitted by contracts, which finds logs by address and
+ * topics without decoding the results of every block.
+ * <p>
+ * Blocks with logs get a small bloom filter over the addresses and topics of
+ * their logs, and every range of {@link #RANGE_SIZE} blocks a larger one. Each
+ * address and topic has a posting list of the blocks and transactions where it
+ * appears. A query walks one posting list, or the block blooms if it matches
+ * any log, and skips the ranges and blocks whose blooms rule out the other
+ * criteria.
+ *
+ * <pre>
+ * index DB structure:
+ *
+ * [9] => [] // marks the index as built
+ * [9, block_number] => [block_bloom, transaction_indices]
+ * [10, range_number] => [range_bloom]
+ * [11, address, block_number] => [transaction_indices]
+ * [12, topic, block_number] => [transaction_indices]
+ * </pre>
+ */
+class LogIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogIndex.class);
+
+    /**
+     * The number of blocks covered by a range bloom.
+     */
+    static final int RANGE_SIZE = 4096;
+
+    private static final int BLOCK_BLOOM_SIZE = 256;
+    private static final int RANGE_BLOOM_SIZE = 4096;
+
+    private final Database indexDB;
+    private final Database blockDB;
+
+    LogIndex(Database indexDB, Database blockDB) {
+        this.indexDB = indexDB;
+        this.blockDB = blockDB;
+    }
+
+    /**
+     * Returns whether the logs of all stored blocks are indexed.
+     *
+     * @return
+     */
+    boolean isBuilt() {
+        return indexDB.get(Bytes.of(TYPE_LOG_BLOOM_BY_NUMBER)) != null;
+    }
+
+    /**
+     * Indexes the logs of all stored blocks, for a database created before the
+     * index existed. The results are read in one pass over the block database.
+     */
+    void build() {
+        long t1 = TimeUtil.currentTimeMillis();
+
+        WriteBuffer batch = new WriteBuffer(indexDB);
+        long blocks = 0;
+        long number = -1;
+        List<TransactionResult> results = new ArrayList<>();
+
+        byte[] prefix = Bytes.of(TYPE_BLOCK_RESULT_BY_NUMBER_AND_INDEX);
+        ClosableIterator<Entry<byte[], byte[]>> itr = blockDB.iterator(prefix);
+        try {
+            while (itr.hasNext()) {
+                Entry<byte[], byte[]> e = itr.next();
+                byte[] key = e.getKey();
+                if (key[0] != TYPE_BLOCK_RESULT_BY_NUMBER_AND_INDEX) {
+                    break;
+                }
+                if (key.length != 1 + 8 + 4) {
+                    continue;
+                }
+
+                long n = Bytes.toLong(Arrays.copyOfRange(key, 1, 9));
+                if (n != number) {
+                    if (index(batch, number, results)) {
+                        blocks++;
+                    }
+                    if (batch.size() >= 10_000) {
+                        batch.flush();
+                    }
+                    number = n;
+                    results.clear();
+                }
+                results.add(TransactionResult.fromBytes(e.getValue()));
+            }
+        } finally {
+            itr.close();
+        }
+        if (index(batch, number, results)) {
+            blocks++;
+        }
+
+        batch.put(Bytes.of(TYPE_LOG_BLOOM_BY_NUMBER), Bytes.EMPTY_BYTES);
+        batch.flush();
+
+        long t2 = TimeUtil.currentTimeMillis();
+        logger.info("Built log index: # blocks with logs = {}, time = {} ms", blocks, t2 - t1);
+    }
+
+    /**
+     * Stages the index entries of the logs of a block.
+     *
+     * @param batch
+     *            the index batch
+     * @param number
+     *            the block number
+     * @param results
+     *            the transaction results of the block
+     * @return whether the block has any log
+     */
+    boolean index(WriteBuffer batch, long number, List<TransactionResult> results) {
+        LogBloom blockBloom = new LogBloom(BLOCK_BLOOM_SIZE);
+        LogBloom rangeBloom = null;
+        List<Integer> transactions = new ArrayList<>();
+        Map<ByteArray, Set<Integer>> addresses = new LinkedHashMap<>();
+        Map<ByteArray, Set<Integer>> topics = new LinkedHashMap<>();
+
+        for (int i = 0; i < results.size(); i++) {
+            List<LogInfo> logs = results.get(i).getLogs();
+            if (logs.isEmpty()) {
+                continue;
+            }
+
+            if (rangeBloom == null) {
+                byte[] bytes = batch.get(Bytes.merge(TYPE_LOG_BLOOM_BY_RANGE, Bytes.of(number / RANGE_SIZE)));
+                rangeBloom = bytes == null ? new LogBloom(RANGE_BLOOM_SIZE) : LogBloom.fromBytes(bytes);
+            }
+            transactions.add(i);
+
+            for (LogInfo log : logs) {
+                blockBloom.add(log.getAddress());
+                rangeBloom.add(log.getAddress());
+                addresses.computeIfAbsent(ByteArray.of(log.getAddress()), k -> new LinkedHashSet<>()).add(i);
+
+                for (DataWord topic : log.getTopics()) {
+                    blockBloom.add(topic.getData());
+                    rangeBloom.add(topic.getData());
+                    topics.computeIfAbsent(ByteArray.of(topic.getData()), k -> new LinkedHashSet<>()).add(i);
+                }
+            }
+        }
+
+        if (transactions.isEmpty()) {
+            return false;
+        }
+
+        SimpleEncoder enc = new SimpleEncoder();
+        enc.writeBytes(blockBloom.toBytes());
+        enc.writeBytes(encodeIndices(transactions));
+        batch.put(Bytes.merge(TYPE_LOG_BLOOM_BY_NUMBER, Bytes.of(number)), enc.toBytes());
+        batch.put(Bytes.merge(TYPE_LOG_BLOOM_BY_RANGE, Bytes.of(number / RANGE_SIZE)), rangeBloom.toBytes());
+
+        for (Entry<ByteArray, Set<Integer>> e : addresses.entrySet()) {
+            batch.put(Bytes.merge(Bytes.of(TYPE_LOG_BLOCKS_BY_ADDRESS), e.getKey().getData(), Bytes.of(number)),
+                    encodeIndices(e.getValue()));
+        }
+        for (Entry<ByteArray, Set<Integer>> e : topics.entrySet()) {
+            batch.put(Bytes.merge(Bytes.of(TYPE_LOG_BLOCKS_BY_TOPIC), e.getKey().getData(), Bytes.of(number)),
+                    encodeIndices(e.getValue()));
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the logs of a block range that match an address and topics, up to
+     * the end of the block in which the limit is reached.
+     *
+     * @param fromBlock
+     *            the first block, inclusive
+     * @param toBlock
+     *            the last block, inclusive
+     * @param address
+     *            the contract address, or null for any
+     * @param topics
+     *            the topics by position, where null matches any
+     * @param limit
+     *            the number of logs after which the scan stops
+     * @return
+     */
+    List<ContractLog> getLogs(long fromBlock, long toBlock, byte[] address, List<byte[]> topics, int limit) {
+        List<ContractLog> logs = new ArrayList<>();
+
+        // every criterion must be in the blooms of a matching block
+        List<byte[]> items = new ArrayList<>();
+        if (address != null) {
+            items.add(address);
+        }
+        for (byte[] topic : topics) {
+            if (topic != null) {
+                items.add(topic);
+            }
+        }
+
+        // walk the posting list of one criterion, or all blocks with logs
+        byte[] prefix = address != null ? Bytes.merge(TYPE_LOG_BLOCKS_BY_ADDRESS, address)
+                : items.isEmpty() ? Bytes.of(TYPE_LOG_BLOOM_BY_NUMBER)
+                        : Bytes.merge(TYPE_LOG_BLOCKS_BY_TOPIC, items.get(0));
+        boolean postings = !items.isEmpty();
+
+        long next = fromBlock;
+        long range = -1;
+        scan: while (next <= toBlock) {
+            ClosableIterator<Entry<byte[], byte[]>> itr = indexDB.iterator(Bytes.merge(prefix, Bytes.of(next)));
+            try {
+                while (itr.hasNext()) {
+                    Entry<byte[], byte[]> e = itr.next();
+                    byte[] key = e.getKey();
+                    if (key.length != prefix.length + 8
+                            || !Arrays.equals(prefix, Arrays.copyOf(key, prefix.length))) {
+                        break;
+                    }
+                    long number = Bytes.toLong(Arrays.copyOfRange(key, prefix.length, key.length));
+                    if (number > toBlock) {
+                        break;
+                    }
+
+                    // skip the ranges ruled out by their bloom
+                    if (items.size() > 1 && number / RANGE_SIZE != range) {
+                        range = number / RANGE_SIZE;
+                        byte[] bytes = indexDB.get(Bytes.merge(TYPE_LOG_BLOOM_BY_RANGE, Bytes.of(range)));
+                        if (bytes == null || !mightContainAll(LogBloom.fromBytes(bytes), items)) {
+                            next = (range + 1) * RANGE_SIZE;
+                            continue scan;
+                        }
+                    }
+
+                    List<Integer> transactions;
+                    if (postings) {
+                        // skip the blocks ruled out by their bloom
+                        if (items.size() > 1 && !mightContainAll(getBlockBloom(number), items)) {
+                            continue;
+                        }
+                        transactions = decodeIndices(e.getValue());
+                    } else {
+                        SimpleDecoder dec = new SimpleDecoder(e.getValue());
+                        dec.readBytes();
+                        transactions = decodeIndices(dec.readBytes());
+                    }
+
+                    for (int i : transactions) {
+                        addMatchingLogs(logs, number, i, address, topics);
+                    }
+                    if (logs.size() >= limit) {
+                        break;
+                    }
+                }
+                break;
+            } finally {
+                itr.close();
+            }
+        }
+
+        return logs;
+    }
+
+    private void addMatchingLogs(List<ContractLog> logs, long number, int i, byte[] address, List<byte[]> topics) {
+        byte[] bytes = blockDB.get(getBlockEntryKey(TYPE_BLOCK_RESULT_BY_NUMBER_AND_INDEX, number, i));
+        List<LogInfo> list = TransactionResult.fromBytes(bytes).getLogs();
+
+        byte[] hash = null;
+        for (int j = 0; j < list.size(); j++) {
+            LogInfo log = list.get(j);
+            if (matches(log, address, topics)) {
+                if (hash == null) {
+                    // the transaction record starts with the hash
+                    byte[] tx = blockDB.get(getBlockEntryKey(TYPE_BLOCK_TRANSACTION_BY_NUMBER_AND_INDEX, number, i));
+                    hash = new SimpleDecoder(tx).readBytes();
+                }
+                logs.add(new ContractLog(number, i, hash, j, log));
+            }
+        }
+    }
+
+    private LogBloom getBlockBloom(long number) {
+        byte[] bytes = indexDB.get(Bytes.merge(TYPE_LOG_BLOOM_BY_NUMBER, Bytes.of(number)));
+        return LogBloom.fromBytes(new SimpleDecoder(bytes).readBytes());
+    }
+
+    private static boolean mightContainAll(LogBloom bloom, List<byte[]> items) {
+        for (byte[] item : items) {
+            if (!bloom.mightContain(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(LogInfo log, byte[] address, List<byte[]> topics) {
+        if (address != null && !Arrays.equals(address, log.getAddress())) {
+            return false;
+        }
+        for (int k = 0; k < topics.size(); k++) {
+            byte[] topic = topics.get(k);
+            if (topic != null && (k >= log.getTopics().size()
+                    || !Arrays.equals(topic, log.getTopics().get(k).getData()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] encodeIndices(Iterable<Integer> indices) {
+        SimpleEncoder enc = new SimpleEncoder();
+        for (int i : indices) {
+            enc.writeInt(i);
+        }
+        return enc.toBytes();
+    }
+
+    private static List<Integer> decodeIndices(byte[] bytes) {
+        List<Integer> indices = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += 4) {
+            indices.add(Bytes.toInt(Arrays.copyOfRange(bytes, offset, offset + 4)));
+        }
+        return indices;
+    }
+}
@@ -7,7 +7,9 @@
 package org.semux.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -18,12 +20,17 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.ethereum.vm.client.BlockStore;
 import org.semux.Kernel;
+import org.semux.core.state.Account;
 import org.semux.core.state.AccountState;
 import org.semux.core.state.DelegateState;
+import org.semux.crypto.cache.SignatureCache;
 import org.semux.net.Channel;
+import org.semux.net.EncodedMessage;
 import org.semux.net.msg.p2p.TransactionMessage;
 import org.semux.util.ByteArray;
 import org.semux.util.Bytes;
@@ -45,7 +52,18 @@ import com.github.benmanes.caffeine.cache.Caffeine;
  * transactions included by the pending manager are eligible for inclusion in
  * block proposing phase.
  *
- * TODO: sort transaction queue by fee, and other metrics
+ * Valid transactions are kept in a {@link TransactionPool}, which orders them
+ * by price while keeping each sender's transactions in nonce order. A
+ * transaction may replace a pending one of the same sender and nonce if it
+ * pays at least {@link #REPLACEMENT_PRICE_BUMP} percent more, and low-priced
+ * transactions are evicted when the pool is full.
+ * <p>
+ * Replacements, evictions and new blocks invalidate the pending state. Rather
+ * than re-executing the pool for each of them, the pool is marked dirty and
+ * rebuilt once by the background worker, or when its state is next read.
+ * <p>
+ * Transactions from the network are admitted to the queue after cheap checks
+ * only, and each peer may hold at most {@link #PEER_QUEUE_LIMIT} of them.
  */
 public class PendingManager implements Runnable, BlockchainListener {
 
@@ -64,9 +82,19 @@ public class PendingManager implements Runnable, BlockchainListener {
     public static final long ALLOWED_TIME_DRIFT = TimeUnit.HOURS.toMillis(2);
 
     private static final int QUEUE_SIZE_LIMIT = 128 * 1024;
+    private static final int PEER_QUEUE_LIMIT = QUEUE_SIZE_LIMIT / 16;
+    private static final int MAX_INGEST_BATCH_FACTOR = 4;
     private static final int VALID_TXS_LIMIT = 16 * 1024;
+    private static final int EVICTION_BATCH_SIZE = VALID_TXS_LIMIT / 16;
     private static final int LARGE_NONCE_TXS_LIMIT = 32 * 1024;
     private static final int PROCESSED_TXS_LIMIT = 128 * 1024;
+    private static final long INGEST_METRICS_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * The min price increase, in percent, for a transaction to replace a pending
+     * one with the same sender and nonce.
+     */
+    public static final int REPLACEMENT_PRICE_BUMP = 10;
 
     private final Kernel kernel;
     private final BlockStore blockStore;
@@ -75,10 +103,13 @@ public class PendingManager implements Runnable, BlockchainListener {
     private SemuxBlock dummyBlock;
 
     // Transactions that haven't been processed
-    private final LinkedHashMap<ByteArray, Transaction> queue = new LinkedHashMap<>();
+    private final LinkedHashMap<ByteArray, QueuedTransaction> queue = new LinkedHashMap<>();
+
+    // The number of queued transactions by peer IP address
+    private final Map<String, Integer> queuedByPeer = new HashMap<>();
 
     // Transactions that have been processed and are valid for block production
-    private final ArrayList<PendingTransaction> validTxs = new ArrayList<>();
+    private final TransactionPool validTxs;
 
     // Transactions whose nonce is too large, compared to the sender's nonce
     private final Cache<ByteArray, Transaction> largeNonceTxs = Caffeine.newBuilder().maximumSize(LARGE_NONCE_TXS_LIMIT)
@@ -91,8 +122,23 @@ public class PendingManager implements Runnable, BlockchainListener {
 
     private ScheduledFuture<?> validateFuture;
 
+    // Whether the pending state needs to be rebuilt from the pool
+    private boolean dirty = false;
+
+    // Replacements made since the last rebuild, by the replacing transaction hash
+    private final LinkedHashMap<ByteArray, Replacement> replacements = new LinkedHashMap<>();
+
     private volatile boolean isRunning;
 
+    // Ingest metrics, since the last report
+    private long ingestSince = TimeUtil.currentTimeMillis();
+    private long ingestProcessed = 0;
+    private long ingestAccepted = 0;
+    private long ingestLatency = 0;
+    private long ingestMaxLatency = 0;
+    private long ingestRejected = 0;
+    private long ingestDropped = 0;
+
     /**
      * Creates a pending manager.
      */
@@ -103,6 +149,7 @@ public class PendingManager implements Runnable, BlockchainListener {
         this.pendingAS = kernel.getBlockchain().getAccountState().track();
         this.pendingDS = kernel.getBlockchain().getDelegateState().track();
         this.dummyBlock = kernel.createEmptyBlock();
+        this.validTxs = new TransactionPool(VALID_TXS_LIMIT, kernel.getConfig().spec().nonVMTransactionGasCost());
 
         this.exec = Executors.newSingleThreadScheduledExecutor(factory);
     }
@@ -115,7 +162,8 @@ public class PendingManager implements Runnable, BlockchainListener {
             /*
              * NOTE: a rate smaller than the message queue sending rate should be used to
              * prevent message queues from hitting the NET_MAX_QUEUE_SIZE, especially when
-             * the network load is heavy.
+             * the network load is heavy. Each run relays at most one ingest batch, see
+             * Config#poolIngestBatchSize().
              */
             this.validateFuture = exec.scheduleAtFixedRate(this, 2, 2, TimeUnit.MILLISECONDS);
 
@@ -153,23 +201,70 @@ public class PendingManager implements Runnable, BlockchainListener {
      * @return
      */
     public synchronized List<Transaction> getQueue() {
-        return new ArrayList<>(queue.values());
+        return queue.values().stream().map(q -> q.tx).collect(Collectors.toList());
     }
 
     /**
      * Adds a transaction to the queue, which will be validated later by the
      * background worker. Transaction may get rejected if the queue is full.
+     * <p>
+     * Signatures are verified in batches by the background worker.
      *
      * @param tx
      */
-    public synchronized void addTransaction(Transaction tx) {
+    public void addTransaction(Transaction tx) {
+        addTransaction(tx, null);
+    }
+
+    /**
+     * Adds a transaction received from a peer to the queue. Transaction may get
+     * rejected if the queue is full, if the peer has too many queued
+     * transactions, or if the sender can't pay for it.
+     *
+     * @param tx
+     * @param peer
+     *            the IP address of the peer, or null if not from the network
+     */
+    public synchronized void addTransaction(Transaction tx, String peer) {
         ByteArray hash = ByteArray.of(tx.getHash());
+        if (queue.size() >= QUEUE_SIZE_LIMIT || queue.containsKey(hash) || processedTxs.getIfPresent(hash) != null) {
+            return;
+        }
+
+        if ((peer != null && queuedByPeer.getOrDefault(peer, 0) >= PEER_QUEUE_LIMIT)
+                || !tx.validate(kernel.getConfig().network(), false)
+                || !isAdmissible(tx)) {
+            ingestRejected++;
+            return;
+        }
 
-        if (queue.size() < QUEUE_SIZE_LIMIT
-                && processedTxs.getIfPresent(hash) == null
-                && tx.validate(kernel.getConfig().network())) {
-            // NOTE: re-insertion doesn't affect item order
-            queue.put(ByteArray.of(tx.getHash()), tx);
+        queue.put(hash, new QueuedTransaction(tx, TimeUtil.currentTimeMillis(), peer));
+        if (peer != null) {
+            queuedByPeer.merge(peer, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Checks a transaction against the pending state, before its signature is
+     * verified: the sender must be able to pay the fee, and a nonce already used
+     * must be that of a pending transaction it may replace.
+     *
+     * @param tx
+     * @return
+     */
+    private boolean isAdmissible(Transaction tx) {
+        Account acc = pendingAS.getAccount(tx.getFrom());
+
+        // the pending nonce is ahead of the chain until the pool is rebuilt
+        if (!dirty && tx.getNonce() < acc.getNonce() && validTxs.get(tx.getFrom(), tx.getNonce()) == null) {
+            return false;
+        }
+
+        try {
+            Amount cost = tx.isVMTransaction() ? tx.getGasPrice().multiply(tx.getGas()) : tx.getFee();
+            return acc.getAvailable().greaterThanOrEqual(cost);
+        } catch (ArithmeticException e) {
+            return false;
         }
     }
 
@@ -181,14 +276,25 @@ public class PendingManager implements Runnable, BlockchainListener {
      * @return The processing result
      */
     public synchronized ProcessingResult addTransactionSync(Transaction tx) {
-        // nonce check for transactions from this client
-        if (tx.getNonce() != getNonce(tx.getFrom())) {
+        // nonce check for transactions from this client, which may replace a
+        // pending transaction
+        if (tx.getNonce() != getNonce(tx.getFrom()) && validTxs.get(tx.getFrom(), tx.getNonce()) == null) {
             return new ProcessingResult(0, TransactionResult.Code.INVALID_NONCE);
         }
 
         if (tx.validate(kernel.getConfig().network())) {
             // proceed with the tx, ignoring transaction queue size limit
-            return processTransaction(tx, false, true);
+            ProcessingResult result = processTransaction(tx, false, true);
+
+            // report a replacement which fails once the pool is re-executed
+            if (dirty) {
+                rebuild();
+                PendingTransaction p = validTxs.get(tx.getFrom(), tx.getNonce());
+                if (result.accepted > 0 && (p == null || p.transaction != tx)) {
+                    return new ProcessingResult(0, TransactionResult.Code.INVALID);
+                }
+            }
+            return result;
         } else {
             return new ProcessingResult(0, TransactionResult.Code.INVALID_FORMAT);
         }
@@ -201,31 +307,23 @@ public class PendingManager implements Runnable, BlockchainListener {
      * @return
      */
     public synchronized long getNonce(byte[] address) {
+        rebuild();
+        return getPendingNonce(address);
+    }
+
+    private long getPendingNonce(byte[] address) {
         return pendingAS.getAccount(address).getNonce();
     }
 
     /**
-     * Returns pending transactions, limited by the given total size in bytes.
-     *
+     * Returns the most valuable pending transactions, limited by the given total
+     * gas. Transactions of the same sender are returned in nonce order.
      *
      * @return
      */
     public synchronized List<PendingTransaction> getPendingTransactions(long blockGasLimit) {
-        List<PendingTransaction> txs = new ArrayList<>();
-        Iterator<PendingTransaction> it = validTxs.iterator();
-
-        while (it.hasNext() && blockGasLimit > 0) {
-            PendingTransaction tx = it.next();
-
-            long gasUsage = tx.transaction.isVMTransaction() ? tx.result.getGasUsed()
-                    : kernel.getConfig().spec().nonVMTransactionGasCost();
-            if (blockGasLimit > gasUsage) {
-                txs.add(tx);
-                blockGasLimit -= gasUsage;
-            }
-        }
-
-        return txs;
+        rebuild();
+        return validTxs.getBlockTemplate(blockGasLimit);
     }
 
     /**
@@ -249,7 +347,7 @@ public class PendingManager implements Runnable, BlockchainListener {
         dummyBlock = kernel.createEmptyBlock();
 
         // clear transaction pool
-        List<PendingTransaction> txs = new ArrayList<>(validTxs);
+        List<PendingTransaction> txs = validTxs.getAll();
         validTxs.clear();
 
         return txs;
@@ -257,46 +355,193 @@ public class PendingManager implements Runnable, BlockchainListener {
 
     @Override
     public synchronized void onBlockAdded(Block block) {
+        // the pool is rebuilt off the thread which adds blocks
         if (isRunning) {
-            long t1 = TimeUtil.currentTimeMillis();
-
-            // clear transaction pool
-            List<PendingTransaction> txs = reset();
+            dirty = true;
+        }
+    }
 
-            // update pending state
-            long accepted = 0;
-            for (PendingTransaction tx : txs) {
-                accepted += processTransaction(tx.transaction, true, false).accepted;
+    /**
+     * Rebuilds the pending state if it has been invalidated, then broadcasts the
+     * replacements which are still in the pool and restores the transactions of
+     * those which are not.
+     */
+    private void rebuild() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        reprocess();
+
+        List<Replacement> list = new ArrayList<>(replacements.values());
+        replacements.clear();
+        for (Replacement r : list) {
+            PendingTransaction current = validTxs.get(r.tx.getFrom(), r.tx.getNonce());
+            if (current != null && current.transaction == r.tx) {
+                broadcastTransaction(r.tx, r.isFromThisNode);
+            } else if (current == null) {
+                // the following ones are picked up from the large-nonce cache
+                processTransaction(r.old, true, false);
             }
+        }
+    }
 
-            long t2 = TimeUtil.currentTimeMillis();
-            logger.debug("Execute pending transactions: # txs = {} / {},  time = {} ms", accepted, txs.size(), t2 - t1);
+    /**
+     * Rebuilds the pending state by re-executing all pending transactions, in
+     * their execution order.
+     */
+    private void reprocess() {
+        long t1 = TimeUtil.currentTimeMillis();
+
+        // clear transaction pool
+        List<PendingTransaction> txs = reset();
+
+        // update pending state
+        long accepted = 0;
+        for (PendingTransaction tx : txs) {
+            accepted += processTransaction(tx.transaction, true, false).accepted;
         }
+
+        long t2 = TimeUtil.currentTimeMillis();
+        logger.debug("Execute pending transactions: # txs = {} / {},  time = {} ms", accepted, txs.size(), t2 - t1);
     }
 
     @Override
-    public synchronized void run() {
-        Iterator<Map.Entry<ByteArray, Transaction>> iterator = queue.entrySet().iterator();
+    public void run() {
+        List<QueuedTransaction> batch = takeBatch();
+        if (batch.isEmpty()) {
+            synchronized (this) {
+                rebuild();
+            }
+            return;
+        }
+
+        // verify signatures outside of the lock, so that new transactions can be
+        // queued in the meantime
+        boolean[] verified = verifySignatures(batch);
+
+        synchronized (this) {
+            // execute against the latest block
+            rebuild();
+
+            long now = TimeUtil.currentTimeMillis();
+            int accepted = 0;
+
+            for (int i = 0; i < batch.size(); i++) {
+                QueuedTransaction q = batch.get(i);
+                ByteArray hash = ByteArray.of(q.tx.getHash());
 
-        while (validTxs.size() < VALID_TXS_LIMIT && iterator.hasNext()) {
+                // reject already executed transactions
+                if (processedTxs.getIfPresent(hash) != null) {
+                    continue;
+                }
+
+                // process the transaction
+                if (verified[i]) {
+                    accepted += processTransaction(q.tx, false, false).accepted;
+                }
+                processedTxs.put(hash, now);
+                ingestLatency += now - q.queuedAt;
+                ingestMaxLatency = Math.max(ingestMaxLatency, now - q.queuedAt);
+            }
+
+            // re-execute the pool once for the replacements and evictions
+            rebuild();
+
+            ingestProcessed += batch.size();
+            ingestAccepted += accepted;
+            if (now - ingestSince >= INGEST_METRICS_INTERVAL) {
+                logIngestMetrics(now);
+            }
+        }
+    }
+
+    /**
+     * Takes the eldest transactions from the queue, up to the batch size. Under
+     * light load this drains the whole queue.
+     * <p>
+     * When the pool is full, transactions which pay no more than the cheapest
+     * pending one can't displace anything and are dropped.
+     *
+     * @return
+     */
+    private synchronized List<QueuedTransaction> takeBatch() {
+        int limit = Math.min(queue.size(), getBatchSize());
+        List<QueuedTransaction> batch = new ArrayList<>(limit);
+
+        Iterator<QueuedTransaction> iterator = queue.values().iterator();
+        while (batch.size() < limit && iterator.hasNext()) {
             // the eldest entry
-            Map.Entry<ByteArray, Transaction> entry = iterator.next();
+            QueuedTransaction q = iterator.next();
             iterator.remove();
+            if (q.peer != null) {
+                queuedByPeer.computeIfPresent(q.peer, (k, v) -> v > 1 ? v - 1 : null);
+            }
 
-            // reject already executed transactions
-            if (processedTxs.getIfPresent(entry.getKey()) != null) {
+            // drop it if the pool is full of better-paying transactions
+            if (validTxs.isFull() && validTxs.getPrice(q.tx) <= validTxs.getLowestPrice()) {
+                ingestDropped++;
                 continue;
             }
 
-            // process the transaction
-            int accepted = processTransaction(entry.getValue(), false, false).accepted;
-            processedTxs.put(entry.getKey(), TimeUtil.currentTimeMillis());
+            batch.add(q);
+        }
 
-            // include one tx per call
-            if (accepted > 0) {
-                break;
-            }
+        return batch;
+    }
+
+    /**
+     * Returns the number of transactions to take at a time: the configured batch
+     * size, grown with the queue depth so that a backlog is verified and executed
+     * in fewer, larger batches.
+     *
+     * @return
+     */
+    private int getBatchSize() {
+        int base = Math.max(1, kernel.getConfig().poolIngestBatchSize());
+        return Math.min(Math.max(base, queue.size() / 8), base * MAX_INGEST_BATCH_FACTOR);
+    }
+
+    /**
+     * Verifies the signatures of the given transactions, in one native batch if
+     * available and skipping those verified before.
+     *
+     * @param batch
+     * @return whether each signature is valid
+     */
+    private static boolean[] verifySignatures(List<QueuedTransaction> batch) {
+        boolean[] verified = new boolean[batch.size()];
+
+        if (SignatureCache.verifyAll(
+                batch.stream().map(q -> q.tx.getHash()).collect(Collectors.toList()),
+                batch.stream().map(q -> q.tx.getSignature()).collect(Collectors.toList()))) {
+            Arrays.fill(verified, true);
+        } else {
+            // verify one by one, either unsupported or to find out the invalid ones
+            IntStream.range(0, batch.size()).parallel().forEach(i -> {
+                Transaction tx = batch.get(i).tx;
+                verified[i] = SignatureCache.verify(tx.getHash(), tx.getSignature());
+            });
         }
+
+        return verified;
+    }
+
+    private void logIngestMetrics(long now) {
+        long elapsed = Math.max(1, now - ingestSince);
+        logger.debug("Transaction ingest: rate = {} tx/s, accepted = {}, rejected = {}, dropped = {}, "
+                + "queue latency (avg/max) = {}/{} ms, queue size = {}, batch size = {}",
+                ingestProcessed * 1000 / elapsed, ingestAccepted, ingestRejected, ingestDropped,
+                ingestProcessed == 0 ? 0 : ingestLatency / ingestProcessed, ingestMaxLatency, queue.size(),
+                getBatchSize());
+
+        ingestSince = now;
+        ingestProcessed = 0;
+        ingestAccepted = 0;
+        ingestLatency = 0;
+        ingestMaxLatency = 0;
+        ingestRejected = 0;
+        ingestDropped = 0;
     }
 
     /**
@@ -338,15 +583,28 @@ public class PendingManager implements Runnable, BlockchainListener {
         }
 
         // report INVALID_NONCE error to prevent the transaction from being
-        // silently ignored due to a low nonce
-        if (tx.getNonce() < getNonce(tx.getFrom())) {
-            return new ProcessingResult(0, TransactionResult.Code.INVALID_NONCE);
+        // silently ignored due to a low nonce, unless it replaces a pending
+        // transaction with a higher price
+        if (tx.getNonce() < getPendingNonce(tx.getFrom())) {
+            return replaceTransaction(tx, isFromThisNode);
         }
 
         // Check transaction nonce: pending transactions must be executed sequentially
         // by nonce in ascending order. In case of a nonce jump, the transaction is
         // delayed for the next event loop of PendingManager.
-        while (tx != null && tx.getNonce() == getNonce(tx.getFrom())) {
+        while (tx != null && tx.getNonce() == getPendingNonce(tx.getFrom())) {
+
+            // make room by evicting transactions with a lower price
+            if (validTxs.isFull()) {
+                List<PendingTransaction> evicted = validTxs.evict(EVICTION_BATCH_SIZE, validTxs.getPrice(tx),
+                        tx.getFrom());
+                if (evicted.isEmpty()) {
+                    return new ProcessingResult(cnt, TransactionResult.Code.INVALID_FEE);
+                }
+                logger.debug("Evicted {} pending transactions", evicted.size());
+                dirty = true;
+                continue;
+            }
 
             // execute transactions
             AccountState as = pendingAS.track();
@@ -376,20 +634,51 @@ public class PendingManager implements Runnable, BlockchainListener {
                 return new ProcessingResult(cnt, result.getCode());
             }
 
-            tx = largeNonceTxs.getIfPresent(createKey(tx.getFrom(), getNonce(tx.getFrom())));
+            tx = largeNonceTxs.getIfPresent(createKey(tx.getFrom(), getPendingNonce(tx.getFrom())));
             isIncludedBefore = false; // A large-nonce transaction is not included before
         }
 
         // Delay the transaction for the next event loop of PendingManager. The delayed
         // transaction is expected to be processed once PendingManager has received
         // all of its preceding transactions from the same address.
-        if (tx != null && tx.getNonce() > getNonce(tx.getFrom())) {
+        if (tx != null && tx.getNonce() > getPendingNonce(tx.getFrom())) {
             largeNonceTxs.put(createKey(tx), tx);
         }
 
         return new ProcessingResult(cnt);
     }
 
+    /**
+     * Replaces a pending transaction of the same sender and nonce, if the given
+     * transaction pays enough more.
+     *
+     * @param tx
+     * @param isFromThisNode
+     * @return
+     */
+    private ProcessingResult replaceTransaction(Transaction tx, boolean isFromThisNode) {
+        PendingTransaction old = validTxs.get(tx.getFrom(), tx.getNonce());
+        if (old == null) {
+            return new ProcessingResult(0, TransactionResult.Code.INVALID_NONCE);
+        }
+
+        long oldPrice = validTxs.getPrice(old.transaction);
+        long newPrice = validTxs.getPrice(tx);
+        if (newPrice <= oldPrice || newPrice < oldPrice + oldPrice * REPLACEMENT_PRICE_BUMP / 100) {
+            return new ProcessingResult(0, TransactionResult.Code.INVALID_NONCE);
+        }
+
+        // put the replacement in place of the old transaction; it's executed, and
+        // broadcast if still valid, when the pool is rebuilt
+        validTxs.replace(new PendingTransaction(tx, old.result));
+        replacements.put(ByteArray.of(tx.getHash()), new Replacement(tx, old.transaction, isFromThisNode));
+        dirty = true;
+
+        logger.debug("Replaced pending transaction: nonce = {}, price = {} -> {}", tx.getNonce(), oldPrice,
+                newPrice);
+        return new ProcessingResult(1);
+    }
+
     private void broadcastTransaction(Transaction tx, boolean toAllPeers) {
         List<Channel> channels = kernel.getChannelManager().getActiveChannels();
 
@@ -400,12 +689,19 @@ public class PendingManager implements Runnable, BlockchainListener {
             channels = channels.subList(0, n);
         }
 
-        // Send the message
-        TransactionMessage msg = new TransactionMessage(tx);
-        for (Channel c : channels) {
-            if (c.isActive()) {
-                c.getMessageQueue().sendMessage(msg);
+        // Send the message, encoded once for all channels
+        EncodedMessage msg = EncodedMessage.of(kernel.getConfig(), new TransactionMessage(tx));
+        if (msg == null) {
+            return;
+        }
+        try {
+            for (Channel c : channels) {
+                if (c.isActive()) {
+                    c.getMessageQueue().sendMessage(msg);
+                }
             }
+        } finally {
+            msg.release();
         }
     }
 
@@ -417,6 +713,42 @@ public class PendingManager implements Runnable, BlockchainListener {
         return ByteArray.of(Bytes.merge(acc, Bytes.of(nonce)));
     }
 
+    /**
+     * A transaction waiting in the queue, and the time it was queued.
+     */
+    private static class QueuedTransaction {
+
+        final Transaction tx;
+
+        final long queuedAt;
+
+        final String peer;
+
+        QueuedTransaction(Transaction tx, long queuedAt, String peer) {
+            this.tx = tx;
+            this.queuedAt = queuedAt;
+            this.peer = peer;
+        }
+    }
+
+    /**
+     * A replacement waiting for the pool to be rebuilt.
+     */
+    private static class Replacement {
+
+        final Transaction tx;
+
+        final Transaction old;
+
+        final boolean isFromThisNode;
+
+        Replacement(Transaction tx, Transaction old, boolean isFromThisNode) {
+            this.tx = tx;
+            this.old = old;
+            this.isFromThisNode = isFromThisNode;
+        }
+    }
+
     /**
      * This object represents a transaction and its execution result against a
      * snapshot of local state that is not yet confirmed by the network.
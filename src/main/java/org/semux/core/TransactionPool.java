@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.semux.core.PendingManager.PendingTransaction;
+import org.semux.util.ByteArray;
+import org.semux.util.Bytes;
+
+/**
+ * The pool of pending transactions which are valid for block production.
+ * <p>
+ * Transactions are kept in three views:
+ * <ul>
+ * <li>in execution order, which is the order they have been applied to the
+ * pending state;</li>
+ * <li>per sender, ordered by nonce;</li>
+ * <li>by priority, which is the price paid per unit of gas.</li>
+ * </ul>
+ * Block templates are built by picking the highest-priority transaction among
+ * the lowest pending nonce of each sender, and the pool makes room by evicting
+ * the lowest-priority last transaction of a sender.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class TransactionPool {
+
+    /**
+     * Highest price first, then earliest arrival.
+     */
+    private static final Comparator<Entry> HIGHEST_FIRST = Comparator.<Entry>comparingLong(e -> e.price)
+            .reversed()
+            .thenComparingLong(e -> e.seq);
+
+    private static final Comparator<Entry> LOWEST_FIRST = HIGHEST_FIRST.reversed();
+
+    private final int capacity;
+    private final long nonVMTransactionGasCost;
+
+    private long seq = 0;
+
+    // All transactions by [sender, nonce], in execution order
+    private final LinkedHashMap<ByteArray, Entry> entries = new LinkedHashMap<>();
+
+    // Transactions of each sender, by nonce
+    private final Map<ByteArray, TreeMap<Long, Entry>> senders = new HashMap<>();
+
+    // The transaction with the highest nonce of each sender
+    private final TreeSet<Entry> tails = new TreeSet<>(LOWEST_FIRST);
+
+    /**
+     * Creates a transaction pool.
+     *
+     * @param capacity
+     *            the max number of transactions
+     * @param nonVMTransactionGasCost
+     *            the gas cost of a non-VM transaction
+     */
+    public TransactionPool(int capacity, long nonVMTransactionGasCost) {
+        this.capacity = capacity;
+        this.nonVMTransactionGasCost = nonVMTransactionGasCost;
+    }
+
+    /**
+     * Returns the price of a transaction, in nanoSEM per unit of gas.
+     *
+     * @param tx
+     * @return
+     */
+    public long getPrice(Transaction tx) {
+        return tx.isVMTransaction()
+                ? tx.getGasPrice().toLong()
+                : tx.getFee().toLong() / nonVMTransactionGasCost;
+    }
+
+    /**
+     * Returns the number of transactions in this pool.
+     *
+     * @return
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns whether this pool has reached its capacity.
+     *
+     * @return
+     */
+    public boolean isFull() {
+        return entries.size() >= capacity;
+    }
+
+    /**
+     * Returns the lowest price among the evictable transactions, or -1 if the
+     * pool is empty.
+     *
+     * @return
+     */
+    public long getLowestPrice() {
+        return tails.isEmpty() ? -1 : tails.first().price;
+    }
+
+    /**
+     * Returns the transaction of a sender with the given nonce.
+     *
+     * @param sender
+     * @param nonce
+     * @return the transaction, or null if not in pool
+     */
+    public PendingTransaction get(byte[] sender, long nonce) {
+        Entry e = entries.get(createKey(sender, nonce));
+        return e == null ? null : e.tx;
+    }
+
+    /**
+     * Adds a transaction, which must have been applied to the pending state
+     * after all transactions in this pool.
+     *
+     * @param tx
+     */
+    public void add(PendingTransaction tx) {
+        Entry e = new Entry(tx, getPrice(tx.transaction), seq++);
+        entries.put(e.key, e);
+
+        TreeMap<Long, Entry> nonces = senders.computeIfAbsent(e.sender, k -> new TreeMap<>());
+        if (!nonces.isEmpty()) {
+            tails.remove(nonces.lastEntry().getValue());
+        }
+        nonces.put(e.nonce, e);
+        tails.add(nonces.lastEntry().getValue());
+    }
+
+    /**
+     * Replaces the transaction of the same sender and nonce, keeping its position
+     * in the execution order.
+     *
+     * @param tx
+     * @return the replaced transaction, or null if there was none
+     */
+    public PendingTransaction replace(PendingTransaction tx) {
+        Entry e = new Entry(tx, getPrice(tx.transaction), seq++);
+        Entry old = entries.get(e.key);
+        if (old == null) {
+            return null;
+        }
+        entries.put(e.key, e);
+
+        TreeMap<Long, Entry> nonces = senders.get(e.sender);
+        if (tails.remove(old)) {
+            tails.add(e);
+        }
+        nonces.put(e.nonce, e);
+
+        return old.tx;
+    }
+
+    /**
+     * Evicts the lowest-priority transactions, taking them from the end of each
+     * sender's nonce sequence.
+     *
+     * @param limit
+     *            the max number of transactions to evict
+     * @param price
+     *            only transactions with a lower price are evicted
+     * @param excludedSender
+     *            a sender whose transactions are never evicted
+     * @return the evicted transactions
+     */
+    public List<PendingTransaction> evict(int limit, long price, byte[] excludedSender) {
+        List<PendingTransaction> evicted = new ArrayList<>();
+        List<Entry> skipped = new ArrayList<>();
+        ByteArray excluded = ByteArray.of(excludedSender);
+
+        while (evicted.size() < limit && !tails.isEmpty() && tails.first().price < price) {
+            Entry e = tails.pollFirst();
+            if (e.sender.equals(excluded)) {
+                skipped.add(e);
+                continue;
+            }
+
+            entries.remove(e.key);
+            TreeMap<Long, Entry> nonces = senders.get(e.sender);
+            nonces.remove(e.nonce);
+            if (nonces.isEmpty()) {
+                senders.remove(e.sender);
+            } else {
+                tails.add(nonces.lastEntry().getValue());
+            }
+            evicted.add(e.tx);
+        }
+        tails.addAll(skipped);
+
+        return evicted;
+    }
+
+    /**
+     * Returns all transactions, in execution order.
+     *
+     * @return
+     */
+    public List<PendingTransaction> getAll() {
+        List<PendingTransaction> list = new ArrayList<>(entries.size());
+        for (Entry e : entries.values()) {
+            list.add(e.tx);
+        }
+        return list;
+    }
+
+    /**
+     * Returns the most valuable transactions that fit in the given gas limit,
+     * highest price first while keeping each sender's transactions in nonce
+     * order.
+     *
+     * @param blockGasLimit
+     * @return
+     */
+    public List<PendingTransaction> getBlockTemplate(long blockGasLimit) {
+        List<PendingTransaction> txs = new ArrayList<>();
+
+        PriorityQueue<Entry> heads = new PriorityQueue<>(Math.max(1, senders.size()), HIGHEST_FIRST);
+        for (TreeMap<Long, Entry> nonces : senders.values()) {
+            heads.add(nonces.firstEntry().getValue());
+        }
+
+        while (!heads.isEmpty() && blockGasLimit > 0) {
+            Entry e = heads.poll();
+
+            long gasUsage = e.tx.transaction.isVMTransaction() ? e.tx.result.getGasUsed()
+                    : nonVMTransactionGasCost;
+            if (blockGasLimit > gasUsage) {
+                txs.add(e.tx);
+                blockGasLimit -= gasUsage;
+
+                // the next nonce of this sender becomes eligible
+                Map.Entry<Long, Entry> next = senders.get(e.sender).higherEntry(e.nonce);
+                if (next != null) {
+                    heads.add(next.getValue());
+                }
+            }
+        }
+
+        return txs;
+    }
+
+    /**
+     * Removes all transactions.
+     */
+    public void clear() {
+        entries.clear();
+        senders.clear();
+        tails.clear();
+    }
+
+    private static ByteArray createKey(byte[] sender, long nonce) {
+        return ByteArray.of(Bytes.merge(sender, Bytes.of(nonce)));
+    }
+
+    private static class Entry {
+        final PendingTransaction tx;
+        final ByteArray key;
+        final ByteArray sender;
+        final long nonce;
+        final long price;
+        final long seq;
+
+        Entry(PendingTransaction tx, long price, long seq) {
+            this.tx = tx;
+            this.sender = ByteArray.of(tx.transaction.getFrom());
+            this.nonce = tx.transaction.getNonce();
+            this.key = createKey(tx.transaction.getFrom(), nonce);
+            this.price = price;
+            this.seq = seq;
+        }
+    }
+}
@@ -14,8 +14,18 @@ public class BlockchainDatabaseUpgradingEvent implements PubSubEvent {
 
     public final Long total;
 
+    /**
+     * The estimated time to completion in milliseconds, or null if unknown.
+     */
+    public final Long eta;
+
     public BlockchainDatabaseUpgradingEvent(Long loaded, Long total) {
+        this(loaded, total, null);
+    }
+
+    public BlockchainDatabaseUpgradingEvent(Long loaded, Long total, Long eta) {
         this.loaded = loaded;
         this.total = total;
+        this.eta = eta;
     }
 }
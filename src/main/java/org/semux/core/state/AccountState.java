@@ -118,7 +118,9 @@ public interface AccountState {
     long setNonce(byte[] address, long nonce);
 
     /**
-     * Clone this AccountState, including all the uncommitted changes.
+     * Clone this AccountState, including all the uncommitted changes. Committing the
+     * clone merges its changes into the state this one is tracking, as committing
+     * this one would.
      */
     AccountState clone();
 }
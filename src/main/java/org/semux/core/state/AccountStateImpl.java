@@ -25,6 +25,11 @@ import org.semux.util.Bytes;
  * [1, address] => [code]
  * [2, address, storage_key] = [storage_value]
  * </pre>
+ *
+ * A track of the database-backed state starts a {@link StateJournal}, which is
+ * shared by all the tracks nested in it. Reads from a track therefore take one
+ * lookup in the journal before falling back to the database-backed state,
+ * however deep the nesting.
  */
 public class AccountStateImpl implements Cloneable, AccountState {
 
@@ -33,12 +38,33 @@ public class AccountStateImpl implements Cloneable, AccountState {
     protected static final byte TYPE_STORAGE = 2;
 
     protected Database accountDB;
+
+    /**
+     * The database-backed state, or null if this is the database-backed state.
+     */
     protected AccountStateImpl prev;
 
     /**
-     * All updates, or deletes if the value is null.
+     * All updates of the database-backed state, or deletes if the value is null.
+     */
+    protected final Map<ByteArray, byte[]> updates;
+
+    /**
+     * The updates of this track and the tracks it's nested in, or null for the
+     * database-backed state.
+     */
+    protected final StateJournal journal;
+
+    /**
+     * The nesting level of this track in the journal.
+     */
+    protected final int level;
+
+    /**
+     * For a clone, the track its bottom track commits into, or null if it
+     * commits into the database-backed state.
      */
-    protected final Map<ByteArray, byte[]> updates = new ConcurrentHashMap<>();
+    protected AccountStateImpl target;
 
     /**
      * Create an {@link AccountState} that work directly on a database.
@@ -47,6 +73,9 @@ public class AccountStateImpl implements Cloneable, AccountState {
      */
     public AccountStateImpl(Database accountDB) {
         this.accountDB = accountDB;
+        this.updates = new ConcurrentHashMap<>();
+        this.journal = null;
+        this.level = 0;
     }
 
     /**
@@ -55,23 +84,42 @@ public class AccountStateImpl implements Cloneable, AccountState {
      * @param prev
      */
     public AccountStateImpl(AccountStateImpl prev) {
+        this.updates = null;
+        if (prev.journal == null) {
+            this.prev = prev;
+            this.journal = new StateJournal(1);
+            this.level = journal.push(this);
+        } else {
+            this.prev = prev.prev;
+            this.journal = prev.journal;
+            synchronized (journal) {
+                journal.enter(prev.level, prev);
+                this.level = journal.push(this);
+            }
+        }
+    }
+
+    /**
+     * Create the bottom track of a clone.
+     *
+     * @param prev
+     *            the database-backed state
+     * @param journal
+     * @param target
+     *            the track to commit into, or null for the database-backed state
+     */
+    private AccountStateImpl(AccountStateImpl prev, StateJournal journal, AccountStateImpl target) {
+        this.updates = null;
         this.prev = prev;
+        this.journal = journal;
+        this.level = journal.push(this);
+        this.target = target;
     }
 
     @Override
     public Account getAccount(byte[] address) {
-        ByteArray k = getKey(TYPE_ACCOUNT, address);
-        Amount noAmount = Amount.ZERO;
-
-        if (updates.containsKey(k)) {
-            byte[] v = updates.get(k);
-            return v == null ? new Account(address, noAmount, noAmount, 0) : Account.fromBytes(address, v);
-        } else if (prev != null) {
-            return prev.getAccount(address);
-        } else {
-            byte[] v = accountDB.get(k.getData());
-            return v == null ? new Account(address, noAmount, noAmount, 0) : Account.fromBytes(address, v);
-        }
+        byte[] v = get(getKey(TYPE_ACCOUNT, address));
+        return v == null ? new Account(address, Amount.ZERO, Amount.ZERO, 0) : Account.fromBytes(address, v);
     }
 
     @Override
@@ -81,7 +129,7 @@ public class AccountStateImpl implements Cloneable, AccountState {
         Account acc = getAccount(address);
         long nonce = acc.getNonce() + 1;
         acc.setNonce(nonce);
-        updates.put(k, acc.toBytes());
+        put(k, acc.toBytes());
         return nonce;
     }
 
@@ -91,7 +139,7 @@ public class AccountStateImpl implements Cloneable, AccountState {
 
         Account acc = getAccount(address);
         acc.setAvailable(acc.getAvailable().add(delta));
-        updates.put(k, acc.toBytes());
+        put(k, acc.toBytes());
     }
 
     @Override
@@ -100,51 +148,32 @@ public class AccountStateImpl implements Cloneable, AccountState {
 
         Account acc = getAccount(address);
         acc.setLocked(acc.getLocked().add(delta));
-        updates.put(k, acc.toBytes());
+        put(k, acc.toBytes());
     }
 
     @Override
     public byte[] getCode(byte[] address) {
-        ByteArray k = getKey(TYPE_CODE, address);
-
-        if (updates.containsKey(k)) {
-            return updates.get(k);
-        } else if (prev != null) {
-            return prev.getCode(address);
-        } else {
-            return accountDB.get(k.getData());
-        }
+        return get(getKey(TYPE_CODE, address));
     }
 
     @Override
     public void setCode(byte[] address, byte[] code) {
-        ByteArray k = getKey(TYPE_CODE, address);
-        updates.put(k, code);
+        put(getKey(TYPE_CODE, address), code);
     }
 
     @Override
     public byte[] getStorage(byte[] address, byte[] key) {
-        ByteArray k = getStorageKey(address, key);
-
-        if (updates.containsKey(k)) {
-            return updates.get(k);
-        } else if (prev != null) {
-            return prev.getStorage(address, key);
-        } else {
-            return accountDB.get(k.getData());
-        }
+        return get(getStorageKey(address, key));
     }
 
     @Override
     public void putStorage(byte[] address, byte[] key, byte[] value) {
-        ByteArray storeKey = getStorageKey(address, key);
-        updates.put(storeKey, value);
+        put(getStorageKey(address, key), value);
     }
 
     @Override
     public void removeStorage(byte[] address, byte[] key) {
-        ByteArray storeKey = getStorageKey(address, key);
-        updates.put(storeKey, null);
+        put(getStorageKey(address, key), null);
     }
 
     @Override
@@ -154,42 +183,47 @@ public class AccountStateImpl implements Cloneable, AccountState {
 
     @Override
     public void commit() {
-        synchronized (updates) {
-            if (prev == null) {
-                for (Entry<ByteArray, byte[]> entry : updates.entrySet()) {
-                    if (entry.getValue() == null) {
-                        accountDB.delete(entry.getKey().getData());
-                    } else {
-                        accountDB.put(entry.getKey().getData(), entry.getValue());
-                    }
+        if (journal == null) {
+            synchronized (updates) {
+                accountDB.updateBatch(updates);
+                updates.clear();
+            }
+            return;
+        }
+
+        synchronized (journal) {
+            journal.enter(level, this);
+            if (level == 0 && target != null) {
+                for (Entry<ByteArray, byte[]> e : journal.rebase(0).entrySet()) {
+                    target.put(e.getKey(), e.getValue());
                 }
-            } else {
-                for (Entry<ByteArray, byte[]> e : updates.entrySet()) {
+            } else if (level == 0) {
+                for (Entry<ByteArray, byte[]> e : journal.getUpdates(0).entrySet()) {
                     prev.updates.put(e.getKey(), e.getValue());
                 }
+                journal.clear();
+            } else {
+                journal.commit();
             }
-
-            updates.clear();
         }
     }
 
     @Override
     public void rollback() {
-        updates.clear();
+        if (journal == null) {
+            updates.clear();
+            return;
+        }
+
+        synchronized (journal) {
+            journal.enter(level, this);
+            journal.rollback();
+        }
     }
 
     @Override
     public boolean exists(byte[] address) {
-        ByteArray k = getKey(TYPE_ACCOUNT, address);
-
-        if (updates.containsKey(k)) {
-            return true;
-        } else if (prev != null) {
-            return prev.exists(address);
-        } else {
-            byte[] v = accountDB.get(k.getData());
-            return v != null;
-        }
+        return get(getKey(TYPE_ACCOUNT, address)) != null;
     }
 
     @Override
@@ -198,17 +232,63 @@ public class AccountStateImpl implements Cloneable, AccountState {
 
         Account acc = getAccount(address);
         acc.setNonce(nonce);
-        updates.put(k, acc.toBytes());
+        put(k, acc.toBytes());
         return nonce;
     }
 
     @Override
     public AccountState clone() {
-        AccountStateImpl clone = new AccountStateImpl(accountDB);
-        clone.prev = prev;
-        clone.updates.putAll(updates);
+        if (journal == null) {
+            AccountStateImpl clone = new AccountStateImpl(accountDB);
+            clone.updates.putAll(updates);
+            return clone;
+        }
 
-        return clone;
+        // the clone commits into the parent of this track, and reads from a copy of
+        // the updates seen by this track
+        synchronized (journal) {
+            journal.enter(level, this);
+            AccountStateImpl parent = level > 0 ? (AccountStateImpl) journal.getTrack(level - 1) : target;
+            return new AccountStateImpl(prev, journal.copy(), parent);
+        }
+    }
+
+    /**
+     * Returns the value of a key, or null if it doesn't exist or has been deleted.
+     *
+     * @param k
+     * @return
+     */
+    protected byte[] get(ByteArray k) {
+        if (journal == null) {
+            return updates.containsKey(k) ? updates.get(k) : accountDB.get(k.getData());
+        }
+
+        synchronized (journal) {
+            journal.enter(level, this);
+            if (journal.containsKey(0, k)) {
+                return journal.get(0, k);
+            }
+        }
+        return prev.get(k);
+    }
+
+    /**
+     * Updates the value of a key, or deletes it if the value is null.
+     *
+     * @param k
+     * @param v
+     */
+    protected void put(ByteArray k, byte[] v) {
+        if (journal == null) {
+            updates.put(k, v);
+            return;
+        }
+
+        synchronized (journal) {
+            journal.enter(level, this);
+            journal.put(0, k, v);
+        }
     }
 
     protected ByteArray getKey(byte type, byte[] address) {
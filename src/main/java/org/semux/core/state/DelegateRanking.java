@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core.state;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeSet;
+
+import org.semux.db.Database;
+import org.semux.util.ByteArray;
+import org.semux.util.ClosableIterator;
+
+/**
+ * In-memory ranking of the committed delegates, ordered by votes (descending)
+ * and then by name.
+ * <p>
+ * The ranking is loaded from the delegate database on first use and then
+ * maintained incrementally as the root {@link DelegateStateImpl} commits, so
+ * that an update costs O(log n) and a top-k query O(k).
+ */
+class DelegateRanking {
+
+    /**
+     * The delegate order: votes descending, then name ascending.
+     */
+    static final Comparator<Delegate> ORDER = (d1, d2) -> {
+        int cmp = d2.getVotes().compareTo(d1.getVotes());
+        return (cmp != 0) ? cmp : d1.getNameString().compareTo(d2.getNameString());
+    };
+
+    private final Database delegateDB;
+    private final int addressLength;
+
+    private TreeSet<Delegate> sorted;
+    private Map<ByteArray, Delegate> delegates;
+
+    /**
+     * Creates a ranking of the delegates in the given database.
+     *
+     * @param delegateDB
+     * @param addressLength
+     *            the length of address keys, used to tell them apart from name
+     *            keys
+     */
+    DelegateRanking(Database delegateDB, int addressLength) {
+        this.delegateDB = delegateDB;
+        this.addressLength = addressLength;
+    }
+
+    /**
+     * Applies a committed delegate update.
+     *
+     * @param key
+     *            the database key
+     * @param value
+     *            the encoded delegate, or null if removed
+     */
+    synchronized void update(ByteArray key, byte[] value) {
+        // not loaded yet, the update will be picked up from database
+        if (sorted == null || key.length() != addressLength) {
+            return;
+        }
+
+        Delegate old = delegates.remove(key);
+        if (old != null) {
+            sorted.remove(old);
+        }
+
+        if (value != null) {
+            Delegate d = Delegate.fromBytes(key.getData(), value);
+            delegates.put(key, d);
+            sorted.add(d);
+        }
+    }
+
+    /**
+     * Returns the top delegates, taking the given uncommitted updates into
+     * account.
+     *
+     * @param updates
+     *            tracked delegates by address; a null value marks a removal
+     * @param limit
+     *            the max number of delegates to return
+     * @return
+     */
+    synchronized List<Delegate> list(Map<ByteArray, Delegate> updates, int limit) {
+        load();
+
+        List<Delegate> overlay = new ArrayList<>();
+        for (Delegate d : updates.values()) {
+            if (d != null) {
+                overlay.add(d);
+            }
+        }
+        overlay.sort(ORDER);
+
+        // merge the committed ranking with the sorted overlay
+        List<Delegate> list = new ArrayList<>(Math.min(limit, sorted.size() + overlay.size()));
+        Iterator<Delegate> itr = sorted.iterator();
+        Delegate committed = next(itr, updates);
+        int i = 0;
+        while (list.size() < limit && (committed != null || i < overlay.size())) {
+            if (committed == null || (i < overlay.size() && ORDER.compare(overlay.get(i), committed) <= 0)) {
+                list.add(overlay.get(i++));
+            } else {
+                list.add(committed);
+                committed = next(itr, updates);
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Returns the next committed delegate which is not shadowed by updates.
+     */
+    private Delegate next(Iterator<Delegate> itr, Map<ByteArray, Delegate> updates) {
+        while (itr.hasNext()) {
+            Delegate d = itr.next();
+            if (!updates.containsKey(ByteArray.of(d.getAddress()))) {
+                return d;
+            }
+        }
+        return null;
+    }
+
+    private void load() {
+        if (sorted != null) {
+            return;
+        }
+
+        sorted = new TreeSet<>(ORDER);
+        delegates = new HashMap<>();
+        ClosableIterator<Entry<byte[], byte[]>> itr = delegateDB.iterator();
+        while (itr.hasNext()) {
+            Entry<byte[], byte[]> entry = itr.next();
+            if (entry.getKey().length == addressLength) {
+                Delegate d = Delegate.fromBytes(entry.getKey(), entry.getValue());
+                delegates.put(ByteArray.of(d.getAddress()), d);
+                sorted.add(d);
+            }
+        }
+        itr.close();
+    }
+}
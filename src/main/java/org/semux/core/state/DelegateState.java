@@ -71,6 +71,14 @@ public interface DelegateState {
      */
     Map<ByteArray, Amount> getVotes(byte[] delegate);
 
+    /**
+     * Returns all the non-zero votes of one voter, by delegate.
+     *
+     * @param voter
+     * @return
+     */
+    Map<ByteArray, Amount> getVotesByVoter(byte[] voter);
+
     /**
      * Retrieves delegate by its name.
      * 
@@ -94,6 +102,15 @@ public interface DelegateState {
      */
     List<Delegate> getDelegates();
 
+    /**
+     * Returns the top delegates, in the same order as {@link #getDelegates()}.
+     * 
+     * @param limit
+     *            the max number of delegates to return
+     * @return
+     */
+    List<Delegate> getDelegates(int limit);
+
     /**
      * Returns a snapshot and starts tracking updates.
      */
@@ -105,7 +122,9 @@ public interface DelegateState {
     void commit();
 
     /**
-     * Clone this DelegateState, including all the uncommitted changes.
+     * Clone this DelegateState, including all the uncommitted changes. Committing the
+     * clone merges its changes into the state this one is tracking, as committing
+     * this one would.
      */
     DelegateState clone();
 
@@ -8,12 +8,13 @@ package org.semux.core.state;
 
 import static org.semux.core.Amount.ZERO;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.semux.core.Amount;
@@ -39,8 +40,13 @@ import org.slf4j.LoggerFactory;
  * vote DB structure:
  * 
  * [delegate, voter] => vote
+ * [0xff, voter, delegate] => vote // reverse index, non-zero votes only
+ * [0xff] => [] // marks the reverse index as built
  * </pre>
  *
+ * Like {@link AccountStateImpl}, the tracks nested in a track of the
+ * database-backed state share a {@link StateJournal}, with one map for the
+ * delegate updates and one for the vote updates.
  */
 public class DelegateStateImpl implements Cloneable, DelegateState {
 
@@ -48,21 +54,56 @@ public class DelegateStateImpl implements Cloneable, DelegateState {
 
     private static final int ADDRESS_LEN = 20;
 
+    /**
+     * Prefix of the voter-to-delegate index, whose keys are one byte longer than
+     * the [delegate, voter] keys.
+     */
+    private static final byte VOTER_INDEX_PREFIX = (byte) 0xff;
+
+    private static final int DELEGATES = 0;
+    private static final int VOTES = 1;
+
     protected final Blockchain chain;
 
     protected Database delegateDB;
     protected Database voteDB;
+
+    /**
+     * The database-backed state, or null if this is the database-backed state.
+     */
     protected DelegateStateImpl prev;
 
     /**
-     * Delegate updates
+     * Ranking of the committed delegates, shared by all layers
      */
-    protected final Map<ByteArray, byte[]> delegateUpdates = new ConcurrentHashMap<>();
+    protected DelegateRanking ranking;
 
     /**
-     * Vote updates
+     * Delegate updates of the database-backed state
      */
-    protected final Map<ByteArray, byte[]> voteUpdates = new ConcurrentHashMap<>();
+    protected final Map<ByteArray, byte[]> delegateUpdates;
+
+    /**
+     * Vote updates of the database-backed state
+     */
+    protected final Map<ByteArray, byte[]> voteUpdates;
+
+    /**
+     * The updates of this track and the tracks it's nested in, or null for the
+     * database-backed state.
+     */
+    protected final StateJournal journal;
+
+    /**
+     * The nesting level of this track in the journal.
+     */
+    protected final int level;
+
+    /**
+     * For a clone, the track its bottom track commits into, or null if it
+     * commits into the database-backed state.
+     */
+    protected DelegateStateImpl target;
 
     /**
      * Create a DelegateState that work directly on a database.
@@ -74,6 +115,15 @@ public class DelegateStateImpl implements Cloneable, DelegateState {
         this.chain = chain;
         this.delegateDB = delegateDB;
         this.voteDB = voteDB;
+        this.ranking = new DelegateRanking(delegateDB, ADDRESS_LEN);
+        this.delegateUpdates = new ConcurrentHashMap<>();
+        this.voteUpdates = new ConcurrentHashMap<>();
+        this.journal = null;
+        this.level = 0;
+
+        if (voteDB.get(Bytes.of(VOTER_INDEX_PREFIX)) == null) {
+            buildVoterIndex();
+        }
     }
 
     /**
@@ -83,7 +133,41 @@ public class DelegateStateImpl implements Cloneable, DelegateState {
      */
     public DelegateStateImpl(DelegateStateImpl prev) {
         this.chain = prev.chain;
+        this.ranking = prev.ranking;
+        this.delegateUpdates = null;
+        this.voteUpdates = null;
+        if (prev.journal == null) {
+            this.prev = prev;
+            this.journal = new StateJournal(2);
+            this.level = journal.push(this);
+        } else {
+            this.prev = prev.prev;
+            this.journal = prev.journal;
+            synchronized (journal) {
+                journal.enter(prev.level, prev);
+                this.level = journal.push(this);
+            }
+        }
+    }
+
+    /**
+     * Create the bottom track of a clone.
+     *
+     * @param prev
+     *            the database-backed state
+     * @param journal
+     * @param target
+     *            the track to commit into, or null for the database-backed state
+     */
+    private DelegateStateImpl(DelegateStateImpl prev, StateJournal journal, DelegateStateImpl target) {
+        this.chain = prev.chain;
+        this.ranking = prev.ranking;
+        this.delegateUpdates = null;
+        this.voteUpdates = null;
         this.prev = prev;
+        this.journal = journal;
+        this.level = journal.push(this);
+        this.target = target;
     }
 
     @Override
@@ -92,8 +176,8 @@ public class DelegateStateImpl implements Cloneable, DelegateState {
             return false;
         } else {
             Delegate d = new Delegate(address, name, registeredAt, ZERO);
-            delegateUpdates.put(ByteArray.of(name), address);
-            delegateUpdates.put(ByteArray.of(address), d.toBytes());
+            put(DELEGATES, ByteArray.of(name), address);
+            put(DELEGATES, ByteArray.of(address), d.toBytes());
 
             return true;
         }
@@ -113,9 +197,9 @@ public class DelegateStateImpl implements Cloneable, DelegateState {
         if (d == null) {
             return false;
         } else {
-            voteUpdates.put(key, encodeAmount(value.add(v)));
+            put(VOTES, key, encodeAmount(value.add(v)));
             d.setVotes(d.getVotes().add(v));
-            delegateUpdates.put(ByteArray.of(delegate), d.toBytes());
+            put(DELEGATES, ByteArray.of(delegate), d.toBytes());
             return true;
         }
     }
@@ -128,11 +212,11 @@ public class DelegateStateImpl implements Cloneable, DelegateState {
         if (v.greaterThan(value)) {
             return false;
         } else {
-            voteUpdates.put(key, encodeAmount(value.subtract(v)));
+            put(VOTES, key, encodeAmount(value.subtract(v)));
 
             Delegate d = getDelegateByAddress(delegate);
             d.setVotes(d.getVotes().subtract(v));
-            delegateUpdates.put(ByteArray.of(delegate), d.toBytes());
+            put(DELEGATES, ByteArray.of(delegate), d.toBytes());
 
             return true;
         }
@@ -144,49 +228,71 @@ public class DelegateStateImpl implements Cloneable, DelegateState {
     }
 
     @Override
-    public Delegate getDelegateByName(byte[] name) {
-        ByteArray k = ByteArray.of(name);
+    public Map<ByteArray, Amount> getVotesByVoter(byte[] voter) {
+        DelegateStateImpl root = journal == null ? this : prev;
+
+        // the delegates voted for, committed or tracked
+        Set<ByteArray> delegates = new HashSet<>();
+        byte[] prefix = Bytes.merge(VOTER_INDEX_PREFIX, voter);
+        ClosableIterator<Entry<byte[], byte[]>> itr = root.voteDB.iterator(prefix);
+        try {
+            while (itr.hasNext()) {
+                byte[] key = itr.next().getKey();
+                if (!Arrays.equals(prefix, Arrays.copyOf(key, prefix.length))) {
+                    break;
+                }
+                if (key.length == prefix.length + ADDRESS_LEN) {
+                    delegates.add(ByteArray.of(Arrays.copyOfRange(key, prefix.length, key.length)));
+                }
+            }
+        } finally {
+            itr.close();
+        }
+        collectVoted(voter, root.voteUpdates.keySet(), delegates);
+        if (journal != null) {
+            synchronized (journal) {
+                journal.enter(level, this);
+                collectVoted(voter, journal.getUpdates(VOTES).keySet(), delegates);
+            }
+        }
 
-        if (delegateUpdates.containsKey(k)) {
-            byte[] v = delegateUpdates.get(k);
-            return v == null ? null : getDelegateByAddress(v);
-        } else if (prev != null) {
-            return prev.getDelegateByName(name);
-        } else {
-            byte[] v = delegateDB.get(k.getData());
-            return v == null ? null : getDelegateByAddress(v);
+        Map<ByteArray, Amount> result = new HashMap<>();
+        for (ByteArray delegate : delegates) {
+            Amount vote = getVote(ByteArray.of(Bytes.merge(delegate.getData(), voter)));
+            if (vote.isPositive()) {
+                result.put(delegate, vote);
+            }
         }
+        return result;
     }
 
     @Override
-    public Delegate getDelegateByAddress(byte[] address) {
-        ByteArray k = ByteArray.of(address);
+    public Delegate getDelegateByName(byte[] name) {
+        byte[] v = get(DELEGATES, ByteArray.of(name));
+        return v == null ? null : getDelegateByAddress(v);
+    }
 
-        if (delegateUpdates.containsKey(k)) {
-            byte[] v = delegateUpdates.get(k);
-            return v == null ? null : Delegate.fromBytes(k.getData(), v);
-        } else if (prev != null) {
-            return prev.getDelegateByAddress(address);
-        } else {
-            byte[] v = delegateDB.get(k.getData());
-            return v == null ? null : Delegate.fromBytes(k.getData(), v);
-        }
+    @Override
+    public Delegate getDelegateByAddress(byte[] address) {
+        byte[] v = get(DELEGATES, ByteArray.of(address));
+        return v == null ? null : Delegate.fromBytes(address, v);
     }
 
     @Override
     public List<Delegate> getDelegates() {
+        return getDelegates(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Delegate> getDelegates(int limit) {
         long t1 = System.nanoTime();
 
-        // traverse all cached update, all the way to database.
+        // collect the tracked updates and those of the root
         Map<ByteArray, Delegate> map = new HashMap<>();
         getDelegates(map);
 
-        // sort the results
-        List<Delegate> list = new ArrayList<>(map.values());
-        list.sort((d1, d2) -> {
-            int cmp = d2.getVotes().compareTo(d1.getVotes());
-            return (cmp != 0) ? cmp : d1.getNameString().compareTo(d2.getNameString());
-        });
+        // merge them into the committed ranking
+        List<Delegate> list = ranking.list(map, limit);
 
         long t2 = System.nanoTime();
         logger.trace("Get delegates duration: {} μs", (t2 - t1) / 1000L);
@@ -200,65 +306,102 @@ public class DelegateStateImpl implements Cloneable, DelegateState {
 
     @Override
     public void commit() {
-        synchronized (delegateUpdates) {
-            if (prev == null) {
-                for (Entry<ByteArray, byte[]> entry : delegateUpdates.entrySet()) {
-                    if (entry.getValue() == null) {
-                        delegateDB.delete(entry.getKey().getData());
-                    } else {
-                        delegateDB.put(entry.getKey().getData(), entry.getValue());
-                    }
-                }
-            } else {
+        if (journal == null) {
+            synchronized (delegateUpdates) {
+                delegateDB.updateBatch(delegateUpdates);
                 for (Entry<ByteArray, byte[]> e : delegateUpdates.entrySet()) {
-                    prev.delegateUpdates.put(e.getKey(), e.getValue());
+                    ranking.update(e.getKey(), e.getValue());
                 }
+                delegateUpdates.clear();
             }
 
-            delegateUpdates.clear();
+            synchronized (voteUpdates) {
+                Map<ByteArray, byte[]> updates = new HashMap<>(voteUpdates);
+                for (Entry<ByteArray, byte[]> e : voteUpdates.entrySet()) {
+                    updates.put(toVoterIndexKey(e.getKey().getData()), isZero(e.getValue()) ? null : e.getValue());
+                }
+                voteDB.updateBatch(updates);
+                voteUpdates.clear();
+            }
+            return;
         }
 
-        synchronized (voteUpdates) {
-            if (prev == null) {
-                for (Entry<ByteArray, byte[]> entry : voteUpdates.entrySet()) {
-                    if (entry.getValue() == null) {
-                        voteDB.delete(entry.getKey().getData());
-                    } else {
-                        voteDB.put(entry.getKey().getData(), entry.getValue());
+        synchronized (journal) {
+            journal.enter(level, this);
+            if (level == 0 && target != null) {
+                for (int map : new int[] { DELEGATES, VOTES }) {
+                    for (Entry<ByteArray, byte[]> e : journal.rebase(map).entrySet()) {
+                        target.put(map, e.getKey(), e.getValue());
                     }
                 }
-            } else {
-                for (Entry<ByteArray, byte[]> e : voteUpdates.entrySet()) {
+            } else if (level == 0) {
+                for (Entry<ByteArray, byte[]> e : journal.getUpdates(DELEGATES).entrySet()) {
+                    prev.delegateUpdates.put(e.getKey(), e.getValue());
+                }
+                for (Entry<ByteArray, byte[]> e : journal.getUpdates(VOTES).entrySet()) {
                     prev.voteUpdates.put(e.getKey(), e.getValue());
                 }
+                journal.clear();
+            } else {
+                journal.commit();
             }
-
-            voteUpdates.clear();
         }
     }
 
     @Override
     public DelegateState clone() {
-        DelegateStateImpl clone = new DelegateStateImpl(this.chain, this.delegateDB, this.voteDB);
-        clone.prev = this.prev;
-        clone.voteUpdates.putAll(this.voteUpdates);
-        clone.delegateUpdates.putAll(this.delegateUpdates);
-        return clone;
+        if (journal == null) {
+            DelegateStateImpl clone = new DelegateStateImpl(this.chain, this.delegateDB, this.voteDB);
+            clone.ranking = this.ranking;
+            clone.voteUpdates.putAll(this.voteUpdates);
+            clone.delegateUpdates.putAll(this.delegateUpdates);
+            return clone;
+        }
+
+        // the clone commits into the parent of this track, and reads from a copy of
+        // the updates seen by this track
+        synchronized (journal) {
+            journal.enter(level, this);
+            DelegateStateImpl parent = level > 0 ? (DelegateStateImpl) journal.getTrack(level - 1) : target;
+            return new DelegateStateImpl(prev, journal.copy(), parent);
+        }
     }
 
     @Override
     public void rollback() {
-        delegateUpdates.clear();
-        voteUpdates.clear();
+        if (journal == null) {
+            delegateUpdates.clear();
+            voteUpdates.clear();
+            return;
+        }
+
+        synchronized (journal) {
+            journal.enter(level, this);
+            journal.rollback();
+        }
     }
 
     /**
-     * Recursively compute the delegates.
+     * Collects the tracked delegate updates, then those of the database-backed
+     * state.
      * 
      * @param map
      */
     protected void getDelegates(Map<ByteArray, Delegate> map) {
-        for (Entry<ByteArray, byte[]> entry : delegateUpdates.entrySet()) {
+        if (journal == null) {
+            collectDelegates(delegateUpdates, map);
+            return;
+        }
+
+        synchronized (journal) {
+            journal.enter(level, this);
+            collectDelegates(journal.getUpdates(DELEGATES), map);
+        }
+        prev.getDelegates(map);
+    }
+
+    private static void collectDelegates(Map<ByteArray, byte[]> updates, Map<ByteArray, Delegate> map) {
+        for (Entry<ByteArray, byte[]> entry : updates.entrySet()) {
             /* filter address */
             if (entry.getKey().length() == ADDRESS_LEN && !map.containsKey(entry.getKey())) {
                 if (entry.getValue() == null) {
@@ -268,22 +411,6 @@ public class DelegateStateImpl implements Cloneable, DelegateState {
                 }
             }
         }
-
-        if (prev != null) {
-            prev.getDelegates(map);
-        } else {
-            ClosableIterator<Entry<byte[], byte[]>> itr = delegateDB.iterator();
-            while (itr.hasNext()) {
-                Entry<byte[], byte[]> entry = itr.next();
-                ByteArray k = ByteArray.of(entry.getKey());
-                byte[] v = entry.getValue();
-
-                if (k.length() == ADDRESS_LEN && !map.containsKey(k)) {
-                    map.put(k, Delegate.fromBytes(k.getData(), v));
-                }
-            }
-            itr.close();
-        }
     }
 
     /**
@@ -294,16 +421,67 @@ public class DelegateStateImpl implements Cloneable, DelegateState {
      * @return
      */
     protected Amount getVote(ByteArray key) {
-        if (voteUpdates.containsKey(key)) {
-            byte[] bytes = voteUpdates.get(key);
-            return decodeAmount(bytes);
+        return decodeAmount(get(VOTES, key));
+    }
+
+    /**
+     * Returns the value of a delegate or vote key, or null if it doesn't exist or
+     * has been deleted.
+     *
+     * @param map
+     *            {@link #DELEGATES} or {@link #VOTES}
+     * @param k
+     * @return
+     */
+    protected byte[] get(int map, ByteArray k) {
+        if (journal == null) {
+            Map<ByteArray, byte[]> updates = map == DELEGATES ? delegateUpdates : voteUpdates;
+            Database db = map == DELEGATES ? delegateDB : voteDB;
+            return updates.containsKey(k) ? updates.get(k) : db.get(k.getData());
         }
 
-        if (prev != null) {
-            return prev.getVote(key);
-        } else {
-            byte[] bytes = voteDB.get(key.getData());
-            return decodeAmount(bytes);
+        synchronized (journal) {
+            journal.enter(level, this);
+            if (journal.containsKey(map, k)) {
+                return journal.get(map, k);
+            }
+        }
+        return prev.get(map, k);
+    }
+
+    /**
+     * Updates the value of a delegate or vote key.
+     *
+     * @param map
+     *            {@link #DELEGATES} or {@link #VOTES}
+     * @param k
+     * @param v
+     */
+    protected void put(int map, ByteArray k, byte[] v) {
+        if (journal == null) {
+            (map == DELEGATES ? delegateUpdates : voteUpdates).put(k, v);
+            return;
+        }
+
+        synchronized (journal) {
+            journal.enter(level, this);
+            journal.put(map, k, v);
+        }
+    }
+
+    /**
+     * Adds the delegates of the [delegate, voter] keys that belong to a voter.
+     *
+     * @param voter
+     * @param keys
+     * @param delegates
+     */
+    protected static void collectVoted(byte[] voter, Set<ByteArray> keys, Set<ByteArray> delegates) {
+        for (ByteArray key : keys) {
+            byte[] k = key.getData();
+            if (Arrays.equals(voter, Arrays.copyOfRange(k, ADDRESS_LEN, 2 * ADDRESS_LEN))) {
+                delegates.add(ByteArray.of(Arrays.copyOf(k, ADDRESS_LEN)));
+            }
         }
     }
 
@@ -319,7 +497,7 @@ public class DelegateStateImpl implements Cloneable, DelegateState {
 
             if (!Arrays.equals(delegate, d)) {
                 break;
-            } else if (Bytes.toLong(e.getValue()) != 0) {
+            } else if (e.getKey().length == 2 * ADDRESS_LEN && Bytes.toLong(e.getValue()) != 0) {
                 result.put(ByteArray.of(v), decodeAmount(e.getValue()));
             }
         }
@@ -328,6 +506,50 @@ public class DelegateStateImpl implements Cloneable, DelegateState {
         return result;
     }
 
+    /**
+     * Builds the voter-to-delegate index from the committed votes, for a
+     * database created before the index existed.
+     */
+    protected void buildVoterIndex() {
+        long t1 = System.currentTimeMillis();
+
+        Map<ByteArray, byte[]> updates = new HashMap<>();
+        ClosableIterator<Entry<byte[], byte[]>> itr = voteDB.iterator();
+        try {
+            while (itr.hasNext()) {
+                Entry<byte[], byte[]> e = itr.next();
+                if (e.getKey().length == 2 * ADDRESS_LEN && !isZero(e.getValue())) {
+                    updates.put(toVoterIndexKey(e.getKey()), e.getValue());
+                }
+            }
+        } finally {
+            itr.close();
+        }
+        updates.put(ByteArray.of(Bytes.of(VOTER_INDEX_PREFIX)), Bytes.EMPTY_BYTES);
+        voteDB.updateBatch(updates);
+
+        long t2 = System.currentTimeMillis();
+        logger.info("Built voter index: # votes = {}, time = {} ms", updates.size() - 1, t2 - t1);
+    }
+
+    /**
+     * Converts a [delegate, voter] key into its [0xff, voter, delegate] key.
+     *
+     * @param key
+     * @return
+     */
+    protected static ByteArray toVoterIndexKey(byte[] key) {
+        byte[] indexKey = new byte[1 + 2 * ADDRESS_LEN];
+        indexKey[0] = VOTER_INDEX_PREFIX;
+        System.arraycopy(key, ADDRESS_LEN, indexKey, 1, ADDRESS_LEN);
+        System.arraycopy(key, 0, indexKey, 1 + ADDRESS_LEN, ADDRESS_LEN);
+        return ByteArray.of(indexKey);
+    }
+
+    protected boolean isZero(byte[] bs) {
+        return bs == null || Bytes.toLong(bs) == 0;
+    }
+
     protected byte[] encodeAmount(Amount a) {
         return Bytes.of(a.toLong());
     }
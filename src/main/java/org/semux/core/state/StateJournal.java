@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core.state;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.semux.util.ByteArray;
+
+/**
+ * The updates of a stack of nested state tracks, flattened into one map per
+ * kind of state with an undo log.
+ * <p>
+ * A write records the previous value in the undo log, so that a track can be
+ * reverted to the checkpoint where it started. Reads probe a single map
+ * whatever the nesting depth, and nesting a track costs no allocation beyond
+ * the track itself.
+ * <p>
+ * Tracks of the same journal must be used in LIFO order, which is how call
+ * frames and transactions use them. A track that is neither committed nor
+ * rolled back is treated as rolled back once its parent is used again. All
+ * methods are expected to be called while holding the journal lock.
+ * <p>
+ * The bottom track never needs the undo log, as rolling it back discards all
+ * updates. Writes made at the bottom, and those merged into it, are therefore
+ * not logged.
+ * <p>
+ * The journal of a cloned track starts from the updates seen by the original,
+ * and keeps those seen by the original's parent as its base: rolling back the
+ * bottom track restores the base, and committing it hands over the updates
+ * which differ from the base.
+ */
+class StateJournal {
+
+    /**
+     * Marks a key that was absent before a write.
+     */
+    private static final byte[] ABSENT = new byte[0];
+
+    private final Map<ByteArray, byte[]>[] maps;
+
+    // the undo log, as parallel lists
+    private final List<Integer> undoMaps = new ArrayList<>();
+    private final List<ByteArray> undoKeys = new ArrayList<>();
+    private final List<byte[]> undoValues = new ArrayList<>();
+
+    // the active tracks by level, and the undo log size when each started
+    private final List<Object> tracks = new ArrayList<>();
+    private final List<Integer> checkpoints = new ArrayList<>();
+
+    // the updates the bottom track starts from, for the journal of a clone
+    private Map<ByteArray, byte[]>[] base;
+
+    /**
+     * Creates a journal for the given kinds of state.
+     *
+     * @param numMaps
+     */
+    @SuppressWarnings("unchecked")
+    StateJournal(int numMaps) {
+        this.maps = new Map[numMaps];
+        for (int i = 0; i < numMaps; i++) {
+            maps[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Pushes a new track on top of the stack. The parent track, if any, must
+     * have been entered first.
+     *
+     * @param track
+     * @return the level of the new track
+     */
+    int push(Object track) {
+        tracks.add(track);
+        checkpoints.add(undoKeys.size());
+        return tracks.size() - 1;
+    }
+
+    /**
+     * Returns the track at a level.
+     *
+     * @param level
+     * @return
+     */
+    Object getTrack(int level) {
+        return tracks.get(level);
+    }
+
+    /**
+     * Makes a track the top of the stack, rolling back the tracks nested in it
+     * which were left open.
+     *
+     * @param level
+     * @param track
+     * @throws IllegalStateException
+     *             if the track has been discarded already
+     */
+    void enter(int level, Object track) {
+        if (level >= tracks.size() || tracks.get(level) != track) {
+            throw new IllegalStateException("The state track has been discarded");
+        }
+
+        while (tracks.size() > level + 1) {
+            int last = tracks.size() - 1;
+            revert(checkpoints.get(last));
+            tracks.remove(last);
+            checkpoints.remove(last);
+        }
+    }
+
+    boolean containsKey(int map, ByteArray key) {
+        return maps[map].containsKey(key);
+    }
+
+    byte[] get(int map, ByteArray key) {
+        return maps[map].get(key);
+    }
+
+    void put(int map, ByteArray key, byte[] value) {
+        Map<ByteArray, byte[]> m = maps[map];
+        if (tracks.size() > 1) {
+            undoMaps.add(map);
+            undoKeys.add(key);
+            undoValues.add(m.containsKey(key) ? m.get(key) : ABSENT);
+        }
+        m.put(key, value);
+    }
+
+    /**
+     * Returns the flattened updates of a kind of state.
+     *
+     * @param map
+     * @return
+     */
+    Map<ByteArray, byte[]> getUpdates(int map) {
+        return maps[map];
+    }
+
+    /**
+     * Returns the updates of a kind of state as seen by the parent of the top
+     * track, or the base if the top track is the bottom one.
+     *
+     * @param map
+     * @return
+     */
+    Map<ByteArray, byte[]> getParentUpdates(int map) {
+        int top = tracks.size() - 1;
+        if (top <= 0) {
+            return base == null ? new HashMap<>() : new HashMap<>(base[map]);
+        }
+
+        Map<ByteArray, byte[]> m = new HashMap<>(maps[map]);
+        for (int i = undoKeys.size() - 1; i >= checkpoints.get(top); i--) {
+            if (undoMaps.get(i) == map) {
+                byte[] old = undoValues.get(i);
+                if (old == ABSENT) {
+                    m.remove(undoKeys.get(i));
+                } else {
+                    m.put(undoKeys.get(i), old);
+                }
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Creates the journal of a clone of the top track, which starts from the
+     * updates the top track sees, with those of its parent as the base.
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    StateJournal copy() {
+        StateJournal copy = new StateJournal(maps.length);
+        copy.base = new Map[maps.length];
+        for (int i = 0; i < maps.length; i++) {
+            copy.maps[i].putAll(maps[i]);
+            copy.base[i] = getParentUpdates(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the updates of a kind of state which differ from the base, and
+     * makes them part of the base. Only meant for the bottom track.
+     *
+     * @param map
+     * @return
+     */
+    Map<ByteArray, byte[]> rebase(int map) {
+        Map<ByteArray, byte[]> changes = new HashMap<>();
+        for (Map.Entry<ByteArray, byte[]> e : maps[map].entrySet()) {
+            if (base == null || !base[map].containsKey(e.getKey())
+                    || !Arrays.equals(base[map].get(e.getKey()), e.getValue())) {
+                changes.put(e.getKey(), e.getValue());
+            }
+        }
+        if (base != null) {
+            base[map] = new HashMap<>(maps[map]);
+        }
+        return changes;
+    }
+
+    /**
+     * Merges the updates of the top track into its parent, and starts a new
+     * checkpoint for the track.
+     */
+    void commit() {
+        if (tracks.size() == 2) {
+            truncate(0);
+        }
+        checkpoints.set(checkpoints.size() - 1, undoKeys.size());
+    }
+
+    /**
+     * Reverts the updates of the top track since its checkpoint.
+     */
+    void rollback() {
+        if (tracks.size() == 1) {
+            clear();
+        } else {
+            revert(checkpoints.get(checkpoints.size() - 1));
+        }
+    }
+
+    /**
+     * Discards all updates but the base, once the bottom track has flushed them
+     * or rolled back.
+     */
+    void clear() {
+        for (int i = 0; i < maps.length; i++) {
+            maps[i].clear();
+            if (base != null) {
+                maps[i].putAll(base[i]);
+            }
+        }
+        truncate(0);
+        for (int i = 0; i < checkpoints.size(); i++) {
+            checkpoints.set(i, 0);
+        }
+    }
+
+    private void revert(int checkpoint) {
+        for (int i = undoKeys.size() - 1; i >= checkpoint; i--) {
+            Map<ByteArray, byte[]> m = maps[undoMaps.get(i)];
+            byte[] old = undoValues.get(i);
+            if (old == ABSENT) {
+                m.remove(undoKeys.get(i));
+            } else {
+                m.put(undoKeys.get(i), old);
+            }
+        }
+        truncate(checkpoint);
+    }
+
+    private void truncate(int size) {
+        undoMaps.subList(size, undoMaps.size()).clear();
+        undoKeys.subList(size, undoKeys.size()).clear();
+        undoValues.subList(size, undoValues.size()).clear();
+    }
+}
@@ -6,8 +6,11 @@
  */
 package org.semux.crypto;
 
+import java.security.DigestException;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.Security;
+import java.util.Arrays;
 
 import org.bouncycastle.crypto.digests.RIPEMD160Digest;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
@@ -24,6 +27,14 @@ public class Hash {
 
     public static final int HASH_LEN = 32;
 
+    private static final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(Constants.HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new CryptoException(e);
+        }
+    });
+
     /**
      * Generate the 256-bit hash.
      *
@@ -59,6 +70,33 @@ public class Hash {
         return Hash.h256(all);
     }
 
+    /**
+     * Computes the 256-bit hash of a slice of the input, and writes it to the
+     * output at the given offset. This avoids the intermediate arrays when hashing
+     * many small inputs from a flat buffer, e.g. Merkle tree nodes.
+     *
+     * @param input
+     * @param offset
+     * @param length
+     * @param output
+     * @param outputOffset
+     */
+    public static void h256(byte[] input, int offset, int length, byte[] output, int outputOffset) {
+        if (Native.isEnabled()) {
+            byte[] in = (offset == 0 && length == input.length) ? input
+                    : Arrays.copyOfRange(input, offset, offset + length);
+            System.arraycopy(Native.h256(in), 0, output, outputOffset, HASH_LEN);
+        } else {
+            try {
+                MessageDigest digest = digests.get();
+                digest.update(input, offset, length);
+                digest.digest(output, outputOffset, HASH_LEN);
+            } catch (DigestException e) {
+                throw new CryptoException(e);
+            }
+        }
+    }
+
     /**
      * Generate the 160-bit hash, using h256 and RIPEMD.
      *
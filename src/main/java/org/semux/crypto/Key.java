@@ -260,6 +260,11 @@ public class Key {
         private byte[] s;
         private byte[] a;
 
+        /**
+         * The signer address, derived from A on first use.
+         */
+        private volatile byte[] address;
+
         /**
          * Creates a Signature instance.
          * 
@@ -307,7 +312,12 @@ public class Key {
          * @return
          */
         public byte[] getAddress() {
-            return Hash.h160(getPublicKey());
+            byte[] addr = address;
+            if (addr == null) {
+                addr = Hash.h160(getPublicKey());
+                address = addr;
+            }
+            return addr;
         }
 
         /**
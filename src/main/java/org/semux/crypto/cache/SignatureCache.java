@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.crypto.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.semux.crypto.Key;
+import org.semux.crypto.Key.Signature;
+import org.semux.util.ByteArray;
+import org.semux.util.Bytes;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+public final class SignatureCache {
+
+    private static final int MAX_CACHE_SIZE = 64 * 1024;
+
+    /**
+     * A transaction is verified when it enters the pending pool, again when it
+     * is part of a block proposal and again when the block is imported; votes are
+     * relayed by many peers and included in blocks. Remembering the signatures
+     * known to be valid makes each of them verified only once.
+     * <p>
+     * The cache is a concurrent hash map of ByteArray.of(message ++ signature) ->
+     * Boolean.TRUE. Invalid signatures are never cached.
+     */
+    private static final Cache<ByteArray, Boolean> verifiedCache = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHE_SIZE).build();
+
+    private SignatureCache() {
+    }
+
+    /**
+     * Returns whether the signature of a message is known to be valid.
+     *
+     * @param message
+     * @param signature
+     * @return
+     */
+    public static boolean isVerified(byte[] message, Signature signature) {
+        return verifiedCache.getIfPresent(createKey(message, signature)) != null;
+    }
+
+    /**
+     * Forgets that the signature of a message is valid, so that it's verified
+     * again on next use.
+     *
+     * @param message
+     * @param signature
+     */
+    public static void invalidate(byte[] message, Signature signature) {
+        verifiedCache.invalidate(createKey(message, signature));
+    }
+
+    /**
+     * Verifies a signature, unless it's known to be valid.
+     *
+     * @param message
+     * @param signature
+     * @return True if the signature is valid, otherwise false
+     */
+    public static boolean verify(byte[] message, Signature signature) {
+        ByteArray key = createKey(message, signature);
+        if (verifiedCache.getIfPresent(key) != null) {
+            return true;
+        }
+
+        if (Key.verify(message, signature)) {
+            verifiedCache.put(key, Boolean.TRUE);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Verifies a list of signatures, skipping those known to be valid. The
+     * remaining ones are verified in one batch if supported, otherwise in
+     * parallel.
+     *
+     * @param messages
+     * @param signatures
+     * @return True if all signatures are valid, otherwise false
+     */
+    public static boolean verifyAll(List<byte[]> messages, List<Signature> signatures) {
+        List<byte[]> uncachedMessages = new ArrayList<>();
+        List<Signature> uncachedSignatures = new ArrayList<>();
+        List<ByteArray> keys = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            ByteArray key = createKey(messages.get(i), signatures.get(i));
+            if (verifiedCache.getIfPresent(key) == null) {
+                uncachedMessages.add(messages.get(i));
+                uncachedSignatures.add(signatures.get(i));
+                keys.add(key);
+            }
+        }
+
+        if (Key.isVerifyBatchSupported() && keys.size() >= 3) {
+            if (!Key.verifyBatch(uncachedMessages, uncachedSignatures)) {
+                return false;
+            }
+            keys.forEach(key -> verifiedCache.put(key, Boolean.TRUE));
+            return true;
+        } else {
+            return IntStream.range(0, keys.size()).parallel()
+                    .allMatch(i -> verify(uncachedMessages.get(i), uncachedSignatures.get(i)));
+        }
+    }
+
+    private static ByteArray createKey(byte[] message, Signature signature) {
+        return ByteArray.of(Bytes.merge(message, signature.toBytes()));
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.db;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.semux.util.ByteArray;
+import org.semux.util.ClosableIterator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * A {@link Database} decorator which keeps recently accessed key value pairs,
+ * including absent keys, in memory.
+ * <p>
+ * All writes go through this class and are applied to the cache after they
+ * reach the underlying database, so the cache always mirrors the committed
+ * data. Tracked, uncommitted updates never reach this layer; they are
+ * discarded on rollback without touching the cache.
+ * <p>
+ * The cache is bounded by the total size of cached keys and values, in bytes.
+ */
+public class CachedDatabase implements Database {
+
+    /**
+     * Estimated per-entry overhead of the cache, in bytes.
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final Database db;
+
+    private final Cache<ByteArray, Optional<byte[]>> cache;
+
+    /**
+     * Creates a cache in front of the given database.
+     *
+     * @param db
+     *            the underlying database
+     * @param maxSize
+     *            the maximum size of the cache, in bytes
+     */
+    public CachedDatabase(Database db, long maxSize) {
+        this.db = db;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize)
+                .weigher((ByteArray k, Optional<byte[]> v) -> ENTRY_OVERHEAD + k.length() + v.map(x -> x.length)
+                        .orElse(0))
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public byte[] get(byte[] key) {
+        return cache.get(ByteArray.of(key), k -> Optional.ofNullable(db.get(key))).orElse(null);
+    }
+
+    @Override
+    public void put(byte[] key, byte[] value) {
+        db.put(key, value);
+        cache.put(ByteArray.of(key), Optional.of(value));
+    }
+
+    @Override
+    public void delete(byte[] key) {
+        db.delete(key);
+        cache.put(ByteArray.of(key), Optional.empty());
+    }
+
+    @Override
+    public void updateBatch(List<Pair<byte[], byte[]>> pairs) {
+        db.updateBatch(pairs);
+        for (Pair<byte[], byte[]> p : pairs) {
+            cache.put(ByteArray.of(p.getLeft()), Optional.ofNullable(p.getRight()));
+        }
+    }
+
+    @Override
+    public void updateBatchSync(List<Pair<byte[], byte[]>> pairs) {
+        db.updateBatchSync(pairs);
+        for (Pair<byte[], byte[]> p : pairs) {
+            cache.put(ByteArray.of(p.getLeft()), Optional.ofNullable(p.getRight()));
+        }
+    }
+
+    @Override
+    public void updateBatch(Map<ByteArray, byte[]> updates) {
+        db.updateBatch(updates);
+        for (Entry<ByteArray, byte[]> e : updates.entrySet()) {
+            cache.put(e.getKey(), Optional.ofNullable(e.getValue()));
+        }
+    }
+
+    @Override
+    public ClosableIterator<Entry<byte[], byte[]>> iterator() {
+        return db.iterator();
+    }
+
+    @Override
+    public ClosableIterator<Entry<byte[], byte[]>> iterator(byte[] prefix) {
+        return db.iterator(prefix);
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+        db.close();
+    }
+
+    @Override
+    public void destroy() {
+        cache.invalidateAll();
+        db.destroy();
+    }
+
+    @Override
+    public Path getDataDir() {
+        return db.getDataDir();
+    }
+
+    /**
+     * Drops all cached entries.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the hit/miss statistics of this cache.
+     *
+     * @return
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -7,10 +7,13 @@
 package org.semux.db;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.semux.util.ByteArray;
 import org.semux.util.ClosableIterator;
 
 /**
@@ -54,6 +57,33 @@ public interface Database {
      */
     void updateBatch(List<Pair<byte[], byte[]>> pairs);
 
+    /**
+     * Updates a list of key value pairs, and returns once the batch has been
+     * synced to disk, so that it survives a crash of the machine.
+     *
+     * @param pairs
+     *            key value pairs; pair with null value, will be deleted
+     */
+    void updateBatchSync(List<Pair<byte[], byte[]>> pairs);
+
+    /**
+     * Updates a map of key value pairs in a single batch.
+     *
+     * @param updates
+     *            key value pairs; pair with null value, will be deleted
+     */
+    default void updateBatch(Map<ByteArray, byte[]> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        List<Pair<byte[], byte[]>> pairs = new ArrayList<>(updates.size());
+        for (Entry<ByteArray, byte[]> e : updates.entrySet()) {
+            pairs.add(Pair.of(e.getKey().getData(), e.getValue()));
+        }
+        updateBatch(pairs);
+    }
+
     /**
      * Returns all the keys.<br>
      * <br>
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.db;
+
+import org.iq80.leveldb.CompressionType;
+
+/**
+ * The tuning options of a LevelDB store.
+ * <p>
+ * Block size and compression only apply to the tables written from now on, so
+ * a store opened with new options remains readable and converges to them as it
+ * gets compacted.
+ */
+public class DatabaseOptions {
+
+    private long cacheSize = 64L * 1024L * 1024L;
+    private int blockSize = 4 * 1024 * 1024;
+    private int writeBufferSize = 8 * 1024 * 1024;
+    private CompressionType compression = CompressionType.NONE;
+    private boolean verifyChecksums = true;
+
+    /**
+     * Creates the options of the single profile used before stores were tuned
+     * individually.
+     */
+    public DatabaseOptions() {
+    }
+
+    /**
+     * Returns the default options of a store.
+     * <ul>
+     * <li>BLOCK is large and append-mostly, blocks are read in whole and rarely
+     * twice. Its data compresses well, so it uses Snappy with mid-sized blocks,
+     * a large write buffer and a small cache.</li>
+     * <li>ACCOUNT, DELEGATE and VOTE are point-lookup heavy. Small blocks keep
+     * each lookup to one small read and the cache gets most of the memory.
+     * Their keys and values are mostly hashes and amounts, which don't
+     * compress.</li>
+     * <li>INDEX maps hashes to block numbers, which is point lookups too.</li>
+     * </ul>
+     *
+     * @param name
+     * @return
+     */
+    public static DatabaseOptions of(DatabaseName name) {
+        switch (name) {
+        case BLOCK:
+            return new DatabaseOptions()
+                    .cacheSize(16L * 1024L * 1024L)
+                    .blockSize(64 * 1024)
+                    .writeBufferSize(32 * 1024 * 1024)
+                    .compression(CompressionType.SNAPPY);
+        case ACCOUNT:
+            return new DatabaseOptions()
+                    .cacheSize(64L * 1024L * 1024L)
+                    .blockSize(4 * 1024)
+                    .writeBufferSize(16 * 1024 * 1024);
+        case VOTE:
+            return new DatabaseOptions()
+                    .cacheSize(32L * 1024L * 1024L)
+                    .blockSize(4 * 1024)
+                    .writeBufferSize(8 * 1024 * 1024);
+        case DELEGATE:
+            return new DatabaseOptions()
+                    .cacheSize(8L * 1024L * 1024L)
+                    .blockSize(4 * 1024)
+                    .writeBufferSize(4 * 1024 * 1024);
+        case INDEX:
+        default:
+            return new DatabaseOptions()
+                    .cacheSize(32L * 1024L * 1024L)
+                    .blockSize(16 * 1024)
+                    .writeBufferSize(8 * 1024 * 1024);
+        }
+    }
+
+    /**
+     * Returns the size of the block cache, in bytes.
+     *
+     * @return
+     */
+    public long cacheSize() {
+        return cacheSize;
+    }
+
+    public DatabaseOptions cacheSize(long cacheSize) {
+        this.cacheSize = cacheSize;
+        return this;
+    }
+
+    /**
+     * Returns the approximate size of uncompressed data per block, in bytes.
+     *
+     * @return
+     */
+    public int blockSize() {
+        return blockSize;
+    }
+
+    public DatabaseOptions blockSize(int blockSize) {
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    /**
+     * Returns the size of the in-memory table before it's flushed to disk, in
+     * bytes.
+     *
+     * @return
+     */
+    public int writeBufferSize() {
+        return writeBufferSize;
+    }
+
+    public DatabaseOptions writeBufferSize(int writeBufferSize) {
+        this.writeBufferSize = writeBufferSize;
+        return this;
+    }
+
+    /**
+     * Returns the block compression.
+     *
+     * @return
+     */
+    public CompressionType compression() {
+        return compression;
+    }
+
+    public DatabaseOptions compression(CompressionType compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    /**
+     * Returns whether the checksums of blocks read from disk are verified.
+     *
+     * @return
+     */
+    public boolean verifyChecksums() {
+        return verifyChecksums;
+    }
+
+    public DatabaseOptions verifyChecksums(boolean verifyChecksums) {
+        this.verifyChecksums = verifyChecksums;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "DatabaseOptions [cacheSize=" + cacheSize + ", blockSize=" + blockSize + ", writeBufferSize="
+                + writeBufferSize + ", compression=" + compression + ", verifyChecksums=" + verifyChecksums + "]";
+    }
+}
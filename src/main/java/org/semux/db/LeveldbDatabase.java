@@ -15,14 +15,15 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map.Entry;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.fusesource.leveldbjni.JniDBFactory;
-import org.iq80.leveldb.CompressionType;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
 import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
 import org.semux.db.exception.DatabaseException;
 import org.semux.util.ClosableIterator;
 import org.semux.util.FileUtil;
@@ -35,6 +36,7 @@ public class LeveldbDatabase implements Database {
     private static final Logger logger = LoggerFactory.getLogger(LeveldbDatabase.class);
 
     private final File file;
+    private final DatabaseOptions options;
     private DB db;
     private boolean isOpened;
 
@@ -44,7 +46,18 @@ public class LeveldbDatabase implements Database {
      * @param file
      */
     public LeveldbDatabase(File file) {
+        this(file, new DatabaseOptions());
+    }
+
+    /**
+     * Creates an LevelDB instance with the given options and opens it.
+     *
+     * @param file
+     * @param options
+     */
+    public LeveldbDatabase(File file, DatabaseOptions options) {
         this.file = file;
+        this.options = options;
 
         File dir = file.getParentFile();
         if (!dir.exists() && !dir.mkdirs()) {
@@ -55,19 +68,19 @@ public class LeveldbDatabase implements Database {
     }
 
     /**
-     * Creates the default options.
+     * Creates the LevelDB options.
      *
      * @return
      */
     protected Options createOptions() {
         Options options = new Options();
         options.createIfMissing(true);
-        options.compressionType(CompressionType.NONE);
-        options.blockSize(4 * 1024 * 1024);
-        options.writeBufferSize(8 * 1024 * 1024);
-        options.cacheSize(64L * 1024L * 1024L);
+        options.compressionType(this.options.compression());
+        options.blockSize(this.options.blockSize());
+        options.writeBufferSize(this.options.writeBufferSize());
+        options.cacheSize(this.options.cacheSize());
         options.paranoidChecks(true);
-        options.verifyChecksums(true);
+        options.verifyChecksums(this.options.verifyChecksums());
         options.maxOpenFiles(128);
 
         return options;
@@ -135,6 +148,15 @@ public class LeveldbDatabase implements Database {
 
     @Override
     public void updateBatch(List<Pair<byte[], byte[]>> pairs) {
+        write(pairs, new WriteOptions());
+    }
+
+    @Override
+    public void updateBatchSync(List<Pair<byte[], byte[]>> pairs) {
+        write(pairs, new WriteOptions().sync(true));
+    }
+
+    private void write(List<Pair<byte[], byte[]>> pairs, WriteOptions options) {
         try (WriteBatch batch = db.createWriteBatch()) {
             for (Pair<byte[], byte[]> p : pairs) {
                 if (p.getValue() == null) {
@@ -143,13 +165,21 @@ public class LeveldbDatabase implements Database {
                     batch.put(p.getLeft(), p.getRight());
                 }
             }
-            db.write(batch);
+            db.write(batch, options);
         } catch (IOException e) {
             logger.error("Failed to update batch", e);
             SystemUtil.exitAsync(SystemUtil.Code.FAILED_TO_WRITE_BATCH_TO_DB);
         }
     }
 
+    /**
+     * Compacts the whole key range, pushing all data out of the write buffer
+     * and the young levels.
+     */
+    public void compact() {
+        db.compactRange(null, null);
+    }
+
     @Override
     public void close() {
         try {
@@ -219,16 +249,34 @@ public class LeveldbDatabase implements Database {
         private final EnumMap<DatabaseName, Database> databases = new EnumMap<>(DatabaseName.class);
 
         private final File dataDir;
+        private final Function<DatabaseName, DatabaseOptions> options;
 
+        /**
+         * Creates a factory of stores with their default options.
+         *
+         * @param dataDir
+         */
         public LeveldbFactory(File dataDir) {
+            this(dataDir, DatabaseOptions::of);
+        }
+
+        /**
+         * Creates a factory of stores with the given options.
+         *
+         * @param dataDir
+         * @param options
+         *            the options of each store
+         */
+        public LeveldbFactory(File dataDir, Function<DatabaseName, DatabaseOptions> options) {
             this.dataDir = dataDir;
+            this.options = options;
         }
 
         @Override
         public Database getDB(DatabaseName name) {
             return databases.computeIfAbsent(name, k -> {
                 File file = new File(dataDir.getAbsolutePath(), k.toString().toLowerCase(Locale.ROOT));
-                return new LeveldbDatabase(file);
+                return new LeveldbDatabase(file, options.apply(k));
             });
         }
 
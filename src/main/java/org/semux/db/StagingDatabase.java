@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.db;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.semux.util.ByteArray;
+import org.semux.util.ClosableIterator;
+
+/**
+ * A database whose writes can be held back while a commit is prepared.
+ * <p>
+ * Between {@link #stage()} and {@link #apply()}, writes are kept in memory and
+ * observed by {@link #get(byte[])}, so that the caller can record what is about
+ * to change before anything reaches the underlying database. The staged writes
+ * are then applied in a single synced batch. Iterators only see the underlying
+ * database.
+ * <p>
+ * Staging is expected to be done by a single writer, under the lock that
+ * guards the commit.
+ */
+public class StagingDatabase implements Database {
+
+    private final Database db;
+
+    /**
+     * Staged writes, or deletes if the value is null; null when not staging.
+     */
+    private volatile Map<ByteArray, byte[]> staged;
+
+    public StagingDatabase(Database db) {
+        this.db = db;
+    }
+
+    /**
+     * Starts holding back writes.
+     */
+    public synchronized void stage() {
+        if (staged == null) {
+            staged = new LinkedHashMap<>();
+        }
+    }
+
+    /**
+     * Returns the staged writes, or deletes if the value is null.
+     *
+     * @return
+     */
+    public synchronized Map<ByteArray, byte[]> getStaged() {
+        return staged == null ? new LinkedHashMap<>() : new LinkedHashMap<>(staged);
+    }
+
+    /**
+     * Writes the staged writes to the underlying database in a single batch, and
+     * stops staging. Returns once the batch has been synced to disk.
+     */
+    public synchronized void apply() {
+        if (staged != null) {
+            List<Pair<byte[], byte[]>> pairs = new ArrayList<>(staged.size());
+            for (Entry<ByteArray, byte[]> e : staged.entrySet()) {
+                pairs.add(Pair.of(e.getKey().getData(), e.getValue()));
+            }
+            staged = null;
+            db.updateBatchSync(pairs);
+        }
+    }
+
+    /**
+     * Returns the value of a key in the underlying database, ignoring the staged
+     * writes.
+     *
+     * @param key
+     * @return
+     */
+    public byte[] getCommitted(byte[] key) {
+        return db.get(key);
+    }
+
+    @Override
+    public byte[] get(byte[] key) {
+        Map<ByteArray, byte[]> s = staged;
+        if (s != null) {
+            synchronized (this) {
+                ByteArray k = ByteArray.of(key);
+                if (staged != null && staged.containsKey(k)) {
+                    return staged.get(k);
+                }
+            }
+        }
+        return db.get(key);
+    }
+
+    @Override
+    public synchronized void put(byte[] key, byte[] value) {
+        if (staged != null) {
+            staged.put(ByteArray.of(key), value);
+        } else {
+            db.put(key, value);
+        }
+    }
+
+    @Override
+    public synchronized void delete(byte[] key) {
+        if (staged != null) {
+            staged.put(ByteArray.of(key), null);
+        } else {
+            db.delete(key);
+        }
+    }
+
+    @Override
+    public synchronized void updateBatch(List<Pair<byte[], byte[]>> pairs) {
+        if (staged != null) {
+            for (Pair<byte[], byte[]> p : pairs) {
+                staged.put(ByteArray.of(p.getLeft()), p.getRight());
+            }
+        } else {
+            db.updateBatch(pairs);
+        }
+    }
+
+    @Override
+    public synchronized void updateBatch(Map<ByteArray, byte[]> updates) {
+        if (staged != null) {
+            for (Entry<ByteArray, byte[]> e : updates.entrySet()) {
+                staged.put(e.getKey(), e.getValue());
+            }
+        } else {
+            db.updateBatch(updates);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException
+     *             if writes are being staged, as a synced write cannot be held
+     *             back; call {@link #apply()} first
+     */
+    @Override
+    public synchronized void updateBatchSync(List<Pair<byte[], byte[]>> pairs) {
+        if (staged != null) {
+            throw new IllegalStateException("Synced writes are not allowed while staging");
+        }
+        db.updateBatchSync(pairs);
+    }
+
+    @Override
+    public ClosableIterator<Entry<byte[], byte[]>> iterator() {
+        return db.iterator();
+    }
+
+    @Override
+    public ClosableIterator<Entry<byte[], byte[]>> iterator(byte[] prefix) {
+        return db.iterator(prefix);
+    }
+
+    @Override
+    public void close() {
+        db.close();
+    }
+
+    @Override
+    public void destroy() {
+        db.destroy();
+    }
+
+    @Override
+    public Path getDataDir() {
+        return db.getDataDir();
+    }
+}
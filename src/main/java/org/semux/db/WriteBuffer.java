@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.db;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.semux.util.ByteArray;
+
+/**
+ * Collects writes to a {@link Database} and applies them as one batch.
+ * <p>
+ * Reads issued through this buffer observe the pending writes, so that a
+ * multi-step update (e.g. read-modify-write of a counter) can be staged before
+ * anything reaches the underlying database.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class WriteBuffer {
+
+    private final Database db;
+
+    /**
+     * Pending writes, or deletes if the value is null.
+     */
+    private final Map<ByteArray, byte[]> updates = new LinkedHashMap<>();
+
+    /**
+     * Creates a write buffer on top of the given database.
+     *
+     * @param db
+     */
+    public WriteBuffer(Database db) {
+        this.db = db;
+    }
+
+    /**
+     * Returns the value that is mapped to the specified key, taking the pending
+     * writes into account.
+     *
+     * @param key
+     * @return
+     */
+    public byte[] get(byte[] key) {
+        ByteArray k = ByteArray.of(key);
+        if (updates.containsKey(k)) {
+            return updates.get(k);
+        }
+        return db.get(key);
+    }
+
+    /**
+     * Stages a key value pair.
+     *
+     * @param key
+     * @param value
+     *            can not be null
+     */
+    public void put(byte[] key, byte[] value) {
+        updates.put(ByteArray.of(key), value);
+    }
+
+    /**
+     * Stages a delete.
+     *
+     * @param key
+     */
+    public void delete(byte[] key) {
+        updates.put(ByteArray.of(key), null);
+    }
+
+    /**
+     * Returns the number of pending writes.
+     *
+     * @return
+     */
+    public int size() {
+        return updates.size();
+    }
+
+    /**
+     * Applies all pending writes to the database in a single batch.
+     */
+    public void flush() {
+        db.updateBatch(updates);
+        updates.clear();
+    }
+
+    /**
+     * Applies all pending writes to the database in a single batch, and returns
+     * once the batch has been synced to disk.
+     */
+    public void flushSync() {
+        List<Pair<byte[], byte[]>> pairs = new ArrayList<>(updates.size());
+        for (Entry<ByteArray, byte[]> e : updates.entrySet()) {
+            pairs.add(Pair.of(e.getKey().getData(), e.getValue()));
+        }
+        db.updateBatchSync(pairs);
+        updates.clear();
+    }
+
+    /**
+     * Discards all pending writes.
+     */
+    public void clear() {
+        updates.clear();
+    }
+}
@@ -14,6 +14,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.time.Duration;
 
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
@@ -31,6 +32,7 @@ import org.semux.event.PubSubSubscriber;
 import org.semux.gui.event.MainFrameStartedEvent;
 import org.semux.gui.event.WalletSelectionDialogShownEvent;
 import org.semux.message.GuiMessages;
+import org.semux.util.TimeUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -100,7 +102,10 @@ public class SplashScreen extends JFrame implements PubSubSubscriber {
         } else if (event instanceof BlockchainDatabaseUpgradingEvent) {
             EventQueue.invokeLater(() -> {
                 BlockchainDatabaseUpgradingEvent e = (BlockchainDatabaseUpgradingEvent) event;
-                progressBar.setString(GuiMessages.get("SplashUpgradingDatabase", e.loaded, e.total));
+                progressBar.setString(e.eta == null
+                        ? GuiMessages.get("SplashUpgradingDatabase", e.loaded, e.total)
+                        : GuiMessages.get("SplashUpgradingDatabaseEta", e.loaded, e.total,
+                                TimeUtil.formatDuration(Duration.ofMillis(e.eta))));
                 progressBar.setIndeterminate(false);
                 progressBar.setMaximum(10000);
                 progressBar.setValue((int) ((double) e.loaded / (double) e.total * 10000));
@@ -6,6 +6,8 @@
  */
 package org.semux.gui.panel;
 
+import static org.semux.core.Amount.ZERO;
+
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Point;
@@ -17,6 +19,7 @@ import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.GroupLayout;
 import javax.swing.GroupLayout.Alignment;
@@ -56,6 +59,7 @@ import org.semux.gui.model.WalletAccount;
 import org.semux.gui.model.WalletDelegate;
 import org.semux.gui.model.WalletModel;
 import org.semux.message.GuiMessages;
+import org.semux.util.ByteArray;
 import org.semux.util.Bytes;
 import org.semux.util.SystemUtil;
 import org.semux.util.exception.UnreachableException;
@@ -421,10 +425,9 @@ public class DelegatesPanel extends JPanel implements ActionListener {
         if (acc != null) {
             byte[] voter = acc.getKey().toAddress();
             Blockchain chain = kernel.getBlockchain();
-            DelegateState ds = chain.getDelegateState();
+            Map<ByteArray, Amount> votes = chain.getDelegateState().getVotesByVoter(voter);
             for (WalletDelegate wd : delegates) {
-                Amount vote = ds.getVote(voter, wd.getAddress());
-                wd.setVotesFromMe(vote);
+                wd.setVotesFromMe(votes.getOrDefault(ByteArray.of(wd.getAddress()), ZERO));
 
                 ValidatorStats s = chain.getValidatorStats(wd.getAddress());
                 wd.setNumberOfBlocksForged(s.getBlocksForged());
@@ -13,11 +13,11 @@ import org.semux.Kernel;
 import org.semux.net.msg.MessageQueue;
 
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 
 public class Channel {
-    private final NioSocketChannel socket;
+    private final SocketChannel socket;
 
     private boolean isInbound;
     private InetSocketAddress remoteAddress;
@@ -31,7 +31,7 @@ public class Channel {
      * Creates a new channel instance.
      * 
      */
-    public Channel(NioSocketChannel socket) {
+    public Channel(SocketChannel socket) {
         this.socket = socket;
     }
 
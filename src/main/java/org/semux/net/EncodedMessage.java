@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.net;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.semux.config.Config;
+import org.semux.net.msg.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCounted;
+
+/**
+ * A message which has been compressed and framed once, for sending to many
+ * channels. Each channel writes a duplicate of the shared frames buffer, so
+ * that the fan-out costs no compression and no copy.
+ * <p>
+ * The creator owns one reference and releases it once the message has been
+ * handed to all message queues. Each message queue holds its own reference
+ * until the message is written or dropped.
+ */
+public class EncodedMessage extends Message implements ReferenceCounted {
+
+    private static final Logger logger = LoggerFactory.getLogger(EncodedMessage.class);
+
+    private final ByteBuf frames;
+
+    private EncodedMessage(Message msg, ByteBuf frames) {
+        super(msg.getCode(), msg.getResponseMessageClass());
+        this.body = msg.getBody();
+        this.frames = frames;
+    }
+
+    /**
+     * Encodes a message into its wire representation.
+     *
+     * @param config
+     * @param msg
+     * @return the encoded message, or null if the message can't be sent
+     */
+    public static EncodedMessage of(Config config, Message msg) {
+        List<Frame> list;
+        try {
+            list = SemuxMessageHandler.encodeFrames(config, msg);
+        } catch (IOException e) {
+            logger.error("Failed to encode message: {}", msg, e);
+            return null;
+        }
+        if (list == null) {
+            return null;
+        }
+
+        int size = 0;
+        for (Frame frame : list) {
+            size += Frame.HEADER_SIZE + frame.getBodySize();
+        }
+
+        ByteBuf buf = ByteBufAllocator.DEFAULT.directBuffer(size);
+        for (Frame frame : list) {
+            frame.writeHeader(buf);
+            buf.writeBytes(frame.getBody());
+        }
+
+        return new EncodedMessage(msg, buf);
+    }
+
+    /**
+     * Returns the frames, including their headers.
+     *
+     * @return
+     */
+    public ByteBuf getFrames() {
+        return frames;
+    }
+
+    @Override
+    public int refCnt() {
+        return frames.refCnt();
+    }
+
+    @Override
+    public EncodedMessage retain() {
+        frames.retain();
+        return this;
+    }
+
+    @Override
+    public EncodedMessage retain(int increment) {
+        frames.retain(increment);
+        return this;
+    }
+
+    @Override
+    public EncodedMessage touch() {
+        frames.touch();
+        return this;
+    }
+
+    @Override
+    public EncodedMessage touch(Object hint) {
+        frames.touch(hint);
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return frames.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return frames.release(decrement);
+    }
+
+    @Override
+    public String toString() {
+        return "EncodedMessage [code=" + code + ", size=" + frames.readableBytes() + "]";
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.net;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * Selects the Netty transport: the native epoll transport if enabled and
+ * available, otherwise NIO.
+ */
+public final class NettyTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(NettyTransport.class);
+
+    private final boolean epoll;
+
+    private NettyTransport(boolean epoll) {
+        this.epoll = epoll;
+    }
+
+    /**
+     * Returns the transport to use.
+     *
+     * @param epollEnabled
+     *            whether the native epoll transport is preferred
+     * @return
+     */
+    public static NettyTransport of(boolean epollEnabled) {
+        if (epollEnabled && !Epoll.isAvailable()) {
+            logger.warn("Native epoll transport is unavailable, falling back to NIO: {}",
+                    Epoll.unavailabilityCause().getMessage());
+            return new NettyTransport(false);
+        }
+        return new NettyTransport(epollEnabled);
+    }
+
+    /**
+     * Returns whether this is the native epoll transport.
+     *
+     * @return
+     */
+    public boolean isEpoll() {
+        return epoll;
+    }
+
+    /**
+     * Creates an event loop group.
+     *
+     * @param threads
+     *            the number of threads, or 0 for two per core
+     * @param factory
+     * @return
+     */
+    public EventLoopGroup newEventLoopGroup(int threads, ThreadFactory factory) {
+        return epoll ? new EpollEventLoopGroup(threads, factory) : new NioEventLoopGroup(threads, factory);
+    }
+
+    /**
+     * Returns the server channel class.
+     *
+     * @return
+     */
+    public Class<? extends ServerSocketChannel> serverChannelClass() {
+        return epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    /**
+     * Returns the client channel class.
+     *
+     * @return
+     */
+    public Class<? extends SocketChannel> channelClass() {
+        return epoll ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+}
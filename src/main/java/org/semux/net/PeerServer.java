@@ -18,8 +18,7 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultMessageSizeEstimator;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.EventLoopGroup;
 import io.netty.handler.logging.LoggingHandler;
 
 /**
@@ -42,8 +41,8 @@ public class PeerServer {
 
     protected Channel channel;
 
-    private NioEventLoopGroup bossGroup;
-    private NioEventLoopGroup workerGroup;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
 
     public PeerServer(Kernel kernel) {
         this.kernel = kernel;
@@ -59,22 +58,25 @@ public class PeerServer {
         }
 
         try {
-            bossGroup = new NioEventLoopGroup(1, factory);
-            workerGroup = new NioEventLoopGroup(4, factory);
+            NettyTransport transport = NettyTransport.of(kernel.getConfig().netEpollEnabled());
+            bossGroup = transport.newEventLoopGroup(1, factory);
+            workerGroup = transport.newEventLoopGroup(kernel.getConfig().netEventLoopThreads(), factory);
 
             ServerBootstrap b = new ServerBootstrap();
 
             b.group(bossGroup, workerGroup);
-            b.channel(NioServerSocketChannel.class);
+            b.channel(transport.serverChannelClass());
 
             b.option(ChannelOption.SO_KEEPALIVE, true);
             b.option(ChannelOption.MESSAGE_SIZE_ESTIMATOR, DefaultMessageSizeEstimator.DEFAULT);
             b.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Constants.DEFAULT_CONNECT_TIMEOUT);
+            b.childOption(ChannelOption.TCP_NODELAY, true);
 
             b.handler(new LoggingHandler());
             b.childHandler(new SemuxChannelInitializer(kernel, null));
 
-            logger.info("Starting peer server: address = {}:{}", ip, port);
+            logger.info("Starting peer server: address = {}:{}, transport = {}", ip, port,
+                    transport.isEpoll() ? "epoll" : "nio");
             channel = b.bind(ip, port).sync().channel();
         } catch (Exception e) {
             logger.error("Failed to start peer server", e);
@@ -16,9 +16,9 @@ import org.slf4j.LoggerFactory;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.FixedRecvByteBufAllocator;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.socket.SocketChannel;
 
-public class SemuxChannelInitializer extends ChannelInitializer<NioSocketChannel> {
+public class SemuxChannelInitializer extends ChannelInitializer<SocketChannel> {
 
     private static final Logger logger = LoggerFactory.getLogger(SemuxChannelInitializer.class);
 
@@ -51,7 +51,7 @@ public class SemuxChannelInitializer extends ChannelInitializer<NioSocketChannel
     }
 
     @Override
-    public void initChannel(NioSocketChannel ch) throws Exception {
+    public void initChannel(SocketChannel ch) throws Exception {
         try {
             InetSocketAddress address = isServerMode() ? ch.remoteAddress() : remoteNode.toAddress();
             logger.debug("New {} channel: remoteAddress = {}:{}", isServerMode() ? "inbound" : "outbound",
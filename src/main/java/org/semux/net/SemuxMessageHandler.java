@@ -38,20 +38,45 @@ public class SemuxMessageHandler extends MessageToMessageCodec<Frame, Message> {
     private final Cache<Integer, Pair<List<Frame>, AtomicInteger>> incompletePackets = Caffeine.newBuilder()
             .maximumSize(MAX_PACKETS).build();
 
+    /**
+     * Packet ids are unique across channels, so that messages encoded once for
+     * many channels can't collide with the ones encoded per channel.
+     */
+    private static final AtomicInteger count = new AtomicInteger(0);
+
     private final Config config;
 
     private final MessageFactory messageFactory;
-    private final AtomicInteger count;
 
     public SemuxMessageHandler(Config config) {
         this.config = config;
 
         this.messageFactory = new MessageFactory();
-        this.count = new AtomicInteger(0);
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, Message msg, List<Object> out) throws Exception {
+        if (msg instanceof EncodedMessage) {
+            // the frames are shared, and released by the transport once written
+            out.add(((EncodedMessage) msg).getFrames().retainedDuplicate());
+            return;
+        }
+
+        List<Frame> frames = encodeFrames(config, msg);
+        if (frames != null) {
+            out.addAll(frames);
+        }
+    }
+
+    /**
+     * Compresses and splits a message into frames.
+     *
+     * @param config
+     * @param msg
+     * @return the frames, or null if the message can't be sent
+     * @throws IOException
+     */
+    protected static List<Frame> encodeFrames(Config config, Message msg) throws IOException {
         byte[] data = msg.getBody();
         byte[] dataCompressed = data;
 
@@ -63,7 +88,7 @@ public class SemuxMessageHandler extends MessageToMessageCodec<Frame, Message> {
             break;
         default:
             logger.error("Unsupported compress type: " + COMPRESS_TYPE);
-            return;
+            return null;
         }
 
         byte packetType = msg.getCode().toByte();
@@ -72,17 +97,20 @@ public class SemuxMessageHandler extends MessageToMessageCodec<Frame, Message> {
 
         if (data.length > config.netMaxPacketSize() || dataCompressed.length > config.netMaxPacketSize()) {
             logger.error("Invalid packet size, max = {}, actual = {}", config.netMaxPacketSize(), packetSize);
-            return;
+            return null;
         }
 
         int limit = config.netMaxFrameBodySize();
         int total = (dataCompressed.length - 1) / limit + 1;
+        List<Frame> frames = new ArrayList<>(total);
         for (int i = 0; i < total; i++) {
-            byte[] body = new byte[(i < total - 1) ? limit : dataCompressed.length % limit];
+            byte[] body = new byte[(i < total - 1) ? limit : dataCompressed.length - i * limit];
             System.arraycopy(dataCompressed, i * limit, body, 0, body.length);
 
-            out.add(new Frame(Frame.VERSION, COMPRESS_TYPE, packetType, packetId, packetSize, body.length, body));
+            frames.add(new Frame(Frame.VERSION, COMPRESS_TYPE, packetType, packetId, packetSize, body.length, body));
         }
+
+        return frames;
     }
 
     @Override
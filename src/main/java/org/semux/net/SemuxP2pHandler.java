@@ -26,7 +26,6 @@ import org.semux.Kernel;
 import org.semux.Network;
 import org.semux.config.Config;
 import org.semux.core.BftManager;
-import org.semux.core.Block;
 import org.semux.core.BlockHeader;
 import org.semux.core.BlockPart;
 import org.semux.core.Blockchain;
@@ -180,6 +179,14 @@ public class SemuxP2pHandler extends SimpleChannelInboundHandler<Message> {
         super.channelActive(ctx);
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        // resume writing queued messages
+        msgQueue.onWritabilityChanged();
+
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         logger.debug("P2P handler inactive, remoteIp = {}", channel.getRemoteIp());
@@ -366,7 +373,7 @@ public class SemuxP2pHandler extends SimpleChannelInboundHandler<Message> {
     }
 
     protected void onTransaction(TransactionMessage msg) {
-        pendingMgr.addTransaction(msg.getTransaction());
+        pendingMgr.addTransaction(msg.getTransaction(), channel.getRemoteIp());
     }
 
     protected void onHandshakeInit(InitMessage msg) {
@@ -454,8 +461,11 @@ public class SemuxP2pHandler extends SimpleChannelInboundHandler<Message> {
         switch (msg.getCode()) {
         case GET_BLOCK: {
             GetBlockMessage m = (GetBlockMessage) msg;
-            Block block = chain.getBlock(m.getNumber());
-            channel.getMessageQueue().sendMessage(new BlockMessage(block));
+            List<byte[]> parts = chain.getBlockParts(m.getNumber(), BlockPart.encode(BlockPart.values()));
+            if (parts != null) {
+                channel.getMessageQueue().sendMessage(
+                        new BlockMessage(parts.get(0), parts.get(1), parts.get(2), parts.get(3)));
+            }
             break;
         }
         case GET_BLOCK_HEADER: {
@@ -469,28 +479,11 @@ public class SemuxP2pHandler extends SimpleChannelInboundHandler<Message> {
             long number = m.getNumber();
             int parts = m.getParts();
 
-            List<byte[]> partsSerialized = new ArrayList<>();
-            Block block = chain.getBlock(number);
-            for (BlockPart part : BlockPart.decode(parts)) {
-                switch (part) {
-                case HEADER:
-                    partsSerialized.add(block.getEncodedHeader());
-                    break;
-                case TRANSACTIONS:
-                    partsSerialized.add(block.getEncodedTransactions());
-                    break;
-                case RESULTS:
-                    partsSerialized.add(block.getEncodedResults());
-                    break;
-                case VOTES:
-                    partsSerialized.add(block.getEncodedVotes());
-                    break;
-                default:
-                    throw new UnreachableException();
-                }
+            // the stored parts are served as they are, without decoding
+            List<byte[]> partsSerialized = chain.getBlockParts(number, parts);
+            if (partsSerialized != null) {
+                channel.getMessageQueue().sendMessage(new BlockPartsMessage(number, parts, partsSerialized));
             }
-
-            channel.getMessageQueue().sendMessage(new BlockPartsMessage(number, parts, partsSerialized));
             break;
         }
         case BLOCK:
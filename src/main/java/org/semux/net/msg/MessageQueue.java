@@ -8,10 +8,6 @@ package org.semux.net.msg;
 
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -23,31 +19,45 @@ import org.slf4j.LoggerFactory;
 
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.ReferenceCountUtil;
 
 /**
  * This class contains the logic for sending messages.
+ * <p>
+ * Messages are written on the channel's event loop as soon as they are queued
+ * and the channel is writable. The outgoing bytes are limited by a token bucket
+ * which refills at {@link Config#netMaxOutboundRate()} and holds up to one
+ * second worth of tokens, and each run on the event loop writes at most
+ * {@link #FLUSH_BUDGET} bytes before yielding to other channels.
  */
 public class MessageQueue {
 
     private static final Logger logger = LoggerFactory.getLogger(MessageQueue.class);
 
-    private static final ScheduledExecutorService timer = Executors.newScheduledThreadPool(4, new ThreadFactory() {
-        private final AtomicInteger cnt = new AtomicInteger(0);
+    /**
+     * The max number of bytes written in one run on the event loop.
+     */
+    private static final int FLUSH_BUDGET = 256 * 1024;
 
-        public Thread newThread(Runnable r) {
-            return new Thread(r, "msg-" + cnt.getAndIncrement());
-        }
-    });
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
 
     private final Config config;
 
     private final Queue<Message> queue = new ConcurrentLinkedQueue<>();
     private final Queue<Message> prioritized = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger(0);
 
-    private ChannelHandlerContext ctx;
-    private ScheduledFuture<?> timerTask;
+    private volatile ChannelHandlerContext ctx;
+
+    // Whether a flush is scheduled or running on the event loop
+    private final AtomicBoolean isFlushScheduled = new AtomicBoolean(false);
+
+    // Token bucket, only accessed on the event loop
+    private long tokens;
+    private long lastRefill;
 
     private AtomicBoolean isClosed = new AtomicBoolean(false);
+    private volatile boolean isDeactivated = false;
 
     /**
      * Create a message queue with the specified maximum queue size.
@@ -64,21 +74,29 @@ public class MessageQueue {
      * @param ctx
      */
     public synchronized void activate(ChannelHandlerContext ctx) {
+        this.tokens = config.netMaxOutboundRate();
+        this.lastRefill = System.nanoTime();
         this.ctx = ctx;
-        this.timerTask = timer.scheduleAtFixedRate(() -> {
-            try {
-                nudgeQueue();
-            } catch (Exception t) {
-                logger.error("Exception in MessageQueue", t);
-            }
-        }, 10, 10, TimeUnit.MILLISECONDS);
+
+        scheduleFlush(0);
     }
 
     /**
      * Deactivates this message queue.
      */
     public synchronized void deactivate() {
-        this.timerTask.cancel(false);
+        this.isDeactivated = true;
+        releaseAll();
+    }
+
+    /**
+     * Drops the references to queued messages that will never be written.
+     */
+    private void releaseAll() {
+        Message msg;
+        while ((msg = poll()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
     }
 
     /**
@@ -109,7 +127,8 @@ public class MessageQueue {
     }
 
     /**
-     * Adds a message to the sending queue.
+     * Adds a message to the sending queue. A reference-counted message is
+     * retained until it's written or the queue is deactivated.
      *
      * @param msg
      *            the message to be sent
@@ -117,44 +136,128 @@ public class MessageQueue {
      *         false
      */
     public boolean sendMessage(Message msg) {
+        if (isDeactivated) {
+            return false;
+        }
+
         if (size() >= config.netMaxMessageQueueSize()) {
             disconnect(ReasonCode.MESSAGE_QUEUE_FULL);
             return false;
         }
 
+        ReferenceCountUtil.retain(msg);
         if (config.netPrioritizedMessages().contains(msg.getCode())) {
             prioritized.add(msg);
         } else {
             queue.add(msg);
         }
+        size.incrementAndGet();
+
+        // the queue may have been deactivated and drained after the check above;
+        // each message is polled once, so whoever gets it releases it
+        if (isDeactivated) {
+            releaseAll();
+            return false;
+        }
+
+        scheduleFlush(0);
         return true;
     }
 
+    /**
+     * Resumes writing once the channel becomes writable again.
+     */
+    public void onWritabilityChanged() {
+        scheduleFlush(0);
+    }
+
     /**
      * Returns the number of messages in queue.
      *
      * @return
      */
     public int size() {
-        return queue.size() + prioritized.size();
+        return size.get();
     }
 
-    protected void nudgeQueue() {
-        // 1000 / 10 * 5 = 500 messages per second
-        int n = Math.min(5, size());
-        if (n == 0) {
+    private Message poll() {
+        Message msg = !prioritized.isEmpty() ? prioritized.poll() : queue.poll();
+        if (msg != null) {
+            size.decrementAndGet();
+        }
+        return msg;
+    }
+
+    /**
+     * Schedules a flush on the event loop, unless one is pending already.
+     *
+     * @param delay
+     *            the delay in nanoseconds
+     */
+    private void scheduleFlush(long delay) {
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null || isDeactivated || size() == 0 || !isFlushScheduled.compareAndSet(false, true)) {
             return;
         }
 
-        // write out n messages
-        for (int i = 0; i < n; i++) {
-            Message msg = !prioritized.isEmpty() ? prioritized.poll() : queue.poll();
+        if (delay > 0) {
+            ctx.executor().schedule(this::nudgeQueue, delay, TimeUnit.NANOSECONDS);
+        } else {
+            ctx.executor().execute(this::nudgeQueue);
+        }
+    }
 
-            logger.trace("Wiring message: {}", msg);
-            ctx.write(msg).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
+    /**
+     * Writes out queued messages, as far as the channel writability, the rate
+     * limit and the flush budget allow.
+     */
+    protected void nudgeQueue() {
+        int rate = config.netMaxOutboundRate();
+        long delay = 0;
+
+        try {
+            // refill the token bucket
+            long now = System.nanoTime();
+            if (rate > 0) {
+                long elapsed = Math.min(now - lastRefill, ONE_SECOND);
+                tokens = Math.min(rate, tokens + elapsed * rate / ONE_SECOND);
+            }
+            lastRefill = now;
+
+            int written = 0;
+            while (written < FLUSH_BUDGET && (rate <= 0 || tokens > 0) && ctx.channel().isWritable()) {
+                Message msg = poll();
+                if (msg == null) {
+                    break;
+                }
+
+                int bytes = msg.getBody().length;
+                logger.trace("Wiring message: {}", msg);
+                ctx.write(msg).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
+
+                written += bytes;
+                if (rate > 0) {
+                    tokens -= bytes;
+                }
+            }
+
+            if (written > 0) {
+                ctx.flush();
+            }
+
+            // wait until the bucket has tokens again
+            if (rate > 0 && tokens <= 0) {
+                delay = Math.max(1, (1 - tokens) * ONE_SECOND / rate);
+            }
+        } catch (Exception e) {
+            logger.error("Exception in MessageQueue", e);
+        } finally {
+            isFlushScheduled.set(false);
         }
 
-        // flush
-        ctx.flush();
+        // the remaining messages are picked up once the channel becomes writable
+        if (ctx.channel().isWritable()) {
+            scheduleFlush(delay);
+        }
     }
 }
@@ -22,6 +22,23 @@ public class BlockMessage extends Message {
         this.body = block.toBytes();
     }
 
+    /**
+     * Creates a block message from the encoded block components, without
+     * decoding them. The block of such a message is not available.
+     *
+     * @param header
+     * @param transactions
+     * @param results
+     * @param votes
+     */
+    public BlockMessage(byte[] header, byte[] transactions, byte[] results, byte[] votes) {
+        super(MessageCode.BLOCK, null);
+
+        this.block = null;
+
+        this.body = Block.encode(header, transactions, results, votes);
+    }
+
     public BlockMessage(byte[] body) {
         super(MessageCode.BLOCK, null);
 
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over cryptographic hashes, which tells for sure that a hash
+ * has never been added, or that it might have been.
+ * <p>
+ * Since the elements are uniformly distributed already, the bit positions are
+ * derived from the element bytes directly by double hashing, without hashing
+ * them again. Elements must be at least 16 bytes long.
+ * <p>
+ * This class is thread-safe.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+
+    /**
+     * Creates a Bloom filter.
+     *
+     * @param expectedInsertions
+     *            the expected number of elements
+     * @param fpp
+     *            the desired false positive probability, once the expected number
+     *            of elements have been added
+     */
+    public BloomFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter parameters");
+        }
+
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.numBits = words * 64L;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Adds an element.
+     *
+     * @param element
+     */
+    public void put(byte[] element) {
+        long h1 = toLong(element, 0);
+        long h2 = toLong(element, 8);
+
+        for (int i = 0; i < numHashes; i++) {
+            long index = Long.remainderUnsigned(h1 + i * h2, numBits);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+
+            long value;
+            while (((value = bits.get(word)) & mask) == 0) {
+                if (bits.compareAndSet(word, value, value | mask)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether an element might have been added. False positives are
+     * possible but false negatives are not.
+     *
+     * @param element
+     * @return
+     */
+    public boolean mightContain(byte[] element) {
+        long h1 = toLong(element, 0);
+        long h2 = toLong(element, 8);
+
+        for (int i = 0; i < numHashes; i++) {
+            long index = Long.remainderUnsigned(h1 + i * h2, numBits);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the size of this filter, in bits.
+     *
+     * @return
+     */
+    public long bitSize() {
+        return numBits;
+    }
+
+    /**
+     * Returns the number of bits probed per element.
+     *
+     * @return
+     */
+    public int numHashes() {
+        return numHashes;
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xffL);
+        }
+        return value;
+    }
+}
@@ -6,47 +6,69 @@
  */
 package org.semux.util;
 
+import static org.semux.crypto.Hash.HASH_LEN;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import org.semux.crypto.Hash;
 
 /**
  * Simple implementation of the Merkle tree.
+ * <p>
+ * Each level of the tree is stored in a flat buffer of 32-byte hashes, from the
+ * leaves up to the root. A node is the hash of its two children, and the last
+ * node of a level with odd size is promoted as is. Large levels are hashed in
+ * parallel.
  */
 public class MerkleTree {
 
-    private final Node root;
+    /**
+     * The min number of nodes of a level to be hashed in parallel.
+     */
+    protected static final int PARALLEL_THRESHOLD = 256;
+
     private final int size;
-    private int levels = 0;
+    private final byte[][] levels;
 
     /**
      * Construct a Merkle tree.
-     * 
+     *
      * @param hashes
      */
     public MerkleTree(List<byte[]> hashes) {
-        this.size = hashes.size();
+        this(flatten(hashes));
+    }
 
-        List<Node> nodes = new ArrayList<>();
-        for (byte[] b : hashes) {
-            nodes.add(new Node(b));
+    /**
+     * Construct a Merkle tree from the concatenated 32-byte hashes of the
+     * elements.
+     *
+     * @param leaves
+     */
+    public MerkleTree(byte[] leaves) {
+        if (leaves.length % HASH_LEN != 0) {
+            throw new IllegalArgumentException("Leaves must be a multiple of " + HASH_LEN + " bytes");
         }
-        this.root = build(nodes);
+
+        this.size = leaves.length / HASH_LEN;
+        this.levels = build(leaves);
     }
 
     /**
      * Get the root hash.
-     * 
+     *
      * @return
      */
     public byte[] getRootHash() {
-        return root.value;
+        return size == 0 ? Bytes.EMPTY_HASH : levels[levels.length - 1];
     }
 
     /**
      * Get the size of elements.
-     * 
+     *
      * @return
      */
     public int size() {
@@ -54,72 +76,130 @@ public class MerkleTree {
     }
 
     /**
-     * Returns the Merkle proof of the Nth element.
-     * 
+     * Returns the hashes on the path from the root down to the Nth element.
+     *
      * @param i
      *            the element index, starting from zero.
      * @return
      */
     public List<byte[]> getProof(int i) {
         List<byte[]> proof = new ArrayList<>();
+        if (size == 0) {
+            proof.add(Bytes.EMPTY_HASH);
+            return proof;
+        }
 
-        int half = 1 << (levels - 2);
-        Node p = root;
-        do {
-            // shallow copy
-            proof.add(p.value);
-
-            if (i < half) {
-                p = p.left;
-            } else {
-                p = p.right;
-            }
-            i -= half;
-            half >>= 1;
-        } while (p != null);
+        for (int level = levels.length - 1; level >= 0; level--) {
+            proof.add(get(level, i >> level));
+        }
 
         return proof;
     }
 
-    private Node build(List<Node> nodes) {
-        if (nodes.isEmpty()) {
-            return new Node(Bytes.EMPTY_HASH);
+    /**
+     * Returns the audit path of the Nth element, which are the sibling hashes
+     * from the leaf level up to the root. A node promoted without a sibling adds
+     * nothing to the path.
+     *
+     * @param i
+     *            the element index, starting from zero.
+     * @return
+     * @see #verifyAuditPath(byte[], byte[], int, int, List)
+     */
+    public List<byte[]> getAuditPath(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+        }
+
+        List<byte[]> path = new ArrayList<>();
+        for (int level = 0; level < levels.length - 1; level++) {
+            int sibling = i ^ 1;
+            if (sibling < count(level)) {
+                path.add(get(level, sibling));
+            }
+            i >>= 1;
         }
 
-        while (nodes.size() > 1) {
-            List<Node> list = new ArrayList<>();
+        return path;
+    }
+
+    /**
+     * Verifies that an element belongs to a Merkle tree.
+     *
+     * @param root
+     *            the root hash
+     * @param leaf
+     *            the element hash
+     * @param i
+     *            the element index
+     * @param size
+     *            the number of elements in the tree
+     * @param path
+     *            the audit path of the element
+     * @return true if the element is at the given index, otherwise false
+     */
+    public static boolean verifyAuditPath(byte[] root, byte[] leaf, int i, int size, List<byte[]> path) {
+        if (i < 0 || i >= size) {
+            return false;
+        }
 
-            for (int i = 0; i < nodes.size(); i += 2) {
-                Node left = nodes.get(i);
-                if (i + 1 < nodes.size()) {
-                    Node right = nodes.get(i + 1);
-                    list.add(new Node(Hash.h256(left.value, right.value), left, right));
-                } else {
-                    list.add(new Node(left.value, left, null));
+        byte[] hash = leaf;
+        int n = 0;
+        for (int count = size; count > 1; count = (count + 1) / 2) {
+            int sibling = i ^ 1;
+            if (sibling < count) {
+                if (n >= path.size()) {
+                    return false;
                 }
+                hash = (i & 1) == 0 ? Hash.h256(hash, path.get(n++)) : Hash.h256(path.get(n++), hash);
             }
-
-            levels++;
-            nodes = list;
+            i >>= 1;
         }
 
-        levels++;
-        return nodes.get(0);
+        return n == path.size() && Arrays.equals(hash, root);
     }
 
-    private static class Node {
-        final byte[] value;
-        Node left;
-        Node right;
+    private int count(int level) {
+        return levels[level].length / HASH_LEN;
+    }
 
-        public Node(byte[] value) {
-            this.value = value;
+    private byte[] get(int level, int i) {
+        int offset = i * HASH_LEN;
+        return Arrays.copyOfRange(levels[level], offset, offset + HASH_LEN);
+    }
+
+    private static byte[][] build(byte[] leaves) {
+        List<byte[]> list = new ArrayList<>();
+        list.add(leaves);
+
+        byte[] nodes = leaves;
+        while (nodes.length > HASH_LEN) {
+            int count = nodes.length / HASH_LEN;
+            byte[] parents = new byte[(count + 1) / 2 * HASH_LEN];
+            byte[] children = nodes;
+
+            IntStream range = IntStream.range(0, count / 2);
+            if (count >= PARALLEL_THRESHOLD) {
+                range = range.parallel();
+            }
+            range.forEach(i -> Hash.h256(children, 2 * i * HASH_LEN, 2 * HASH_LEN, parents, i * HASH_LEN));
+
+            if (count % 2 == 1) {
+                System.arraycopy(children, (count - 1) * HASH_LEN, parents, (count / 2) * HASH_LEN, HASH_LEN);
+            }
+
+            list.add(parents);
+            nodes = parents;
         }
 
-        public Node(byte[] value, Node left, Node right) {
-            this.value = value;
-            this.left = left;
-            this.right = right;
+        return list.toArray(new byte[0][]);
+    }
+
+    private static byte[] flatten(List<byte[]> hashes) {
+        byte[] leaves = new byte[hashes.size() * HASH_LEN];
+        for (int i = 0; i < hashes.size(); i++) {
+            System.arraycopy(hashes.get(i), 0, leaves, i * HASH_LEN, HASH_LEN);
         }
+        return leaves;
     }
 }
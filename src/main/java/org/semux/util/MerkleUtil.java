@@ -6,8 +6,10 @@
  */
 package org.semux.util;
 
-import java.util.ArrayList;
+import static org.semux.crypto.Hash.HASH_LEN;
+
 import java.util.List;
+import java.util.stream.IntStream;
 
 import org.semux.core.Transaction;
 import org.semux.core.TransactionResult;
@@ -23,11 +25,11 @@ public class MerkleUtil {
      * @return
      */
     public static byte[] computeTransactionsRoot(List<Transaction> txs) {
-        List<byte[]> hashes = new ArrayList<>();
-        for (Transaction tx : txs) {
-            hashes.add(tx.getHash());
+        byte[] leaves = new byte[txs.size() * HASH_LEN];
+        for (int i = 0; i < txs.size(); i++) {
+            System.arraycopy(txs.get(i).getHash(), 0, leaves, i * HASH_LEN, HASH_LEN);
         }
-        return new MerkleTree(hashes).getRootHash();
+        return new MerkleTree(leaves).getRootHash();
     }
 
     /**
@@ -38,11 +40,16 @@ public class MerkleUtil {
      * @return
      */
     public static byte[] computeResultsRoot(List<TransactionResult> results) {
-        List<byte[]> hashes = new ArrayList<>();
-        for (TransactionResult tx : results) {
-            hashes.add(Hash.h256(tx.toBytesForMerkle()));
+        byte[] leaves = new byte[results.size() * HASH_LEN];
+        IntStream range = IntStream.range(0, results.size());
+        if (results.size() >= MerkleTree.PARALLEL_THRESHOLD) {
+            range = range.parallel();
         }
-        return new MerkleTree(hashes).getRootHash();
+        range.forEach(i -> {
+            byte[] bytes = results.get(i).toBytesForMerkle();
+            Hash.h256(bytes, 0, bytes.length, leaves, i * HASH_LEN);
+        });
+        return new MerkleTree(leaves).getRootHash();
     }
 
     private MerkleUtil() {
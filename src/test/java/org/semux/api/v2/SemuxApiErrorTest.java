@@ -110,6 +110,10 @@ public class SemuxApiErrorTest extends SemuxApiTestBase {
 
                 { GET.class, uriBuilder("getTransaction").queryParam("hash", randomHex()).build() },
 
+                { GET.class, uriBuilder("getLogs").queryParam("from", "2").queryParam("to", "1").build() },
+
+                { GET.class, uriBuilder("getLogs").queryParam("from", "0").queryParam("to", "10000").build() },
+
                 { GET.class, uriBuilder("broadcastRawTransaction").build() },
 
                 { GET.class,
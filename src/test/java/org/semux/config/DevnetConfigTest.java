@@ -7,16 +7,58 @@
 package org.semux.config;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.iq80.leveldb.CompressionType;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.semux.Network;
+import org.semux.db.DatabaseName;
+import org.semux.db.DatabaseOptions;
 
 public class DevnetConfigTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void testNetworkId() {
         Config config = new DevnetConfig(Constants.DEFAULT_DATA_DIR);
         assertEquals(Network.DEVNET, config.network());
     }
 
+    @Test
+    public void testDatabaseOptions() throws IOException {
+        File dataDir = temporaryFolder.getRoot();
+        File configDir = new File(dataDir, Constants.CONFIG_DIR);
+        configDir.mkdirs();
+        Files.write(new File(configDir, "semux.properties").toPath(), Arrays.asList(
+                "db.account.cacheSize = 128",
+                "db.account.blockSize = 8",
+                "db.block.compression = none",
+                "db.block.verifyChecksums = false"), StandardCharsets.UTF_8);
+
+        Config config = new DevnetConfig(dataDir.getAbsolutePath());
+
+        DatabaseOptions account = config.dbOptions(DatabaseName.ACCOUNT);
+        assertEquals(128L * 1024L * 1024L, account.cacheSize());
+        assertEquals(8 * 1024, account.blockSize());
+        assertEquals(DatabaseOptions.of(DatabaseName.ACCOUNT).writeBufferSize(), account.writeBufferSize());
+
+        DatabaseOptions block = config.dbOptions(DatabaseName.BLOCK);
+        assertEquals(CompressionType.NONE, block.compression());
+        assertFalse(block.verifyChecksums());
+
+        // untouched stores keep their profile
+        assertEquals(CompressionType.NONE, config.dbOptions(DatabaseName.VOTE).compression());
+        assertEquals(DatabaseOptions.of(DatabaseName.VOTE).cacheSize(),
+                config.dbOptions(DatabaseName.VOTE).cacheSize());
+    }
 }
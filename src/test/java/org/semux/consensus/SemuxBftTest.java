@@ -9,13 +9,19 @@ package org.semux.consensus;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.semux.core.Fork.UNIFORM_DISTRIBUTION;
 import static org.semux.core.Unit.SEM;
@@ -23,6 +29,7 @@ import static org.semux.core.Unit.SEM;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -40,6 +47,8 @@ import org.semux.core.Transaction;
 import org.semux.core.TransactionResult;
 import org.semux.core.TransactionType;
 import org.semux.crypto.Key;
+import org.semux.net.Channel;
+import org.semux.net.msg.ReasonCode;
 import org.semux.rules.KernelRule;
 import org.semux.rules.TemporaryDatabaseRule;
 import org.semux.util.Bytes;
@@ -260,6 +269,34 @@ public class SemuxBftTest {
         assertEquals(timestamp + 1, block.getTimestamp());
     }
 
+    @Test
+    public void testVerifyVotes() throws InterruptedException {
+        kernelRule.getKernel().setBlockchain(new BlockchainImpl(kernelRule.getKernel().getConfig(), temporaryDBRule));
+        SemuxBft bft = new SemuxBft(kernelRule.getKernel());
+        bft.verifier.start();
+
+        Channel good = mock(Channel.class, RETURNS_DEEP_STUBS);
+        Channel bad = mock(Channel.class, RETURNS_DEEP_STUBS);
+        int n = 8;
+        for (int i = 0; i < n; i++) {
+            Vote vote = Vote.newApprove(VoteType.VALIDATE, 1, 0, Bytes.random(32)).sign(new Key());
+            bft.verifier.verify(good, new Vote(vote.getEncoded(), vote.getSignature().toBytes()));
+        }
+        Vote vote = Vote.newApprove(VoteType.VALIDATE, 1, 0, Bytes.random(32)).sign(new Key());
+        Vote forged = Vote.newApprove(VoteType.VALIDATE, 1, 0, Bytes.random(32));
+        bft.verifier.verify(bad, new Vote(forged.getEncoded(), vote.getSignature().toBytes()));
+
+        for (int i = 0; i < n; i++) {
+            SemuxBft.Event ev = bft.events.poll(10, TimeUnit.SECONDS);
+            assertNotNull(ev);
+            assertEquals(SemuxBft.Event.Type.VOTE, ev.getType());
+        }
+        verify(bad.getMessageQueue(), timeout(10000)).disconnect(ReasonCode.BAD_PEER);
+        verify(good.getMessageQueue(), never()).disconnect(any());
+
+        bft.verifier.stop();
+    }
+
     private Transaction createTransaction(Key to, Key from, long time, long nonce) {
         return new Transaction(
                 kernelRule.getKernel().getConfig().network(),
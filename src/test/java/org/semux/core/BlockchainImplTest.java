@@ -12,11 +12,16 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -27,10 +32,15 @@ import org.semux.config.Config;
 import org.semux.config.Constants;
 import org.semux.config.UnitTestnetConfig;
 import org.semux.core.BlockchainImpl.StatsType;
+import org.semux.core.state.Account;
 import org.semux.crypto.Key;
+import org.semux.db.Database;
+import org.semux.db.DatabaseName;
 import org.semux.rules.TemporaryDatabaseRule;
 import org.semux.util.Bytes;
+import org.semux.util.ClosableIterator;
 import org.semux.util.MerkleUtil;
+import org.semux.util.SimpleEncoder;
 import org.semux.util.TimeUtil;
 import org.semux.vm.client.SemuxInternalTransaction;
 
@@ -107,6 +117,26 @@ public class BlockchainImplTest {
         assertFalse(chain.hasBlock(1));
     }
 
+    @Test
+    public void testGetBlockParts() {
+        assertNull(chain.getBlockParts(1, BlockPart.encode(BlockPart.HEADER)));
+
+        Block newBlock = createBlock(1);
+        chain.addBlock(newBlock);
+
+        List<byte[]> parts = chain.getBlockParts(1, BlockPart.encode(BlockPart.values()));
+        assertEquals(4, parts.size());
+        assertArrayEquals(newBlock.getEncodedHeader(), parts.get(0));
+        assertArrayEquals(newBlock.getEncodedTransactions(), parts.get(1));
+        assertArrayEquals(newBlock.getEncodedResults(), parts.get(2));
+        assertArrayEquals(newBlock.getEncodedVotes(), parts.get(3));
+
+        parts = chain.getBlockParts(1, BlockPart.encode(BlockPart.HEADER, BlockPart.VOTES));
+        assertEquals(2, parts.size());
+        assertArrayEquals(newBlock.getEncodedHeader(), parts.get(0));
+        assertArrayEquals(newBlock.getEncodedVotes(), parts.get(1));
+    }
+
     @Test
     public void testGetBlockNumber() {
         long number = 1;
@@ -160,6 +190,17 @@ public class BlockchainImplTest {
         assertTrue(chain.hasTransaction(tx.getHash()));
     }
 
+    @Test
+    public void testHasTransactionAfterReload() {
+        Block newBlock = createBlock(1);
+        chain.addBlock(newBlock);
+
+        // the transaction filter is rebuilt from the index
+        chain = new BlockchainImpl(config, temporaryDBFactory);
+        assertTrue(chain.hasTransaction(tx.getHash()));
+        assertFalse(chain.hasTransaction(Bytes.random(32)));
+    }
+
     @Test
     public void testGetTransactionResult() {
         assertNull(chain.getTransaction(tx.getHash()));
@@ -261,6 +302,48 @@ public class BlockchainImplTest {
         assertArrayEquals(tx.toBytes(), txs.get(0).toBytes());
     }
 
+    @Test
+    public void testGetTransactionsPaging() {
+        // transactions of one account spread over blocks, plus unrelated ones
+        List<Transaction> all = new ArrayList<>();
+        for (int number = 1; number <= 3; number++) {
+            List<Transaction> txs = new ArrayList<>();
+            List<TransactionResult> results = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                Key sender = (i % 3 == 0) ? new Key() : key;
+                Transaction t = new Transaction(network, TransactionType.TRANSFER, to, value, fee, number * 100 + i,
+                        timestamp, data).sign(sender);
+                txs.add(t);
+                results.add(new TransactionResult());
+                if (sender == key) {
+                    all.add(t);
+                }
+            }
+            chain.addBlock(createBlock(number, txs, results));
+        }
+        assertEquals(all.size(), chain.getTransactionCount(from));
+
+        // pages
+        for (int start = 0; start < all.size(); start += 7) {
+            List<Transaction> page = chain.getTransactions(from, start, start + 7);
+            assertEquals(Math.min(7, all.size() - start), page.size());
+            for (int i = 0; i < page.size(); i++) {
+                assertArrayEquals(all.get(start + i).getHash(), page.get(i).getHash());
+            }
+        }
+
+        // cursor
+        ClosableIterator<Transaction> itr = chain.getTransactionIterator(from, 5);
+        int n = 5;
+        while (itr.hasNext()) {
+            assertArrayEquals(all.get(n++).getHash(), itr.next().getHash());
+        }
+        itr.close();
+        assertEquals(all.size(), n);
+
+        assertTrue(chain.getTransactions(from, all.size(), all.size() + 10).isEmpty());
+    }
+
     @Test
     public void testSerialization() {
         Block block1 = createBlock(1);
@@ -307,6 +390,146 @@ public class BlockchainImplTest {
         assertArrayEquals(selfTx.getHash(), list.get(0).getHash());
     }
 
+    @Test
+    public void testGetLogs() {
+        byte[] token = Bytes.random(20);
+        byte[] other = Bytes.random(20);
+        byte[] transfer = Bytes.random(32);
+        byte[] approval = Bytes.random(32);
+        byte[] holder = Bytes.random(32);
+
+        // block 1: a transfer; block 2: no logs; block 3: an approval and a transfer
+        // of another contract
+        List<Transaction> txs = new ArrayList<>();
+        for (int number = 1; number <= 3; number++) {
+            Transaction t = new Transaction(network, TransactionType.CALL, token, value, fee, number, timestamp,
+                    data).sign(key);
+            txs.add(t);
+
+            List<LogInfo> logs = new ArrayList<>();
+            if (number == 1) {
+                logs.add(new LogInfo(token, Arrays.asList(DataWord.of(transfer), DataWord.of(holder)), data));
+            } else if (number == 3) {
+                logs.add(new LogInfo(token, Arrays.asList(DataWord.of(approval), DataWord.of(holder)), data));
+                logs.add(new LogInfo(other, Collections.singletonList(DataWord.of(transfer)), data));
+            }
+            TransactionResult result = new TransactionResult(TransactionResult.Code.SUCCESS, Bytes.EMPTY_BYTES, logs);
+            chain.addBlock(createBlock(number, Collections.singletonList(t), Collections.singletonList(result)));
+        }
+
+        assertEquals(3, chain.getLogs(0, 3, null, Collections.emptyList(), Integer.MAX_VALUE).size());
+        assertEquals(2, chain.getLogs(0, 3, token, Collections.emptyList(), Integer.MAX_VALUE).size());
+        assertEquals(1, chain.getLogs(2, 3, token, Collections.emptyList(), Integer.MAX_VALUE).size());
+
+        List<ContractLog> logs = chain.getLogs(0, 3, null, Collections.singletonList(transfer), Integer.MAX_VALUE);
+        assertEquals(2, logs.size());
+        assertEquals(1, logs.get(0).getBlockNumber());
+        assertArrayEquals(txs.get(0).getHash(), logs.get(0).getTransactionHash());
+        assertEquals(3, logs.get(1).getBlockNumber());
+        assertEquals(1, logs.get(1).getLogIndex());
+        assertArrayEquals(other, logs.get(1).getLog().getAddress());
+
+        // topics match by position, null for any
+        logs = chain.getLogs(0, 3, token, Arrays.asList(null, holder), Integer.MAX_VALUE);
+        assertEquals(2, logs.size());
+        assertTrue(chain.getLogs(0, 3, token, Collections.singletonList(holder), Integer.MAX_VALUE).isEmpty());
+        assertTrue(chain.getLogs(0, 3, other, Collections.singletonList(approval), Integer.MAX_VALUE).isEmpty());
+        assertTrue(chain.getLogs(0, 3, Bytes.random(20), Collections.emptyList(), Integer.MAX_VALUE).isEmpty());
+
+        // the scan stops at the end of the block where the limit is reached
+        assertEquals(1, chain.getLogs(0, 3, null, Collections.emptyList(), 1).size());
+        assertEquals(2, chain.getLogs(2, 3, null, Collections.emptyList(), 1).size());
+
+        // the index is rebuilt for a database created before it existed
+        temporaryDBFactory.getDB(DatabaseName.INDEX).delete(Bytes.of(BlockchainImpl.TYPE_LOG_BLOOM_BY_NUMBER));
+        chain = new BlockchainImpl(config, temporaryDBFactory);
+        assertEquals(2, chain.getLogs(0, 3, null, Collections.singletonList(transfer), Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testBlockCache() {
+        List<Block> blocks = new ArrayList<>();
+        for (int number = 1; number <= BlockCache.PINNED_BLOCKS + 2; number++) {
+            Block block = createBlock(number);
+            chain.addBlock(block);
+            blocks.add(block);
+        }
+
+        // recent blocks are served as added
+        Block latest = blocks.get(blocks.size() - 1);
+        long hits = chain.getBlockCacheStats().hitCount();
+        assertSame(latest, chain.getBlock(latest.getNumber()));
+        assertSame(latest.getHeader(), chain.getBlockHeader(latest.getHash()));
+        assertEquals(hits + 2, chain.getBlockCacheStats().hitCount());
+
+        // older blocks stay cached once unpinned
+        assertSame(blocks.get(0), chain.getBlock(1));
+
+        // decoded on a miss, then cached
+        chain = new BlockchainImpl(config, temporaryDBFactory);
+        long misses = chain.getBlockCacheStats().missCount();
+        Block block = chain.getBlock(1);
+        assertArrayEquals(blocks.get(0).getHash(), block.getHash());
+        assertSame(block, chain.getBlock(1));
+        assertNull(chain.getBlock(latest.getNumber() + 1));
+        assertEquals(misses + 2, chain.getBlockCacheStats().missCount());
+    }
+
+    @Test
+    public void testReindex() {
+        List<Transaction> txs = new ArrayList<>();
+        for (int number = 1; number <= 3; number++) {
+            Transaction t = new Transaction(network, TransactionType.TRANSFER, to, value, fee, number, timestamp,
+                    data).sign(key);
+            txs.add(t);
+            chain.addBlock(createBlock(number, Collections.singletonList(t), Collections.singletonList(res)));
+        }
+        byte[] hash = chain.getBlockHeader(2).getHash();
+        Transaction coinbaseTx = chain.getCoinbaseTransaction(chain.getBlock(2));
+
+        // lose an entry, then rebuild the indices from the stored blocks
+        Database indexDB = temporaryDBFactory.getDB(DatabaseName.INDEX);
+        indexDB.delete(Bytes.merge(BlockchainImpl.TYPE_BLOCK_NUMBER_BY_HASH, hash));
+        IndexUpgrade.request(indexDB);
+        chain = new BlockchainImpl(config, temporaryDBFactory);
+
+        assertEquals(2, chain.getBlockNumber(hash));
+        assertEquals(txs.size(), chain.getTransactionCount(from));
+        List<Transaction> list = chain.getTransactions(from, 0, 10);
+        for (int i = 0; i < txs.size(); i++) {
+            assertArrayEquals(txs.get(i).getHash(), list.get(i).getHash());
+        }
+        assertTrue(chain.hasTransaction(coinbaseTx.getHash()));
+        assertFalse(IndexUpgrade.isNeeded(indexDB));
+    }
+
+    @Test
+    public void testRevertInterruptedCommit() {
+        byte[] address = Bytes.random(20);
+        byte[] accountKey = Bytes.merge((byte) 0, address);
+        byte[] headerKey = Bytes.merge(BlockchainImpl.TYPE_BLOCK_HEADER_BY_NUMBER, Bytes.of(1L));
+
+        // the commit of block #1 stopped after its state reached the disk
+        SimpleEncoder enc = new SimpleEncoder();
+        enc.writeLong(1L);
+        enc.writeInt(1);
+        enc.writeBytes(accountKey);
+        enc.writeBoolean(false);
+        enc.writeInt(0);
+        enc.writeInt(0);
+        Database indexDB = temporaryDBFactory.getDB(DatabaseName.INDEX);
+        indexDB.put(Bytes.of(BlockchainImpl.TYPE_COMMITTING_BLOCK), enc.toBytes());
+        temporaryDBFactory.getDB(DatabaseName.ACCOUNT).put(accountKey,
+                new Account(address, Amount.of(10), Amount.ZERO, 0).toBytes());
+        temporaryDBFactory.getDB(DatabaseName.BLOCK).put(headerKey, Bytes.random(32));
+
+        chain = new BlockchainImpl(config, temporaryDBFactory);
+        assertEquals(0, chain.getLatestBlockNumber());
+        assertEquals(Amount.ZERO, chain.getAccountState().getAccount(address).getAvailable());
+        assertNull(temporaryDBFactory.getDB(DatabaseName.BLOCK).get(headerKey));
+        assertNull(indexDB.get(Bytes.of(BlockchainImpl.TYPE_COMMITTING_BLOCK)));
+    }
+
     @Test
     public void testValidatorStates() {
         byte[] address = Bytes.random(20);
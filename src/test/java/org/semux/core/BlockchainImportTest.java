@@ -6,6 +6,7 @@
  */
 package org.semux.core;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
@@ -28,6 +29,7 @@ import org.semux.config.Config;
 import org.semux.config.Constants;
 import org.semux.consensus.Vote;
 import org.semux.consensus.VoteType;
+import org.semux.core.state.AccountState;
 import org.semux.crypto.Hex;
 import org.semux.crypto.Key;
 import org.semux.rules.KernelRule;
@@ -181,4 +183,28 @@ public class BlockchainImportTest {
         // tests
         assertFalse(chain.importBlock(block, false));
     }
+
+    @Test
+    public void testImportExecutedBlock() {
+        BlockchainImpl chain = new BlockchainImpl(kernelRule.getKernel().getConfig(), temporaryDBRule);
+        kernelRule.getKernel().setBlockchain(chain);
+        byte[] address = new Key().toAddress();
+
+        // two competing blocks on top of genesis
+        Block block1 = kernelRule.createBlock(Collections.emptyList());
+        Block block2 = kernelRule.createBlock(Collections.emptyList());
+
+        // the executed state is committed as is
+        AccountState as1 = chain.getAccountState().track();
+        as1.adjustAvailable(address, Amount.of(1));
+        assertTrue(chain.importBlock(block1, as1, chain.getDelegateState().track()));
+        assertEquals(block1.getNumber(), chain.getLatestBlockNumber());
+        assertEquals(Amount.of(1), chain.getAccountState().getAccount(address).getAvailable());
+
+        // a stale state is discarded and the block is fully validated
+        AccountState as2 = chain.getAccountState().track();
+        as2.adjustAvailable(address, Amount.of(1));
+        assertFalse(chain.importBlock(block2, as2, chain.getDelegateState().track()));
+        assertEquals(Amount.of(1), chain.getAccountState().getAccount(address).getAvailable());
+    }
 }
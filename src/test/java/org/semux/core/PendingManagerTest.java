@@ -10,9 +10,11 @@ import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
 import static org.semux.core.PendingManager.ALLOWED_TIME_DRIFT;
+import static org.semux.core.TransactionResult.Code.INVALID_NONCE;
 import static org.semux.core.TransactionResult.Code.INVALID_TIMESTAMP;
 import static org.semux.core.Unit.MILLI_SEM;
 import static org.semux.core.Unit.SEM;
@@ -105,6 +107,16 @@ public class PendingManagerTest {
         assertEquals(1, pendingMgr.getPendingTransactions().size());
     }
 
+    @Test
+    public void testAddTransactionUnaffordable() {
+        long now = TimeUtil.currentTimeMillis();
+
+        // the sender has no balance to pay the fee
+        Transaction tx = new Transaction(network, type, to, value, fee, 0, now, Bytes.EMPTY_BYTES).sign(new Key());
+        pendingMgr.addTransaction(tx, "127.0.0.1");
+        assertTrue(pendingMgr.getQueue().isEmpty());
+    }
+
     @Test
     public void testAddTransactionSyncErrorInvalidFormat() {
         Transaction tx = new Transaction(network, type, to, value, fee, 0, 0, Bytes.EMPTY_BYTES).sign(key);
@@ -143,6 +155,32 @@ public class PendingManagerTest {
         assertEquals(TransactionResult.Code.INVALID_FORMAT, result.error);
     }
 
+    @Test
+    public void testReplaceByFee() {
+        long now = TimeUtil.currentTimeMillis();
+        long nonce = accountState.getAccount(from).getNonce();
+
+        Transaction tx = new Transaction(network, type, to, value, fee, nonce, now, Bytes.EMPTY_BYTES).sign(key);
+        Transaction tx2 = new Transaction(network, type, to, value, fee, nonce + 1, now, Bytes.EMPTY_BYTES).sign(key);
+        assertEquals(1, pendingMgr.addTransactionSync(tx).accepted);
+        assertEquals(1, pendingMgr.addTransactionSync(tx2).accepted);
+
+        // not enough to replace
+        Transaction low = new Transaction(network, type, to, value, fee.add(Amount.of(1)), nonce, now,
+                Bytes.EMPTY_BYTES).sign(key);
+        assertEquals(INVALID_NONCE, pendingMgr.addTransactionSync(low).error);
+
+        Transaction high = new Transaction(network, type, to, value, fee.multiply(2), nonce, now,
+                Bytes.EMPTY_BYTES).sign(key);
+        assertEquals(1, pendingMgr.addTransactionSync(high).accepted);
+
+        List<PendingManager.PendingTransaction> txs = pendingMgr.getPendingTransactions();
+        assertEquals(2, txs.size());
+        assertArrayEquals(high.getHash(), txs.get(0).transaction.getHash());
+        assertArrayEquals(tx2.getHash(), txs.get(1).transaction.getHash());
+        assertEquals(nonce + 2, pendingMgr.getNonce(from));
+    }
+
     @Test
     public void testNonceJump() throws InterruptedException {
         long now = TimeUtil.currentTimeMillis();
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.semux.Network;
+import org.semux.core.PendingManager.PendingTransaction;
+import org.semux.crypto.Key;
+import org.semux.util.Bytes;
+import org.semux.util.TimeUtil;
+
+public class TransactionPoolTest {
+
+    private static final long GAS_COST = 5_000L;
+
+    private final Key alice = new Key();
+    private final Key bob = new Key();
+    private final byte[] to = new Key().toAddress();
+
+    private PendingTransaction tx(Key from, long nonce, long price) {
+        Transaction tx = new Transaction(Network.DEVNET, TransactionType.TRANSFER, to, Amount.of(1),
+                Amount.of(price * GAS_COST), nonce, TimeUtil.currentTimeMillis(), Bytes.EMPTY_BYTES).sign(from);
+        return new PendingTransaction(tx, new TransactionResult());
+    }
+
+    @Test
+    public void testBlockTemplate() {
+        TransactionPool pool = new TransactionPool(16, GAS_COST);
+        PendingTransaction a0 = tx(alice, 0, 1);
+        PendingTransaction a1 = tx(alice, 1, 100);
+        PendingTransaction b0 = tx(bob, 0, 10);
+        pool.add(a0);
+        pool.add(a1);
+        pool.add(b0);
+
+        // bob pays more than alice's first transaction, which must precede her second
+        List<PendingTransaction> txs = pool.getBlockTemplate(Long.MAX_VALUE);
+        assertEquals(3, txs.size());
+        assertSame(b0, txs.get(0));
+        assertSame(a0, txs.get(1));
+        assertSame(a1, txs.get(2));
+
+        // execution order is kept
+        txs = pool.getAll();
+        assertSame(a0, txs.get(0));
+        assertSame(a1, txs.get(1));
+        assertSame(b0, txs.get(2));
+
+        // gas limit
+        txs = pool.getBlockTemplate(GAS_COST * 2 + 1);
+        assertEquals(2, txs.size());
+        assertSame(b0, txs.get(0));
+    }
+
+    @Test
+    public void testReplace() {
+        TransactionPool pool = new TransactionPool(16, GAS_COST);
+        PendingTransaction a0 = tx(alice, 0, 1);
+        PendingTransaction b0 = tx(bob, 0, 10);
+        pool.add(a0);
+        pool.add(b0);
+
+        PendingTransaction a0x = tx(alice, 0, 20);
+        assertSame(a0, pool.replace(a0x));
+        assertSame(a0x, pool.get(alice.toAddress(), 0));
+        assertSame(a0x, pool.getAll().get(0));
+        assertSame(a0x, pool.getBlockTemplate(Long.MAX_VALUE).get(0));
+        assertEquals(10, pool.getLowestPrice());
+
+        assertNull(pool.replace(tx(alice, 1, 20)));
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    public void testEvict() {
+        TransactionPool pool = new TransactionPool(3, GAS_COST);
+        PendingTransaction a0 = tx(alice, 0, 5);
+        PendingTransaction a1 = tx(alice, 1, 1);
+        PendingTransaction b0 = tx(bob, 0, 3);
+        pool.add(a0);
+        pool.add(a1);
+        pool.add(b0);
+        assertTrue(pool.isFull());
+        assertEquals(1, pool.getLowestPrice());
+
+        // nothing is cheaper
+        assertTrue(pool.evict(3, 1, to).isEmpty());
+
+        // the excluded sender is kept
+        List<PendingTransaction> evicted = pool.evict(1, 4, alice.toAddress());
+        assertEquals(1, evicted.size());
+        assertSame(b0, evicted.get(0));
+
+        // only the last transaction of a sender is evicted first
+        evicted = pool.evict(1, 10, to);
+        assertSame(a1, evicted.get(0));
+        assertFalse(pool.isFull());
+        assertSame(a0, pool.get(alice.toAddress(), 0));
+        assertEquals(1, pool.size());
+    }
+}
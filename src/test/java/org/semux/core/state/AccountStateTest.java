@@ -8,6 +8,7 @@ package org.semux.core.state;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.semux.core.Amount.ZERO;
 
@@ -148,4 +149,111 @@ public class AccountStateTest {
         state.rollback();
         assertEquals(0, state2.getAccount(address).getNonce());
     }
+
+    @Test
+    public void testNestedTracks() {
+        byte[] address = Bytes.random(20);
+        AccountState track = state.track();
+
+        // each level adds one
+        AccountState[] tracks = new AccountState[64];
+        AccountState parent = track;
+        for (int i = 0; i < tracks.length; i++) {
+            tracks[i] = parent.track();
+            tracks[i].adjustAvailable(address, Amount.of(1));
+            assertEquals(Amount.of(i + 1), tracks[i].getAccount(address).getAvailable());
+            parent = tracks[i];
+        }
+
+        // roll back the innermost half, commit the rest
+        for (int i = tracks.length - 1; i >= 0; i--) {
+            if (i >= tracks.length / 2) {
+                tracks[i].rollback();
+            } else {
+                tracks[i].commit();
+            }
+        }
+        assertEquals(Amount.of(tracks.length / 2), track.getAccount(address).getAvailable());
+        assertEquals(ZERO, state.getAccount(address).getAvailable());
+
+        track.commit();
+        assertEquals(Amount.of(tracks.length / 2), state.getAccount(address).getAvailable());
+    }
+
+    @Test
+    public void testRollbackAfterCommit() {
+        byte[] address = Bytes.random(20);
+        byte[] key = Bytes.random(32);
+        AccountState track = state.track();
+        track.putStorage(address, key, Bytes.of(1));
+
+        AccountState child = track.track();
+        child.putStorage(address, key, Bytes.of(2));
+        child.commit();
+        child.removeStorage(address, key);
+        assertNull(child.getStorage(address, key));
+
+        child.rollback();
+        assertArrayEquals(Bytes.of(2), track.getStorage(address, key));
+
+        track.rollback();
+        assertNull(track.getStorage(address, key));
+    }
+
+    @Test
+    public void testAbandonedTrack() {
+        byte[] address = Bytes.random(20);
+        AccountState track = state.track();
+        track.increaseNonce(address);
+
+        AccountState abandoned = track.track();
+        abandoned.increaseNonce(address);
+        abandoned.track().increaseNonce(address);
+
+        // using the parent again discards the tracks nested in it
+        assertEquals(1, track.getAccount(address).getNonce());
+        AccountState child = track.track();
+        child.increaseNonce(address);
+        child.commit();
+        assertEquals(2, track.getAccount(address).getNonce());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDiscardedTrack() {
+        AccountState track = state.track();
+        AccountState abandoned = track.track();
+        track.rollback();
+
+        abandoned.commit();
+    }
+
+    @Test
+    public void testCloneTrack() {
+        byte[] address = Bytes.random(20);
+        AccountState parent = state.track();
+        AccountState track = parent.track();
+        track.adjustAvailable(address, Amount.of(5));
+
+        AccountState clone = track.clone();
+        track.rollback();
+        assertEquals(Amount.of(5), clone.getAccount(address).getAvailable());
+        assertFalse(track.exists(address));
+
+        // the clone commits into the parent of the original
+        clone.commit();
+        assertEquals(Amount.of(5), parent.getAccount(address).getAvailable());
+        assertFalse(state.exists(address));
+
+        // and only hands over what changed since
+        clone.adjustAvailable(address, Amount.of(1));
+        clone.commit();
+        assertEquals(Amount.of(6), parent.getAccount(address).getAvailable());
+
+        clone.adjustAvailable(address, Amount.of(1));
+        clone.rollback();
+        assertEquals(Amount.of(6), clone.getAccount(address).getAvailable());
+
+        parent.commit();
+        assertEquals(Amount.of(6), state.getAccount(address).getAvailable());
+    }
 }
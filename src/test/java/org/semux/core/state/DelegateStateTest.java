@@ -14,6 +14,7 @@ import static org.junit.Assert.assertTrue;
 import static org.semux.core.Amount.ZERO;
 import static org.semux.core.Unit.SEM;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -27,6 +28,8 @@ import org.semux.core.Amount;
 import org.semux.core.Blockchain;
 import org.semux.core.BlockchainImpl;
 import org.semux.crypto.Key;
+import org.semux.db.Database;
+import org.semux.db.DatabaseName;
 import org.semux.rules.TemporaryDatabaseRule;
 import org.semux.util.ByteArray;
 import org.semux.util.Bytes;
@@ -111,6 +114,38 @@ public class DelegateStateTest {
         assertEquals(Amount.of(200 - 1), list.get(0).getVotes());
     }
 
+    @Test
+    public void testRankingAcrossCommits() {
+        byte[] voter = new Key().toAddress();
+        byte[] d1 = new Key().toAddress();
+        byte[] d2 = new Key().toAddress();
+
+        assertTrue(ds.register(d1, Bytes.of("d1")));
+        assertTrue(ds.register(d2, Bytes.of("d2")));
+        assertTrue(ds.vote(voter, d1, Amount.of(2)));
+        assertTrue(ds.vote(voter, d2, Amount.of(1)));
+        ds.commit();
+
+        List<Delegate> list = ds.getDelegates(2);
+        assertEquals(2, list.size());
+        assertArrayEquals(d1, list.get(0).getAddress());
+        assertArrayEquals(d2, list.get(1).getAddress());
+
+        // tracked updates are merged into the committed ranking
+        DelegateState track = ds.track();
+        assertTrue(track.vote(voter, d2, Amount.of(2)));
+        list = track.getDelegates(2);
+        assertArrayEquals(d2, list.get(0).getAddress());
+        assertArrayEquals(d1, list.get(1).getAddress());
+        assertArrayEquals(d1, ds.getDelegates(1).get(0).getAddress());
+
+        track.commit();
+        ds.commit();
+        assertArrayEquals(d2, ds.getDelegates(1).get(0).getAddress());
+        assertEquals(Amount.of(3), ds.getDelegates(1).get(0).getVotes());
+        assertEquals(delegates.size() + 2, ds.getDelegates().size());
+    }
+
     @Test
     public void testUnvote() {
         byte[] voter = new Key().toAddress();
@@ -156,6 +191,86 @@ public class DelegateStateTest {
         assertEquals(value2, votes.get(new ByteArray(voterKey2.toAddress())));
     }
 
+    @Test
+    public void testGetVotesByVoter() {
+        byte[] voter = new Key().toAddress();
+        byte[] delegate1 = new Key().toAddress();
+        byte[] delegate2 = new Key().toAddress();
+
+        ds.register(delegate1, Bytes.of("test1"));
+        ds.register(delegate2, Bytes.of("test2"));
+        assertTrue(ds.vote(voter, delegate1, Amount.of(1, SEM)));
+        assertTrue(ds.vote(voter, delegate2, Amount.of(2, SEM)));
+        ds.commit();
+
+        // tracked updates are merged into the committed votes
+        DelegateState track = ds.track();
+        assertTrue(track.unvote(voter, delegate1, Amount.of(1, SEM)));
+        assertEquals(1, track.getVotesByVoter(voter).size());
+        assertEquals(Amount.of(2, SEM), track.getVotesByVoter(voter).get(ByteArray.of(delegate2)));
+
+        Map<ByteArray, Amount> votes = ds.getVotesByVoter(voter);
+        assertEquals(2, votes.size());
+        assertEquals(Amount.of(1, SEM), votes.get(ByteArray.of(delegate1)));
+        assertEquals(Amount.of(2, SEM), votes.get(ByteArray.of(delegate2)));
+
+        // votes withdrawn in full are removed from the index
+        track.commit();
+        ds.commit();
+        votes = ds.getVotesByVoter(voter);
+        assertEquals(1, votes.size());
+        assertEquals(Amount.of(2, SEM), votes.get(ByteArray.of(delegate2)));
+        assertTrue(ds.getVotesByVoter(new Key().toAddress()).isEmpty());
+    }
+
+    @Test
+    public void testBuildVoterIndex() {
+        byte[] voter = new Key().toAddress();
+        byte[] delegate = new Key().toAddress();
+
+        ds.register(delegate, Bytes.of("test"));
+        assertTrue(ds.vote(voter, delegate, Amount.of(3, SEM)));
+        ds.commit();
+
+        // drop the index, as in a database created before it existed
+        Database delegateDB = temporaryDBFactory.getDB(DatabaseName.DELEGATE);
+        Database voteDB = temporaryDBFactory.getDB(DatabaseName.VOTE);
+        voteDB.delete(Bytes.of((byte) 0xff));
+        voteDB.delete(Bytes.merge(Bytes.of((byte) 0xff), voter, delegate));
+
+        DelegateState rebuilt = new DelegateStateImpl(chain, delegateDB, voteDB);
+        Map<ByteArray, Amount> votes = rebuilt.getVotesByVoter(voter);
+        assertEquals(1, votes.size());
+        assertEquals(Amount.of(3, SEM), votes.get(ByteArray.of(delegate)));
+        assertNotNull(voteDB.get(Bytes.of((byte) 0xff)));
+    }
+
+    @Test
+    public void testNestedTracks() {
+        byte[] voter = new Key().toAddress();
+        byte[] delegate = new Key().toAddress();
+
+        DelegateState track = ds.track();
+        assertTrue(track.register(delegate, Bytes.of("test")));
+
+        DelegateState child = track.track();
+        assertTrue(child.vote(voter, delegate, Amount.of(1, SEM)));
+        DelegateState grandchild = child.track();
+        assertTrue(grandchild.vote(voter, delegate, Amount.of(2, SEM)));
+        assertEquals(Amount.of(3, SEM), grandchild.getVote(voter, delegate));
+        assertEquals(Amount.of(3, SEM), grandchild.getVotesByVoter(voter).get(ByteArray.of(delegate)));
+        grandchild.rollback();
+        child.commit();
+
+        assertEquals(Amount.of(1, SEM), track.getVote(voter, delegate));
+        assertEquals(Amount.of(1, SEM), track.getDelegateByName(Bytes.of("test")).getVotes());
+        assertTrue(track.getDelegates().stream().anyMatch(d -> Arrays.equals(delegate, d.getAddress())));
+        assertFalse(ds.getDelegates().stream().anyMatch(d -> Arrays.equals(delegate, d.getAddress())));
+
+        track.commit();
+        assertEquals(Amount.of(1, SEM), ds.getDelegateByAddress(delegate).getVotes());
+    }
+
     @After
     public void rollback() {
         ds.rollback();
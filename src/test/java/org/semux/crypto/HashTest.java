@@ -8,6 +8,8 @@ package org.semux.crypto;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 import org.semux.util.Bytes;
 import org.slf4j.Logger;
@@ -46,6 +48,15 @@ public class HashTest {
         assertEquals(msgBlake2b, Hex.encode(hash));
     }
 
+    @Test
+    public void testH256Slice() {
+        byte[] raw = Bytes.merge(Bytes.of("xx"), Bytes.of(msg), Bytes.of("yy"));
+        byte[] out = new byte[Hash.HASH_LEN + 4];
+        Hash.h256(raw, 2, msg.length(), out, 2);
+
+        assertEquals(msgBlake2b, Hex.encode(Arrays.copyOfRange(out, 2, 2 + Hash.HASH_LEN)));
+    }
+
     @Test
     public void testH160() {
         byte[] raw = Bytes.of(msg);
@@ -9,6 +9,7 @@ package org.semux.crypto;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.math.BigInteger;
@@ -102,6 +103,16 @@ public class KeyTest {
         assertArrayEquals(key.toAddress(), Signature.fromBytes(sig).getAddress());
     }
 
+    @Test
+    public void testSignerAddressIsMemoized() {
+        Key key = new Key();
+        Signature sig = key.sign(Hash.h256(Bytes.of("test")));
+
+        byte[] address = sig.getAddress();
+        assertArrayEquals(key.toAddress(), address);
+        assertSame(address, sig.getAddress());
+    }
+
     @Test
     public void testSignLargeData() throws SignatureException {
         byte[] data = Bytes.random(1024 * 1024);
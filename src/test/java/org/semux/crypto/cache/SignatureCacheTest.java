@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.crypto.cache;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.semux.crypto.Key;
+import org.semux.crypto.Key.Signature;
+import org.semux.util.Bytes;
+
+public class SignatureCacheTest {
+
+    @Test
+    public void testVerify() {
+        Key key = new Key();
+        byte[] message = Bytes.random(32);
+        Signature sig = key.sign(message);
+
+        assertFalse(SignatureCache.isVerified(message, sig));
+        assertTrue(SignatureCache.verify(message, sig));
+        assertTrue(SignatureCache.isVerified(message, sig));
+    }
+
+    @Test
+    public void testVerifyInvalid() {
+        Key key = new Key();
+        byte[] message = Bytes.random(32);
+        Signature sig = key.sign(Bytes.random(32));
+
+        assertFalse(SignatureCache.verify(message, sig));
+        assertFalse(SignatureCache.isVerified(message, sig));
+    }
+
+    @Test
+    public void testVerifyAll() {
+        List<byte[]> messages = new ArrayList<>();
+        List<Signature> signatures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Key key = new Key();
+            byte[] message = Bytes.random(32);
+            messages.add(message);
+            signatures.add(key.sign(message));
+        }
+        assertTrue(SignatureCache.verify(messages.get(0), signatures.get(0)));
+
+        assertTrue(SignatureCache.verifyAll(messages, signatures));
+        for (int i = 0; i < messages.size(); i++) {
+            assertTrue(SignatureCache.isVerified(messages.get(i), signatures.get(i)));
+        }
+
+        // one forged signature fails the whole list
+        messages.add(Bytes.random(32));
+        signatures.add(new Key().sign(Bytes.random(32)));
+        assertFalse(SignatureCache.verifyAll(messages, signatures));
+    }
+}
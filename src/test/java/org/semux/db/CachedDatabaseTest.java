@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.db;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semux.util.ByteArray;
+import org.semux.util.Bytes;
+
+public class CachedDatabaseTest {
+
+    private LeveldbDatabase db;
+    private CachedDatabase cached;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        db = new LeveldbDatabase(new File(temporaryFolder.getRoot(), "test"));
+        cached = new CachedDatabase(db, 1024 * 1024);
+    }
+
+    @After
+    public void tearDown() {
+        cached.destroy();
+    }
+
+    @Test
+    public void testReadThrough() {
+        db.put(Bytes.of("a"), Bytes.of("1"));
+
+        assertArrayEquals(Bytes.of("1"), cached.get(Bytes.of("a")));
+        assertArrayEquals(Bytes.of("1"), cached.get(Bytes.of("a")));
+        assertNull(cached.get(Bytes.of("b")));
+        assertNull(cached.get(Bytes.of("b")));
+
+        assertEquals(2, cached.stats().hitCount());
+        assertEquals(2, cached.stats().missCount());
+    }
+
+    @Test
+    public void testWriteThrough() {
+        cached.put(Bytes.of("a"), Bytes.of("1"));
+        assertArrayEquals(Bytes.of("1"), db.get(Bytes.of("a")));
+        assertArrayEquals(Bytes.of("1"), cached.get(Bytes.of("a")));
+
+        cached.delete(Bytes.of("a"));
+        assertNull(db.get(Bytes.of("a")));
+        assertNull(cached.get(Bytes.of("a")));
+    }
+
+    @Test
+    public void testUpdateBatch() {
+        cached.put(Bytes.of("a"), Bytes.of("1"));
+        assertNull(cached.get(Bytes.of("b")));
+
+        Map<ByteArray, byte[]> updates = new HashMap<>();
+        updates.put(ByteArray.of(Bytes.of("a")), null);
+        updates.put(ByteArray.of(Bytes.of("b")), Bytes.of("2"));
+        cached.updateBatch(updates);
+
+        assertNull(cached.get(Bytes.of("a")));
+        assertArrayEquals(Bytes.of("2"), cached.get(Bytes.of("b")));
+        assertNull(db.get(Bytes.of("a")));
+        assertArrayEquals(Bytes.of("2"), db.get(Bytes.of("b")));
+    }
+}
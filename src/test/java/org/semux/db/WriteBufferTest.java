@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.db;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semux.util.Bytes;
+
+public class WriteBufferTest {
+
+    private LeveldbDatabase db;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        db = new LeveldbDatabase(new File(temporaryFolder.getRoot(), "test"));
+    }
+
+    @After
+    public void tearDown() {
+        db.destroy();
+    }
+
+    @Test
+    public void testReadYourWrites() {
+        db.put(Bytes.of("a"), Bytes.of("1"));
+
+        WriteBuffer buffer = new WriteBuffer(db);
+        assertArrayEquals(Bytes.of("1"), buffer.get(Bytes.of("a")));
+
+        buffer.put(Bytes.of("a"), Bytes.of("2"));
+        buffer.put(Bytes.of("b"), Bytes.of("3"));
+        assertArrayEquals(Bytes.of("2"), buffer.get(Bytes.of("a")));
+        assertArrayEquals(Bytes.of("3"), buffer.get(Bytes.of("b")));
+
+        // nothing reaches the database before flush
+        assertArrayEquals(Bytes.of("1"), db.get(Bytes.of("a")));
+        assertNull(db.get(Bytes.of("b")));
+    }
+
+    @Test
+    public void testFlush() {
+        db.put(Bytes.of("a"), Bytes.of("1"));
+
+        WriteBuffer buffer = new WriteBuffer(db);
+        buffer.delete(Bytes.of("a"));
+        buffer.put(Bytes.of("b"), Bytes.of("2"));
+        assertNull(buffer.get(Bytes.of("a")));
+        assertEquals(2, buffer.size());
+
+        buffer.flush();
+        assertEquals(0, buffer.size());
+        assertNull(db.get(Bytes.of("a")));
+        assertArrayEquals(Bytes.of("2"), db.get(Bytes.of("b")));
+    }
+
+    @Test
+    public void testClear() {
+        WriteBuffer buffer = new WriteBuffer(db);
+        buffer.put(Bytes.of("a"), Bytes.of("1"));
+        buffer.clear();
+        buffer.flush();
+
+        assertNull(db.get(Bytes.of("a")));
+    }
+}
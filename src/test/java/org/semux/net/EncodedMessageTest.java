@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.semux.Network;
+import org.semux.config.Config;
+import org.semux.config.Constants;
+import org.semux.config.UnitTestnetConfig;
+import org.semux.core.Amount;
+import org.semux.core.Transaction;
+import org.semux.core.TransactionType;
+import org.semux.crypto.Key;
+import org.semux.net.msg.Message;
+import org.semux.net.msg.p2p.TransactionMessage;
+import org.semux.util.Bytes;
+import org.semux.util.TimeUtil;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+public class EncodedMessageTest {
+
+    private final Config config = new UnitTestnetConfig(Constants.DEFAULT_DATA_DIR);
+
+    private EmbeddedChannel newChannel() {
+        return new EmbeddedChannel(new SemuxFrameHandler(config), new SemuxMessageHandler(config));
+    }
+
+    @Test
+    public void testSharedFrames() {
+        // large enough to be split into several frames
+        byte[] data = Bytes.random(config.netMaxFrameBodySize() * 2);
+        Transaction tx = new Transaction(Network.DEVNET, TransactionType.TRANSFER, Bytes.random(20), Amount.of(1),
+                Amount.of(1), 0, TimeUtil.currentTimeMillis(), data).sign(new Key());
+        EncodedMessage msg = EncodedMessage.of(config, new TransactionMessage(tx));
+        assertEquals(1, msg.refCnt());
+
+        // write to several channels, and read back
+        for (int i = 0; i < 3; i++) {
+            EmbeddedChannel sender = newChannel();
+            assertTrue(sender.writeOutbound(msg.retain()));
+            ByteBuf wire = sender.readOutbound();
+            assertNull(sender.readOutbound());
+
+            EmbeddedChannel receiver = newChannel();
+            assertTrue(receiver.writeInbound(wire));
+            Message received = receiver.readInbound();
+            assertArrayEquals(msg.getBody(), received.getBody());
+            assertEquals(msg.getCode(), received.getCode());
+        }
+
+        // only the creator's reference is left
+        assertEquals(1, msg.refCnt());
+        assertTrue(msg.release());
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+public class NettyTransportTest {
+
+    @Test
+    public void testNio() {
+        NettyTransport transport = NettyTransport.of(false);
+        assertFalse(transport.isEpoll());
+        assertEquals(NioServerSocketChannel.class, transport.serverChannelClass());
+        assertEquals(NioSocketChannel.class, transport.channelClass());
+
+        EventLoopGroup group = transport.newEventLoopGroup(2, Thread::new);
+        group.shutdownGracefully();
+    }
+
+    @Test
+    public void testEpollFallback() {
+        NettyTransport transport = NettyTransport.of(true);
+        assertEquals(Epoll.isAvailable(), transport.isEpoll());
+
+        EventLoopGroup group = transport.newEventLoopGroup(1, Thread::new);
+        group.shutdownGracefully();
+    }
+}
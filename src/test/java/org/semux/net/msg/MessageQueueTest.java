@@ -102,6 +102,21 @@ public class MessageQueueTest {
         assertTrue(ch.isActive());
     }
 
+    @Test
+    public void testSendBurst() throws InterruptedException {
+        Channel ch = connect();
+
+        // not throttled to a fixed number of messages per tick
+        PongMessage msg = new PongMessage();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(ch.getMessageQueue().sendMessage(msg));
+        }
+
+        Thread.sleep(500);
+        assertTrue(ch.getMessageQueue().isIdle());
+        assertTrue(ch.isActive());
+    }
+
     @Test
     public void testSendResponse() throws InterruptedException {
         Channel ch = connect();
@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.util;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+    @Test
+    public void testNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        List<byte[]> hashes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            byte[] hash = Bytes.random(32);
+            hashes.add(hash);
+            filter.put(hash);
+        }
+
+        for (byte[] hash : hashes) {
+            assertTrue(filter.mightContain(hash));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(Bytes.random(32));
+        }
+
+        int positives = 0;
+        int n = 100_000;
+        for (int i = 0; i < n; i++) {
+            if (filter.mightContain(Bytes.random(32))) {
+                positives++;
+            }
+        }
+        assertTrue("False positive rate = " + (double) positives / n, positives < n * 0.02);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParameters() {
+        new BloomFilter(0, 0.01);
+    }
+}
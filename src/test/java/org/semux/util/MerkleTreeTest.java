@@ -8,7 +8,10 @@ package org.semux.util;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -75,4 +78,41 @@ public class MerkleTreeTest {
         assertArrayEquals(hash33, proof.get(1));
         assertArrayEquals(hash3, proof.get(2));
     }
+
+    @Test
+    public void testAuditPath() {
+        for (int size = 1; size <= 300; size += 37) {
+            List<byte[]> hashes = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                hashes.add(Bytes.random(32));
+            }
+            MerkleTree tree = new MerkleTree(hashes);
+
+            for (int i = 0; i < size; i++) {
+                List<byte[]> path = tree.getAuditPath(i);
+                assertTrue(MerkleTree.verifyAuditPath(tree.getRootHash(), hashes.get(i), i, size, path));
+                assertFalse(MerkleTree.verifyAuditPath(tree.getRootHash(), hash1, i, size, path));
+            }
+        }
+    }
+
+    @Test
+    public void testParallelBuild() {
+        List<byte[]> hashes = new ArrayList<>();
+        for (int i = 0; i < 1001; i++) {
+            hashes.add(Bytes.random(32));
+        }
+
+        // reference implementation, one level at a time
+        List<byte[]> nodes = hashes;
+        while (nodes.size() > 1) {
+            List<byte[]> parents = new ArrayList<>();
+            for (int i = 0; i < nodes.size(); i += 2) {
+                parents.add(i + 1 < nodes.size() ? Hash.h256(nodes.get(i), nodes.get(i + 1)) : nodes.get(i));
+            }
+            nodes = parents;
+        }
+
+        assertArrayEquals(nodes.get(0), new MerkleTree(hashes).getRootHash());
+    }
 }